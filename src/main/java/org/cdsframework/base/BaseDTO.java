@@ -32,19 +32,22 @@ import org.cdsframework.aspect.aspects.PropertySetterInterface;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.sql.Timestamp;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Consumer;
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.XmlAccessOrder;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorOrder;
@@ -55,6 +58,7 @@ import org.cdsframework.enumeration.DTOState;
 import org.cdsframework.util.ClassUtils;
 import org.cdsframework.util.DTOUtils;
 import org.cdsframework.util.DateUtils;
+import org.cdsframework.util.UuidUtils;
 import org.cdsframework.util.support.CorePropertyChangeEvent;
 
 /**
@@ -178,19 +182,44 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
     private Map<Class, List<BaseDTO>> childDTOMap;
 
     /*
-     * Used for property change support
+     * The ChildDTOLists that indexed this DTO by its primary key - its primary key changes are reported to them.
      */
     @XmlTransient
-    private PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
+    private transient List<ChildDTOList> primaryKeyIndexes;
+
+    /*
+     * Incremental child state tracking - see getOperationDTOState. The state parent is the DTO whose ChildDTOMap links this DTO,
+     * the counts are the links to the children that are changed or can't be tracked.
+     */
+    private static final int CHILD_STATE_UNSET = 0;
+    private static final int CHILD_STATE_CHANGED = 1;
+    private static final int CHILD_STATE_UNTRACKED = 2;
+    private static final boolean VERIFY_CHILD_DTO_STATE = Boolean.getBoolean("org.cdsframework.base.verifyChildDTOState");
+    @XmlTransient
+    private transient BaseDTO stateParent;
+    @XmlTransient
+    private transient int stateParentLinks;
+    @XmlTransient
+    private transient boolean stateParentShared;
+    @XmlTransient
+    private transient int changedChildLinks;
+    @XmlTransient
+    private transient int untrackedChildLinks;
+
+    /*
+     * Used for property change support - only allocated when a descendant asks for it, see getPropertyChangeSupport
+     */
+    @XmlTransient
+    private PropertyChangeSupport propertyChangeSupport;
 
     /*
      * For storage of propertyChangeEvents
      *
-     * Tracks old and new values that can be used in updating processing
+     * Tracks old and new values that can be used in updating processing. Allocated on the first change, see PropertyChangeJournal.
      */
     //@JsonProperty    Turn off for now as there is more work for RS clients
     @XmlTransient
-    private Map<String, CorePropertyChangeEvent> propertyChangeEventMap = new HashMap<String, CorePropertyChangeEvent>();
+    private Map<String, CorePropertyChangeEvent> propertyChangeEventMap;
 
     // Force the property to be part of json
     @JsonProperty
@@ -202,12 +231,10 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
 //    @XmlTransient
 //    private String resourceName;
     
+    /*
+     * The uuid is assigned on first use - see getUuid.
+     */
     public BaseDTO() {
-        if (uuid == null) {
-            uuid = UUID.randomUUID();
-        }
-        // Add propertyChangeSupport
-        propertyChangeSupport.addPropertyChangeListener(this);
     }
 
     /**
@@ -217,44 +244,30 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      */
     @Override
     public void propertyChange(PropertyChangeEvent propertyChangeEvent) {
-        //System.out.println("propertyChange propertyChangeEvent=" + propertyChangeEvent);
-        //System.out.println("dtoState=" + dtoState);
-        
+        recordPropertyChange(propertyChangeEvent.getPropertyName(), propertyChangeEvent.getOldValue(), propertyChangeEvent.getNewValue());
+    }
+
+    /*
+     * Records the change in the propertyChangeEventMap unless the DTO is new.
+     */
+    private void recordPropertyChange(String propertyName, Object oldValue, Object newValue) {
         if (dtoState != DTOState.NEW && dtoState != DTOState.NEWMODIFIED) {
-            String propertyName = propertyChangeEvent.getPropertyName();
-            //("propertyChange propertyName=" + propertyName);
-            if (propertyChangeEventMap.containsKey(propertyName)) {
-                // Handles tracking the most recent new value
-                CorePropertyChangeEvent oldPropertyChangeEvent = propertyChangeEventMap.get(propertyName);
-
-                // New Value Returning to Old Value ?
-                if ( (propertyChangeEvent.getNewValue() == null && oldPropertyChangeEvent.getOldValue() == null) ||
-                     (propertyChangeEvent.getNewValue() != null && propertyChangeEvent.getNewValue().equals(oldPropertyChangeEvent.getOldValue())) ||
-                     (propertyChangeEvent.getOldValue() != null && propertyChangeEvent.getOldValue().equals(propertyChangeEvent.getNewValue()))
-                   ) {
-                    //System.out.println("New=Old " + propertyChangeEvent.getNewValue() + "=" + oldPropertyChangeEvent.getOldValue() +
-                    //        " propertyName=" + propertyName);
-                    propertyChangeEventMap.remove(propertyName);
-                }
-                else {
-//                    PropertyChangeEvent newPropertyChangeEvent = new PropertyChangeEvent(propertyChangeEvent.getSource(),
-//                            propertyChangeEvent.getPropertyName(), oldPropertyChangeEvent.getOldValue(), propertyChangeEvent.getNewValue());
-                    CorePropertyChangeEvent newPropertyChangeEvent = new CorePropertyChangeEvent(
-                            propertyChangeEvent.getPropertyName(), oldPropertyChangeEvent.getOldValue(), propertyChangeEvent.getNewValue());
-                    
-                    //System.out.println("propertyChange updating=" + propertyName);
-                    propertyChangeEventMap.put(newPropertyChangeEvent.getPropertyName(), newPropertyChangeEvent);
-                }
-            } else {
-                CorePropertyChangeEvent newPropertyChangeEvent = new CorePropertyChangeEvent(
-                        propertyChangeEvent.getPropertyName(), propertyChangeEvent.getOldValue(), propertyChangeEvent.getNewValue());
-                propertyChangeEventMap.put(newPropertyChangeEvent.getPropertyName(), newPropertyChangeEvent);                
-                //System.out.println("propertyChange putting propertyName=" + propertyName + "propertyChangeEvent=" + propertyChangeEvent);
-//                propertyChangeEventMap.put(propertyChangeEvent.getPropertyName(), propertyChangeEvent);
-//                CorePropertyChangeEvent putPropertyChangeEvent = propertyChangeEventMap.get(propertyChangeEvent.getPropertyName());
-//                System.out.println("propertyChange put putPropertyChangeEvent=" + putPropertyChangeEvent);
+            if (!(propertyChangeEventMap instanceof PropertyChangeJournal)) {
+                getPropertyChangeEventMap();
             }
-       }
+            ((PropertyChangeJournal) propertyChangeEventMap).record(propertyName, oldValue, newValue);
+        }
+    }
+
+    /*
+     * Goes through the propertyChangeSupport once a descendant has asked for it so its listeners still see the changes.
+     */
+    private void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+        if (propertyChangeSupport != null) {
+            propertyChangeSupport.firePropertyChange(propertyName, oldValue, newValue);
+        } else {
+            recordPropertyChange(propertyName, oldValue, newValue);
+        }
     }
 
     /**
@@ -263,6 +276,10 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the propertyChangeSupport.
      */
     protected PropertyChangeSupport getPropertyChangeSupport() {
+        if (propertyChangeSupport == null) {
+            propertyChangeSupport = new PropertyChangeSupport(this);
+            propertyChangeSupport.addPropertyChangeListener(this);
+        }
         return propertyChangeSupport;
     }
 
@@ -272,6 +289,12 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the propertyChangeEventMap.
      */
     public Map<String, CorePropertyChangeEvent> getPropertyChangeEventMap() {
+        if (propertyChangeEventMap == null) {
+            propertyChangeEventMap = new PropertyChangeJournal(getClass());
+        } else if (!(propertyChangeEventMap instanceof PropertyChangeJournal)) {
+            // a plain map read from an older serialized form
+            setPropertyChangeEventMap(propertyChangeEventMap);
+        }
         return propertyChangeEventMap;
     }
 
@@ -281,7 +304,22 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @param propertyChangeEventMap the propertyChangeEventMap.
      */
     public void setPropertyChangeEventMap(Map<String, CorePropertyChangeEvent> propertyChangeEventMap) {
-        this.propertyChangeEventMap = propertyChangeEventMap;
+        if (propertyChangeEventMap == null || propertyChangeEventMap instanceof PropertyChangeJournal) {
+            this.propertyChangeEventMap = propertyChangeEventMap;
+        } else {
+            PropertyChangeJournal propertyChangeJournal = new PropertyChangeJournal(getClass());
+            propertyChangeJournal.putAll(propertyChangeEventMap);
+            this.propertyChangeEventMap = propertyChangeJournal;
+        }
+    }
+
+    /**
+     * Clears the propertyChangeEvents without allocating the map if nothing was recorded.
+     */
+    public void clearPropertyChangeEventMap() {
+        if (propertyChangeEventMap != null) {
+            propertyChangeEventMap.clear();
+        }
     }
 
     /**
@@ -291,7 +329,7 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the PropertyChangeEvent.
      */
     public CorePropertyChangeEvent getPropertyChangeEvent(String propertyName) {
-        return propertyChangeEventMap.get(propertyName);
+        return propertyChangeEventMap != null ? propertyChangeEventMap.get(propertyName) : null;
     }
 
     /**
@@ -304,7 +342,7 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         // To Do: Can add more logic to determine if the property truely has changed
         // 99% of the time if the property is in the map the value would have changed
         // If the user changes it again, the event still exists
-        return propertyChangeEventMap.containsKey(propertyName);
+        return propertyChangeEventMap != null && propertyChangeEventMap.containsKey(propertyName);
     }
 
     /**
@@ -335,13 +373,34 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         DTOState operationDTOState = this.getDTOState();
         if (operationDTOState == DTOState.UNSET) {
             // Look at all the ChildrenDTO's to determine the state
-            if (this.getChildDTOState(this) != DTOState.UNSET) {
+            if (this.isChildDTOStateChanged()) {
                 operationDTOState = DTOState.UPDATED;
             }
         }
         return operationDTOState;
     }
 
+    /*
+     * Answers from the child state counts when every child is tracked or a tracked child is changed, otherwise falls back to the
+     * recursive walk. The walk verifies the counts in debug or when org.cdsframework.base.verifyChildDTOState is set.
+     */
+    private boolean isChildDTOStateChanged() {
+        attachChildDTOMap();
+        if (!isChildDTOMapAttached() || (changedChildLinks == 0 && untrackedChildLinks != 0)) {
+            return this.getChildDTOState(this) != DTOState.UNSET;
+        }
+        boolean childDTOStateChanged = changedChildLinks != 0;
+        if (debug || VERIFY_CHILD_DTO_STATE) {
+            boolean walkedChildDTOStateChanged = this.getChildDTOState(this) != DTOState.UNSET;
+            if (walkedChildDTOStateChanged != childDTOStateChanged) {
+                error("isChildDTOStateChanged - tracked child state " + childDTOStateChanged
+                        + " does not match the walked child state " + walkedChildDTOStateChanged);
+                childDTOStateChanged = walkedChildDTOStateChanged;
+            }
+        }
+        return childDTOStateChanged;
+    }
+
     // todo - migrate all the usages of these to direct dtoutils calls
     public Object getPrimaryKey() {
         return DTOUtils.getPrimaryKey(this);
@@ -413,9 +472,9 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         if (updated) {
             DTOState localDTOState = getDTOState();
             if (localDTOState == DTOState.NEW) {
-                dtoState = DTOState.NEWMODIFIED;
+                changeDTOState(DTOState.NEWMODIFIED);
             } else if (localDTOState != DTOState.NEW && localDTOState != DTOState.NEWMODIFIED && localDTOState != DTOState.DELETED) {
-                dtoState = DTOState.UPDATED;
+                changeDTOState(DTOState.UPDATED);
             }
 
         }
@@ -432,7 +491,20 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * Called internally to set the DTOState
      */
     private void setDTOState(DTOState dtoState) {
-        this.dtoState = dtoState;
+        changeDTOState(dtoState);
+    }
+
+    /*
+     * Sets the dtoState and reports the change to the state parent.
+     */
+    private void changeDTOState(DTOState dtoState) {
+        if (stateParent == null || this.dtoState == dtoState) {
+            this.dtoState = dtoState;
+        } else {
+            int childStateBefore = getChildStateContribution();
+            this.dtoState = dtoState;
+            childStateChanged(childStateBefore);
+        }
     }
 
     /**
@@ -491,7 +563,7 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         // NOT a newRecord ?, (newRecord is true by default)
 //        DTOState currentDTOState = this.getDTOState();
 //        if (currentDTOState != DTOState.NEW) {
-        dtoState = DTOState.DELETED;
+        changeDTOState(DTOState.DELETED);
         // Delete all the children
         if (cascade) {
             deleteChildren(BaseDTO.class, cascade);
@@ -645,60 +717,91 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
     }
     
     private List<BaseDTO> getChildrenDTOsByDTOState(Class queryClass, DTOState desiredState) {
-        List<BaseDTO> childrenDTOs = new LinkedList<BaseDTO>();
+        List<BaseDTO> childrenDTOs;
         if (queryClass != BaseDTO.class) {
-            if (desiredState == null) {
-                childrenDTOs = getChildDTOMap().get(queryClass);
+            List<BaseDTO> anyChildrenDTOs = getChildDTOMap().get(queryClass);
+            if (anyChildrenDTOs == null) {
+                childrenDTOs = new ChildDTOList();
+                getChildDTOMap().put(queryClass, childrenDTOs);
+            } else if (desiredState == null) {
+                childrenDTOs = anyChildrenDTOs;
             } else {
-                List<BaseDTO> anyChildrenDTOs = getChildDTOMap().get(queryClass);
+                childrenDTOs = new ArrayList<BaseDTO>();
+                addChildrenDTOsByDTOState(anyChildrenDTOs, desiredState, childrenDTOs);
+            }
+        } else {
+            childrenDTOs = new ArrayList<BaseDTO>();
+            for (List<BaseDTO> anyChildrenDTOs : getChildDTOMap().values()) {
                 if (anyChildrenDTOs != null) {
-                    for (BaseDTO childrenDTO : anyChildrenDTOs) {
-                        if (desiredState == DTOState.NEW || desiredState == DTOState.NEWMODIFIED) {
-                            DTOState childDTOState = childrenDTO.getDTOState();
-                            if (childDTOState == DTOState.NEW || childDTOState == DTOState.NEWMODIFIED) {
-                                childrenDTOs.add(childrenDTO);
-                            }
-                        } else {
-                            if (childrenDTO.getDTOState() == desiredState) {
-                                childrenDTOs.add(childrenDTO);
-                            }
-                        }
-                    }
-                } else {
-                    childrenDTOs = null;
+                    addChildrenDTOsByDTOState(anyChildrenDTOs, desiredState, childrenDTOs);
                 }
             }
-            if (childrenDTOs == null) {
-                childrenDTOs = new LinkedList<BaseDTO>();
-                getChildDTOMap().put(queryClass, childrenDTOs);
-            }
+        }
+        return childrenDTOs;
+    }
+
+    private static void addChildrenDTOsByDTOState(List<BaseDTO> anyChildrenDTOs, DTOState desiredState, List<BaseDTO> childrenDTOs) {
+        if (desiredState == null) {
+            childrenDTOs.addAll(anyChildrenDTOs);
         } else {
-            for (Map.Entry childrenDTOEntry : getChildDTOMap().entrySet()) {
-                List<BaseDTO> childDTOs = new LinkedList<BaseDTO>();
-                if (desiredState == null) {
-                    childDTOs = (List<BaseDTO>) childrenDTOEntry.getValue();
-                } else {
-                    for (BaseDTO childrenDTO : (List<BaseDTO>) childrenDTOEntry.getValue()) {
-                        if (desiredState == DTOState.NEW || desiredState == DTOState.NEWMODIFIED) {
-                            DTOState childDTOState = childrenDTO.getDTOState();
-                            if (childDTOState == DTOState.NEW || childDTOState == DTOState.NEWMODIFIED) {
-                                childrenDTOs.add(childrenDTO);
-                            }
-                        } else {
-                            if (childrenDTO.getDTOState() == desiredState) {
-                                childDTOs.add(childrenDTO);
-                            }
-                        }
-                    }
+            for (BaseDTO childrenDTO : anyChildrenDTOs) {
+                if (isInDTOState(childrenDTO, desiredState)) {
+                    childrenDTOs.add(childrenDTO);
                 }
-                if (childDTOs != null) {
-                    childrenDTOs.addAll(childDTOs);
+            }
+        }
+    }
+
+    /*
+     * NEW matches both NEW and NEWMODIFIED children.
+     */
+    private static boolean isInDTOState(BaseDTO childrenDTO, DTOState desiredState) {
+        DTOState childDTOState = childrenDTO.getDTOState();
+        if (desiredState == DTOState.NEW || desiredState == DTOState.NEWMODIFIED) {
+            return childDTOState == DTOState.NEW || childDTOState == DTOState.NEWMODIFIED;
+        }
+        return childDTOState == desiredState;
+    }
+
+    /**
+     * Passes the associated child DTOs in the desired state to the action without building an intermediate list. NEW and
+     * NEWMODIFIED both match NEW and NEWMODIFIED children. The action must not add or remove children of this DTO.
+     *
+     * @param queryClass the child DTO queryClass or BaseDTO.class for all children.
+     * @param desiredState a constraint on the children passed or null for all children.
+     * @param action
+     */
+    public void forEachChild(Class queryClass, DTOState desiredState, Consumer<? super BaseDTO> action) {
+        if (queryClass != BaseDTO.class) {
+            forEachChild(getChildDTOMap().get(queryClass), desiredState, action);
+        } else {
+            for (List<BaseDTO> anyChildrenDTOs : getChildDTOMap().values()) {
+                forEachChild(anyChildrenDTOs, desiredState, action);
+            }
+        }
+    }
+
+    /**
+     * Passes all the associated child DTOs in the desired state to the action.
+     *
+     * @param desiredState a constraint on the children passed or null for all children.
+     * @param action
+     * @see #forEachChild(java.lang.Class, org.cdsframework.enumeration.DTOState, java.util.function.Consumer)
+     */
+    public void forEachChild(DTOState desiredState, Consumer<? super BaseDTO> action) {
+        forEachChild(BaseDTO.class, desiredState, action);
+    }
+
+    private static void forEachChild(List<BaseDTO> anyChildrenDTOs, DTOState desiredState, Consumer<? super BaseDTO> action) {
+        if (anyChildrenDTOs != null) {
+            for (BaseDTO childrenDTO : anyChildrenDTOs) {
+                if (desiredState == null || isInDTOState(childrenDTO, desiredState)) {
+                    action.accept(childrenDTO);
                 }
             }
         }
-        return childrenDTOs;
     }
-    
+
     /**
      * Returns the complete list of associated child DTOs.
      *
@@ -738,7 +841,7 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      */
     public Map<Class, List<BaseDTO>> getChildDTOMap() {
         if (childDTOMap == null) {
-            childDTOMap = new HashMap<Class, List<BaseDTO>>();
+            childDTOMap = new ChildDTOMap(this);
         }
         return childDTOMap;
     }
@@ -749,7 +852,169 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @param childDTOMap the map of associated child DTOs.
      */
     public void setChildDTOMap(Map childDTOMap) {
+        if (isChildDTOMapAttached() && this.childDTOMap != null) {
+            // unlinking reports each change - an empty attached map and no map count the same
+            ((ChildDTOMap) this.childDTOMap).detach();
+            this.childDTOMap = null;
+        }
+        int childStateBefore = getChildStateContribution();
         this.childDTOMap = childDTOMap;
+        childStateChanged(childStateBefore);
+        attachChildDTOMap();
+    }
+
+    /*
+     * A ChildDTOMap without an owner - e.g. after deserialization - is attached to this DTO.
+     */
+    private void attachChildDTOMap() {
+        if (childDTOMap instanceof ChildDTOMap && ((ChildDTOMap) childDTOMap).getOwner() == null) {
+            int childStateBefore = getChildStateContribution();
+            ((ChildDTOMap) childDTOMap).setOwner(this);
+            childStateChanged(childStateBefore);
+            ((ChildDTOMap) childDTOMap).attachLists();
+        }
+    }
+
+    private boolean isChildDTOMapAttached() {
+        return childDTOMap == null || (childDTOMap instanceof ChildDTOMap && ((ChildDTOMap) childDTOMap).getOwner() == this);
+    }
+
+    /*
+     * Returns what this DTO adds to the child state counts of its state parent. A DTO whose state can change without notice - it
+     * is linked by several parents, has untracked children or reference DTOs - is untracked.
+     */
+    private int getChildStateContribution() {
+        if (stateParentShared || untrackedChildLinks != 0 || !isChildDTOMapAttached() || isReferenceDTOsExist()) {
+            return CHILD_STATE_UNTRACKED;
+        }
+        return dtoState != DTOState.UNSET || changedChildLinks != 0 ? CHILD_STATE_CHANGED : CHILD_STATE_UNSET;
+    }
+
+    private void addChildStateContribution(int childState, int links) {
+        if (childState == CHILD_STATE_CHANGED) {
+            changedChildLinks += links;
+        } else if (childState == CHILD_STATE_UNTRACKED) {
+            untrackedChildLinks += links;
+        }
+    }
+
+    /*
+     * Moves the links of this DTO in the counts of the state parent and continues up the parents as long as the state changes.
+     */
+    private void childStateChanged(int childStateBefore) {
+        BaseDTO parentDTO = stateParent;
+        if (parentDTO != null) {
+            int childStateAfter = getChildStateContribution();
+            if (childStateAfter != childStateBefore) {
+                int parentStateBefore = parentDTO.getChildStateContribution();
+                parentDTO.addChildStateContribution(childStateBefore, -stateParentLinks);
+                parentDTO.addChildStateContribution(childStateAfter, stateParentLinks);
+                parentDTO.childStateChanged(parentStateBefore);
+            }
+        }
+    }
+
+    /*
+     * Called by ChildDTOList for each element of a list attached to the ChildDTOMap of this DTO.
+     */
+    void linkChildDTO(BaseDTO childDTO) {
+        if (childDTO == null) {
+            return;
+        }
+        childDTO.attachChildDTOMap();
+        if (childDTO.stateParent == null) {
+            childDTO.stateParent = this;
+            childDTO.stateParentLinks = 1;
+        } else if (childDTO.stateParent == this) {
+            childDTO.stateParentLinks++;
+        } else if (!childDTO.stateParentShared) {
+            int sharedStateBefore = childDTO.getChildStateContribution();
+            childDTO.stateParentShared = true;
+            childDTO.childStateChanged(sharedStateBefore);
+        }
+        int childStateBefore = getChildStateContribution();
+        addChildStateContribution(childDTO.getChildStateContribution(), 1);
+        childStateChanged(childStateBefore);
+    }
+
+    void unlinkChildDTO(BaseDTO childDTO) {
+        if (childDTO == null) {
+            return;
+        }
+        int childStateBefore = getChildStateContribution();
+        addChildStateContribution(childDTO.getChildStateContribution(), -1);
+        if (childDTO.stateParent == this && --childDTO.stateParentLinks == 0) {
+            childDTO.stateParent = null;
+        }
+        childStateChanged(childStateBefore);
+    }
+
+    void untrackedChildListAttached(int lists) {
+        int childStateBefore = getChildStateContribution();
+        untrackedChildLinks += lists;
+        childStateChanged(childStateBefore);
+    }
+
+    boolean isPrimaryKeyIndexed() {
+        return primaryKeyIndexes != null && !primaryKeyIndexes.isEmpty();
+    }
+
+    List<ChildDTOList> getPrimaryKeyIndexes() {
+        return primaryKeyIndexes;
+    }
+
+    /*
+     * Returns false if the list already indexed this DTO.
+     */
+    boolean addPrimaryKeyIndex(ChildDTOList childDTOList) {
+        if (primaryKeyIndexes == null) {
+            primaryKeyIndexes = new ArrayList<ChildDTOList>(1);
+        } else {
+            for (ChildDTOList primaryKeyIndex : primaryKeyIndexes) {
+                if (primaryKeyIndex == childDTOList) {
+                    return false;
+                }
+            }
+        }
+        primaryKeyIndexes.add(childDTOList);
+        return true;
+    }
+
+    void removePrimaryKeyIndex(ChildDTOList childDTOList) {
+        if (primaryKeyIndexes != null) {
+            for (int i = 0; i < primaryKeyIndexes.size(); i++) {
+                if (primaryKeyIndexes.get(i) == childDTOList) {
+                    primaryKeyIndexes.remove(i);
+                    return;
+                }
+            }
+        }
+    }
+
+    /*
+     * Reports a change of an unnamed property to the indexes if a primary key field still holds the original value - the setters
+     * call isChanged before they assign. References are matched by identity so a non key property holding an equal value doesn't
+     * count.
+     */
+    private void unnamedPropertyChanged(Object x, boolean primitive) {
+        List<Field> primaryKeyFields;
+        try {
+            primaryKeyFields = DTOUtils.getDtoMetadata(getClass()).getPrimaryKeyFields();
+        } catch (IllegalStateException e) {
+            return;
+        }
+        for (Field field : primaryKeyFields) {
+            Object value;
+            try {
+                value = field.get(this);
+            } catch (IllegalAccessException e) {
+                // can't tell - report the field
+                value = x;
+            }
+            if (primitive ? x.equals(value) : x == value) {
+                ChildDTOList.primaryKeyChanged(this, field.getName());
+            }
+        }
     }
     
     /**
@@ -766,8 +1031,19 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         if (!changed) {
             changed = DTOUtils.isPropertyChanged(x,y);
         }
+        // the property is unknown - report it in case it is part of the primary key
+        if (isPrimaryKeyIndexed() && DTOUtils.isPropertyChanged(x, y)) {
+            unnamedPropertyChanged(x, false);
+        }
         return changed;
     }
+
+    /*
+     * isChanged for the primitives - compared without boxing.
+     */
+    private boolean isPrimitiveChanged(boolean propertyChanged) {
+        return this.getDTOState() == DTOState.UPDATED || propertyChanged;
+    }
     
     /*
      * Used for PropertyChangeSupport version by Object
@@ -783,8 +1059,9 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         boolean changed = DTOUtils.isPropertyChanged(x, y);
         //System.out.println("isChanged, Object changed=" + changed);
         if (changed) {
+            ChildDTOList.primaryKeyChanged(this, propertyName);
             //System.out.println("isChanged, Object firePropertyChange");
-            getPropertyChangeSupport().firePropertyChange(propertyName, x, y);
+            firePropertyChange(propertyName, x, y);
         }
         else {
             changed = (this.getDTOState() == DTOState.UPDATED);
@@ -808,8 +1085,9 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         boolean changed = isPropertyChanged(x, y);
         //System.out.println("isChanged, BaseDTO changed=" + changed);
         if (changed) {
+            ChildDTOList.primaryKeyChanged(this, propertyName);
             //System.out.println("isChanged, BaseDTO firePropertyChange");
-            getPropertyChangeSupport().firePropertyChange(propertyName, x, y);
+            firePropertyChange(propertyName, x, y);
         }        
         else {
             changed = (this.getDTOState() == DTOState.UPDATED);
@@ -834,7 +1112,8 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         // Determine if the property changed, if changed fire property changed support.
         boolean changed = DTOUtils.isPropertyChanged(x, y);
         if (changed) {
-            getPropertyChangeSupport().firePropertyChange(propertyName, x, y);
+            ChildDTOList.primaryKeyChanged(this, propertyName);
+            firePropertyChange(propertyName, x, y);
         }        
         else {
             changed = (this.getDTOState() == DTOState.UPDATED);
@@ -857,6 +1136,10 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         if (!changed) {
             changed = isPropertyChanged(x, y);
         }
+        // the property is unknown - report it in case it is part of the primary key
+        if (isPrimaryKeyIndexed() && isPropertyChanged(x, y)) {
+            unnamedPropertyChanged(x, false);
+        }
         return changed;
     }
     
@@ -898,7 +1181,11 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the changed dtoState.
      */
     protected boolean isChanged(int x, int y) {
-        return this.isChanged(new Integer(x), new Integer(y));
+        boolean propertyChanged = x != y;
+        if (propertyChanged && isPrimaryKeyIndexed()) {
+            unnamedPropertyChanged(x, true);
+        }
+        return isPrimitiveChanged(propertyChanged);
     }
 
     /**
@@ -957,7 +1244,11 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the changed dtoState.
      */
     protected boolean isChanged(long x, long y) {
-        return this.isChanged(new Long(x), new Long(y));
+        boolean propertyChanged = x != y;
+        if (propertyChanged && isPrimaryKeyIndexed()) {
+            unnamedPropertyChanged(x, true);
+        }
+        return isPrimitiveChanged(propertyChanged);
     }
 
     /**
@@ -968,7 +1259,11 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the changed dtoState.
      */
     protected boolean isChanged(float x, float y) {
-        return this.isChanged(new Float(x), new Float(y));
+        boolean propertyChanged = Float.floatToIntBits(x) != Float.floatToIntBits(y);
+        if (propertyChanged && isPrimaryKeyIndexed()) {
+            unnamedPropertyChanged(x, true);
+        }
+        return isPrimitiveChanged(propertyChanged);
     }
 
     /**
@@ -979,7 +1274,11 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the changed dtoState.
      */
     protected boolean isChanged(short x, short y) {
-        return this.isChanged(new Short(x), new Short(y));
+        boolean propertyChanged = x != y;
+        if (propertyChanged && isPrimaryKeyIndexed()) {
+            unnamedPropertyChanged(x, true);
+        }
+        return isPrimitiveChanged(propertyChanged);
     }
 
     /**
@@ -990,7 +1289,11 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the changed dtoState.
      */
     protected boolean isChanged(byte x, byte y) {
-        return this.isChanged(new Byte(x), new Byte(y));
+        boolean propertyChanged = x != y;
+        if (propertyChanged && isPrimaryKeyIndexed()) {
+            unnamedPropertyChanged(x, true);
+        }
+        return isPrimitiveChanged(propertyChanged);
     }
 
     /**
@@ -1001,7 +1304,11 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the changed dtoState.
      */
     protected boolean isChanged(boolean x, boolean y) {
-        return this.isChanged(x + "", y + "");
+        boolean propertyChanged = x != y;
+        if (propertyChanged && isPrimaryKeyIndexed()) {
+            unnamedPropertyChanged(x, true);
+        }
+        return isPrimitiveChanged(propertyChanged);
     }
 
     /**
@@ -1012,7 +1319,11 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      * @return the changed dtoState.
      */
     protected boolean isChanged(char x, char y) {
-        return this.isChanged(x + "", y + "");
+        boolean propertyChanged = x != y;
+        if (propertyChanged && isPrimaryKeyIndexed()) {
+            unnamedPropertyChanged(x, true);
+        }
+        return isPrimitiveChanged(propertyChanged);
     }
 
     /**
@@ -1151,7 +1462,11 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
      *
      * @return the value of uuid
      */
+    @JsonProperty
     public UUID getUuid() {
+        if (uuid == null) {
+            uuid = UuidUtils.randomUuid();
+        }
         return uuid;
     }
 
@@ -1164,6 +1479,21 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
         this.uuid = uuid;
     }
 
+    /*
+     * A serialized DTO carries its uuid so the receiver refers to the same one, e.g. the BrokenRules of a ValidationException.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        getUuid();
+        out.defaultWriteObject();
+    }
+
+    /*
+     * JAXB marshal callback - the uuid field is marshalled directly.
+     */
+    private void beforeMarshal(Marshaller marshaller) {
+        getUuid();
+    }
+
     public boolean isTrackLastModDatetime() {
         return trackLastModDatetime;
     }
@@ -1192,7 +1522,7 @@ public abstract class BaseDTO implements Serializable, PropertyChangeListener, P
     public String toString() {
         String id = super.toString();
         try {
-            id = getClass().getSimpleName() + '{' + "uuid=" + uuid + ", primaryKey=" + this.getPrimaryKey() + '}';
+            id = getClass().getSimpleName() + '{' + "uuid=" + getUuid() + ", primaryKey=" + this.getPrimaryKey() + '}';
         } catch (IllegalStateException e) {
             System.err.println("Error computing toString() for " + getClass().getCanonicalName() + " - " + id);
             System.err.println(e);
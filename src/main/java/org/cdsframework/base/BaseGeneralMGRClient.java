@@ -26,6 +26,7 @@
  */
 package org.cdsframework.base;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import org.cdsframework.dto.PropertyBagDTO;
@@ -72,6 +73,13 @@ public abstract class BaseGeneralMGRClient extends BaseClient {
         return (T) mtsInvokeFind("findByPrimaryKey", dto, sessionDTO, propertyBagDTO);
     }
 
+    public <T extends BaseDTO> Map<Object, T> findByPrimaryKeys(Class<T> dtoClass, List<Object> primaryKeys, List<Class> childClassDTOs, 
+            SessionDTO sessionDTO, PropertyBagDTO propertyBagDTO)
+            throws ValidationException, NotFoundException, MtsException, AuthenticationException, AuthorizationException {
+        return (Map<Object, T>) mtsInvokeFind("findByPrimaryKeys", dtoClass, new ArrayList<Object>(primaryKeys), new ArrayList<Class>(childClassDTOs), 
+                sessionDTO, propertyBagDTO);
+    }
+
     public <T extends BaseDTO> List<T> findByQueryList(T baseDTO, SessionDTO sessionDTO, PropertyBagDTO propertyBagDTO)
             throws ValidationException, NotFoundException, MtsException, AuthenticationException, AuthorizationException {
         return (List<T>) mtsInvokeFind("findByQueryList", baseDTO, sessionDTO, propertyBagDTO);
@@ -79,6 +79,26 @@ public interface BaseGeneralMGRRemote extends BaseRemote {
     public <T extends BaseDTO> T findByPrimaryKey(T dto, SessionDTO sessionDTO, PropertyBagDTO propertyBagDTO)
             throws ValidationException, NotFoundException, MtsException, AuthenticationException, AuthorizationException;
 
+    /**
+     * Retrieve the dto instances of a list of primary keys with a single query.
+     *
+     * @param <T>
+     * @param dtoClass
+     * @param primaryKeys primary keys in the form returned by BaseDTO.getPrimaryKey
+     * @param childClassDTOs childDTO classes to return.
+     * @param sessionDTO {@link org.cdsframework.dto.SessionDTO [SessionDTO]} class instance.
+     * @param propertyBagDTO
+     * @return the instances keyed by their primary key in the order of primaryKeys, keys that were not found are absent.
+     * @throws ValidationException if validation fails on the request.
+     * @throws NotFoundException if query object is not found.
+     * @throws MtsException business object exception.
+     * @throws AuthenticationException if session is bad.
+     * @throws AuthorizationException if session user doesn't have permission to call this method.
+     */
+    public <T extends BaseDTO> Map<Object, T> findByPrimaryKeys(Class<T> dtoClass, List<Object> primaryKeys, List<Class> childClassDTOs,
+            SessionDTO sessionDTO, PropertyBagDTO propertyBagDTO)
+            throws ValidationException, NotFoundException, MtsException, AuthenticationException, AuthorizationException;
+
     /**
      * Retrieve a list of dto instances based on a dto and queryClass.
      *
@@ -36,6 +36,7 @@ import org.cdsframework.exceptions.NotFoundException;
 import org.cdsframework.exceptions.ValidationException;
 import org.cdsframework.util.ClassUtils;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import org.cdsframework.util.DTOUtils;
@@ -99,6 +100,17 @@ public abstract class BaseMGRClient<T extends BaseDTO, S extends BaseRemote> ext
         return (T) mtsInvokeFind("findByPrimaryKey", primaryKey, childClassDTOs, sessionDTO, propertyBagDTO);
     }
 
+    public Map<Object, T> findByPrimaryKeys(Collection<?> primaryKeys, SessionDTO sessionDTO)
+            throws ValidationException, NotFoundException, MtsException, AuthenticationException, AuthorizationException {
+        return findByPrimaryKeys(new ArrayList<Object>(primaryKeys), new ArrayList(), sessionDTO, new PropertyBagDTO());
+    }
+
+    public Map<Object, T> findByPrimaryKeys(List<Object> primaryKeys, List<Class> childClassDTOs, SessionDTO sessionDTO, PropertyBagDTO propertyBagDTO)
+            throws ValidationException, NotFoundException, MtsException, AuthenticationException, AuthorizationException {
+        // the remote method is resolved by the argument classes - an ArrayList resolves to List
+        return (Map<Object, T>) mtsInvokeFind("findByPrimaryKeys", new ArrayList<Object>(primaryKeys), new ArrayList<Class>(childClassDTOs), sessionDTO, propertyBagDTO);
+    }
+
     public List<T> findByQueryList(T baseDTO, String queryClass, SessionDTO sessionDTO)
             throws ValidationException, NotFoundException, MtsException, AuthenticationException, AuthorizationException {
         return findByQueryList(baseDTO, queryClass, sessionDTO, new PropertyBagDTO());
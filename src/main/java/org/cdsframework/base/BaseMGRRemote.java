@@ -124,6 +124,23 @@ public interface BaseMGRRemote<T extends BaseDTO> extends BaseRemote<T> {
     public T findByPrimaryKey(Object primaryKey, List<Class> childClassDTOs, SessionDTO sessionDTO)
         throws ValidationException, NotFoundException, MtsException, AuthenticationException, AuthorizationException;
 
+    /**
+     * Retrieve the baseDTO instances of a list of primary keys with a single query.
+     *
+     * @param primaryKeys database primary keys in the form returned by BaseDTO.getPrimaryKey
+     * @param childClassDTOs childDTO classes to return.
+     * @param sessionDTO {@link org.cdsframework.dto.SessionDTO [SessionDTO]} class instance.
+     * @param propertyBagDTO
+     * @return the instances keyed by their primary key in the order of primaryKeys, keys that were not found are absent.
+     * @throws ValidationException if validation fails on the request.
+     * @throws NotFoundException if query object is not found.
+     * @throws MtsException business object exception.
+     * @throws AuthenticationException if session is bad.
+     * @throws AuthorizationException if session user doesn't have permission to call this method.
+     */
+    public Map<Object, T> findByPrimaryKeys(List<Object> primaryKeys, List<Class> childClassDTOs, SessionDTO sessionDTO, PropertyBagDTO propertyBagDTO)
+        throws ValidationException, NotFoundException, MtsException, AuthenticationException, AuthorizationException;
+
     /**
      * Retrieve a list of baseDTO instances based on a baseDTO and queryClass.
      *
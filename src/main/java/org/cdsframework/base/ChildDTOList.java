@@ -0,0 +1,384 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.base;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import org.cdsframework.util.DTOUtils;
+
+/**
+ * Provides the child DTO list stored in the child DTO map of a BaseDTO.
+ *
+ * The list keeps the order and the semantics of a plain list. In addition it keeps a secondary index of the child DTOs keyed by
+ * DTO class and primary key so indexOf/contains of a DTO that is not new - the lookup done by BaseDTO.addOrUpdateChildDTO - does
+ * not have to compare every element through dtoEquals.
+ *
+ * The index maps each primary key to the position of its first occurrence. Appended elements are indexed lazily on the next
+ * lookup. Any other structural change drops the index and it is rebuilt on the next lookup. A DTO indexed by a list - and the DTOs
+ * of its composite primary key - know the list. A possible primary key change reported through BaseDTO.isChanged,
+ * DTOUtils.setPrimaryKey/setForeignKey/autoSetPrimaryKeys or DTOProperty only queues the DTO on the lists that indexed it. The next
+ * lookup checks that the current key of each queued DTO is indexed at its position and rebuilds the index only if one isn't, so a
+ * change of another property or of a DTO in another list costs nothing. A hit is always verified with equals.
+ *
+ * Once the list is put into the ChildDTOMap of a DTO its elements are linked to that DTO so the DTO can keep an incremental count
+ * of its changed children - see BaseDTO.getOperationDTOState.
+ *
+ * @author HLN Consulting, LLC
+ */
+public class ChildDTOList extends AbstractList<BaseDTO> implements RandomAccess, Serializable {
+
+    private static final long serialVersionUID = 2741908231740935641L;
+    private final ArrayList<BaseDTO> elements;
+    private transient Map<Class, Map<Object, Integer>> primaryKeyIndex;
+    private transient int indexedSize;
+    /*
+     * The indexed DTOs whose primary key may have changed since the index was checked.
+     */
+    private transient List<BaseDTO> primaryKeySuspects;
+    private transient BaseDTO owner;
+    private transient int ownerAttachments;
+
+    public ChildDTOList() {
+        elements = new ArrayList<BaseDTO>();
+    }
+
+    public ChildDTOList(Collection<? extends BaseDTO> childDTOs) {
+        elements = new ArrayList<BaseDTO>(childDTOs);
+    }
+
+    /**
+     * Queues the DTO on the lists that indexed it if the property is one of its primary key fields.
+     *
+     * @param baseDTO
+     * @param propertyName the changed property or null if it may be any primary key field.
+     */
+    public static void primaryKeyChanged(BaseDTO baseDTO, String propertyName) {
+        if (baseDTO != null && baseDTO.isPrimaryKeyIndexed()
+                && (propertyName == null || DTOUtils.getDtoMetadata(baseDTO.getClass()).isPrimaryKeyField(propertyName))) {
+            for (ChildDTOList childDTOList : baseDTO.getPrimaryKeyIndexes()) {
+                childDTOList.addPrimaryKeySuspect(baseDTO);
+            }
+        }
+    }
+
+    private void addPrimaryKeySuspect(BaseDTO baseDTO) {
+        if (primaryKeyIndex == null) {
+            return;
+        }
+        if (primaryKeySuspects == null) {
+            primaryKeySuspects = new ArrayList<BaseDTO>();
+        } else if (!primaryKeySuspects.isEmpty() && primaryKeySuspects.get(primaryKeySuspects.size() - 1) == baseDTO) {
+            // the same DTO again, i.e. an edit loop over one DTO
+            return;
+        }
+        if (primaryKeySuspects.size() >= elements.size()) {
+            // checking them costs as much as a rebuild
+            dropPrimaryKeyIndex();
+            return;
+        }
+        primaryKeySuspects.add(baseDTO);
+    }
+
+    private void dropPrimaryKeyIndex() {
+        primaryKeyIndex = null;
+        if (primaryKeySuspects != null) {
+            primaryKeySuspects.clear();
+        }
+    }
+
+    /*
+     * Unregisters the list from a removed element unless the element is still in the list.
+     */
+    private void release(BaseDTO element) {
+        if (element != null && element.isPrimaryKeyIndexed()) {
+            for (BaseDTO remaining : elements) {
+                if (remaining == element) {
+                    return;
+                }
+            }
+            element.removePrimaryKeyIndex(this);
+        }
+    }
+
+    /*
+     * Links the elements to the owner. Fails if the list is already attached to another DTO.
+     */
+    boolean attach(BaseDTO owner) {
+        if (this.owner != null && this.owner != owner) {
+            return false;
+        }
+        this.owner = owner;
+        ownerAttachments++;
+        for (BaseDTO element : elements) {
+            owner.linkChildDTO(element);
+        }
+        return true;
+    }
+
+    void detach(BaseDTO owner) {
+        for (BaseDTO element : elements) {
+            owner.unlinkChildDTO(element);
+        }
+        if (--ownerAttachments == 0) {
+            this.owner = null;
+        }
+    }
+
+    private void link(BaseDTO element) {
+        for (int i = 0; i < ownerAttachments; i++) {
+            owner.linkChildDTO(element);
+        }
+    }
+
+    private void unlink(BaseDTO element) {
+        for (int i = 0; i < ownerAttachments; i++) {
+            owner.unlinkChildDTO(element);
+        }
+    }
+
+    @Override
+    public BaseDTO get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public BaseDTO set(int index, BaseDTO element) {
+        BaseDTO previous = elements.set(index, element);
+        if (owner != null && previous != element) {
+            unlink(previous);
+            link(element);
+        }
+        if (primaryKeyIndex != null && index < indexedSize) {
+            Object primaryKey = element != null ? getPrimaryKey(element) : null;
+            if (primaryKey != null && previous != null && element.getClass() == previous.getClass()
+                    && primaryKey.equals(getPrimaryKey(previous))) {
+                // same key at the same position - the index stays valid
+                markPrimaryKeyIndexed(element, primaryKey);
+            } else {
+                dropPrimaryKeyIndex();
+            }
+        }
+        if (previous != element) {
+            release(previous);
+        }
+        return previous;
+    }
+
+    @Override
+    public void add(int index, BaseDTO element) {
+        elements.add(index, element);
+        modCount++;
+        if (owner != null) {
+            link(element);
+        }
+        if (index < indexedSize) {
+            dropPrimaryKeyIndex();
+        }
+    }
+
+    @Override
+    public BaseDTO remove(int index) {
+        BaseDTO previous = elements.remove(index);
+        modCount++;
+        if (owner != null) {
+            unlink(previous);
+        }
+        if (index < indexedSize) {
+            dropPrimaryKeyIndex();
+        }
+        release(previous);
+        return previous;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+        List<BaseDTO> range = elements.subList(fromIndex, toIndex);
+        if (owner != null) {
+            for (BaseDTO element : range) {
+                unlink(element);
+            }
+        }
+        List<BaseDTO> removed = new ArrayList<BaseDTO>(range);
+        range.clear();
+        modCount++;
+        if (fromIndex < indexedSize) {
+            dropPrimaryKeyIndex();
+        }
+        for (BaseDTO element : removed) {
+            release(element);
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (BaseDTO element : elements) {
+            if (owner != null) {
+                unlink(element);
+            }
+            if (element != null) {
+                element.removePrimaryKeyIndex(this);
+            }
+        }
+        elements.clear();
+        modCount++;
+        dropPrimaryKeyIndex();
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        if (o instanceof BaseDTO && !((BaseDTO) o).isNew()) {
+            return indexOfPrimaryKey((BaseDTO) o);
+        }
+        return elements.indexOf(o);
+    }
+
+    @Override
+    public int lastIndexOf(Object o) {
+        return elements.lastIndexOf(o);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    private int indexOfPrimaryKey(BaseDTO childDTO) {
+        Object primaryKey = getPrimaryKey(childDTO);
+        if (primaryKey == null) {
+            return elements.indexOf(childDTO);
+        }
+        Map<Object, Integer> classIndex = getPrimaryKeyIndex().get(childDTO.getClass());
+        Integer position = classIndex != null ? classIndex.get(primaryKey) : null;
+        if (position == null) {
+            return -1;
+        }
+        if (childDTO.equals(elements.get(position))) {
+            return position;
+        }
+        // the key changed without notice - fall back to the scan and rebuild on the next lookup
+        dropPrimaryKeyIndex();
+        return elements.indexOf(childDTO);
+    }
+
+    private Map<Class, Map<Object, Integer>> getPrimaryKeyIndex() {
+        if (primaryKeyIndex != null) {
+            appendToPrimaryKeyIndex();
+            if (primaryKeySuspects != null && !primaryKeySuspects.isEmpty()) {
+                for (BaseDTO suspect : primaryKeySuspects) {
+                    if (!isIndexed(suspect)) {
+                        primaryKeyIndex = null;
+                        break;
+                    }
+                }
+                primaryKeySuspects.clear();
+            }
+        }
+        if (primaryKeyIndex == null) {
+            primaryKeyIndex = new HashMap<Class, Map<Object, Integer>>();
+            indexedSize = 0;
+            appendToPrimaryKeyIndex();
+        }
+        return primaryKeyIndex;
+    }
+
+    /*
+     * Whether the current primary key of the DTO is indexed at its position - false for a DTO of a composite primary key or
+     * without a key.
+     */
+    private boolean isIndexed(BaseDTO baseDTO) {
+        Object primaryKey = getPrimaryKey(baseDTO);
+        if (primaryKey == null) {
+            return false;
+        }
+        Map<Object, Integer> classIndex = primaryKeyIndex.get(baseDTO.getClass());
+        Integer position = classIndex != null ? classIndex.get(primaryKey) : null;
+        return position != null && elements.get(position) == baseDTO;
+    }
+
+    private void appendToPrimaryKeyIndex() {
+        while (indexedSize < elements.size()) {
+            BaseDTO element = elements.get(indexedSize);
+            if (element != null) {
+                Object primaryKey = getPrimaryKey(element);
+                markPrimaryKeyIndexed(element, primaryKey);
+                if (primaryKey != null) {
+                    Map<Object, Integer> classIndex = primaryKeyIndex.get(element.getClass());
+                    if (classIndex == null) {
+                        classIndex = new HashMap<Object, Integer>();
+                        primaryKeyIndex.put(element.getClass(), classIndex);
+                    }
+                    if (!classIndex.containsKey(primaryKey)) {
+                        classIndex.put(primaryKey, indexedSize);
+                    }
+                }
+            }
+            indexedSize++;
+        }
+    }
+
+    /*
+     * Registers the list with the DTO and the DTOs that are part of its primary key - a single field DTO key or the DTOs of a
+     * composite key - so their primary key changes are reported to it.
+     */
+    private void markPrimaryKeyIndexed(BaseDTO baseDTO, Object primaryKey) {
+        if (baseDTO.addPrimaryKeyIndex(this)) {
+            if (primaryKey instanceof Map) {
+                for (Object value : ((Map) primaryKey).values()) {
+                    if (value instanceof BaseDTO) {
+                        BaseDTO valueDTO = (BaseDTO) value;
+                        markPrimaryKeyIndexed(valueDTO, getPrimaryKey(valueDTO));
+                    }
+                }
+            } else if (primaryKey instanceof BaseDTO) {
+                BaseDTO keyDTO = (BaseDTO) primaryKey;
+                markPrimaryKeyIndexed(keyDTO, getPrimaryKey(keyDTO));
+            }
+        }
+    }
+
+    /*
+     * Returns null for a DTO whose primary key can't be determined - such DTOs fall back to equals.
+     */
+    private static Object getPrimaryKey(BaseDTO baseDTO) {
+        try {
+            return baseDTO.getPrimaryKey();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+}
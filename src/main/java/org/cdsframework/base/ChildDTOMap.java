@@ -0,0 +1,229 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.base;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Provides the child DTO map of a BaseDTO.
+ *
+ * The map behaves like a HashMap. In addition it attaches the ChildDTOLists put into it to the owning DTO so the owner can keep
+ * an incremental count of its changed children - see BaseDTO.getOperationDTOState. A list that can't be attached - not a
+ * ChildDTOList or already attached to another DTO - is counted as untracked and the owner falls back to the recursive walk.
+ *
+ * @author HLN Consulting, LLC
+ */
+public class ChildDTOMap extends AbstractMap<Class, List<BaseDTO>> implements Serializable {
+
+    private static final long serialVersionUID = -3308419262516325874L;
+    private final HashMap<Class, List<BaseDTO>> entries = new HashMap<Class, List<BaseDTO>>();
+    private transient BaseDTO owner;
+    private transient Set<Class> untrackedKeys;
+    private transient Set<Entry<Class, List<BaseDTO>>> entrySet;
+
+    ChildDTOMap(BaseDTO owner) {
+        this.owner = owner;
+    }
+
+    BaseDTO getOwner() {
+        return owner;
+    }
+
+    /*
+     * Sets the owner of a map that has no owner yet, e.g. after deserialization. The lists are attached by attachLists.
+     */
+    void setOwner(BaseDTO owner) {
+        this.owner = owner;
+    }
+
+    void attachLists() {
+        for (Entry<Class, List<BaseDTO>> entry : entries.entrySet()) {
+            attachList(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /*
+     * Detaches the lists from the owner - called when the owner is given another map.
+     */
+    void detach() {
+        if (owner != null) {
+            for (Entry<Class, List<BaseDTO>> entry : entries.entrySet()) {
+                detachList(entry.getKey(), entry.getValue());
+            }
+            owner = null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public List<BaseDTO> get(Object key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public List<BaseDTO> put(Class key, List<BaseDTO> value) {
+        List<BaseDTO> previous = entries.put(key, value);
+        if (owner != null && previous != value) {
+            detachList(key, previous);
+            attachList(key, value);
+        }
+        return previous;
+    }
+
+    @Override
+    public List<BaseDTO> remove(Object key) {
+        if (!entries.containsKey(key)) {
+            return null;
+        }
+        List<BaseDTO> previous = entries.remove(key);
+        if (owner != null) {
+            detachList((Class) key, previous);
+        }
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (owner != null) {
+            for (Entry<Class, List<BaseDTO>> entry : entries.entrySet()) {
+                detachList(entry.getKey(), entry.getValue());
+            }
+        }
+        entries.clear();
+    }
+
+    @Override
+    public Set<Entry<Class, List<BaseDTO>>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private void attachList(Class key, List<BaseDTO> childDTOs) {
+        if (childDTOs == null) {
+            return;
+        }
+        if (childDTOs instanceof ChildDTOList && ((ChildDTOList) childDTOs).attach(owner)) {
+            return;
+        }
+        if (untrackedKeys == null) {
+            untrackedKeys = new HashSet<Class>();
+        }
+        untrackedKeys.add(key);
+        owner.untrackedChildListAttached(1);
+    }
+
+    private void detachList(Class key, List<BaseDTO> childDTOs) {
+        if (childDTOs == null) {
+            return;
+        }
+        if (untrackedKeys != null && untrackedKeys.remove(key)) {
+            owner.untrackedChildListAttached(-1);
+        } else {
+            ((ChildDTOList) childDTOs).detach(owner);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<Class, List<BaseDTO>>> {
+
+        @Override
+        public int size() {
+            return entries.size();
+        }
+
+        @Override
+        public void clear() {
+            ChildDTOMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<Class, List<BaseDTO>>> iterator() {
+            final Iterator<Entry<Class, List<BaseDTO>>> iterator = entries.entrySet().iterator();
+            return new Iterator<Entry<Class, List<BaseDTO>>>() {
+                private Entry<Class, List<BaseDTO>> current;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Entry<Class, List<BaseDTO>> next() {
+                    current = iterator.next();
+                    return new ChildDTOEntry(current);
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                    if (owner != null) {
+                        detachList(current.getKey(), current.getValue());
+                    }
+                }
+            };
+        }
+    }
+
+    private class ChildDTOEntry extends SimpleEntry<Class, List<BaseDTO>> {
+
+        private static final long serialVersionUID = 1L;
+        private final Entry<Class, List<BaseDTO>> entry;
+
+        ChildDTOEntry(Entry<Class, List<BaseDTO>> entry) {
+            super(entry);
+            this.entry = entry;
+        }
+
+        @Override
+        public List<BaseDTO> setValue(List<BaseDTO> value) {
+            List<BaseDTO> previous = entry.setValue(value);
+            super.setValue(value);
+            if (owner != null && previous != value) {
+                detachList(entry.getKey(), previous);
+                attachList(entry.getKey(), value);
+            }
+            return previous;
+        }
+    }
+}
@@ -0,0 +1,299 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.base;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import org.cdsframework.util.DTOUtils;
+import org.cdsframework.util.DtoMetadata;
+import org.cdsframework.util.support.CorePropertyChangeEvent;
+
+/**
+ * Provides the property change event map of a BaseDTO.
+ *
+ * The changes are kept in slots assigned per DTO class by DtoMetadata.addPropertyIndex - a bit per changed slot plus the property
+ * name and the CorePropertyChangeEvent holding the original value and the most recent value. The journal is only allocated on the
+ * first recorded change. As with the HashMap it replaces, a read returns the event stored in the slot - changes made to it are seen
+ * by the next read - and a recorded change stores a new event so an event read earlier keeps the values it had.
+ *
+ * @author HLN Consulting, LLC
+ */
+final class PropertyChangeJournal extends AbstractMap<String, CorePropertyChangeEvent> implements Serializable {
+
+    private static final long serialVersionUID = -6178230526414380912L;
+    private static final int INITIAL_SLOTS = 8;
+    private final Class<? extends BaseDTO> dtoClass;
+    private transient DtoMetadata dtoMetadata;
+    private transient long[] changedSlots;
+    private transient String[] propertyNames;
+    private transient CorePropertyChangeEvent[] propertyChangeEvents;
+    private transient int size;
+    private transient Set<Entry<String, CorePropertyChangeEvent>> entrySet;
+
+    PropertyChangeJournal(Class<? extends BaseDTO> dtoClass) {
+        this.dtoClass = dtoClass;
+        initialize();
+    }
+
+    private void initialize() {
+        dtoMetadata = DTOUtils.getDtoMetadata(dtoClass);
+        changedSlots = new long[1];
+        propertyNames = new String[INITIAL_SLOTS];
+        propertyChangeEvents = new CorePropertyChangeEvent[INITIAL_SLOTS];
+    }
+
+    /**
+     * Records a property change. The original value of the first change is kept, a change back to the original value removes the
+     * property.
+     *
+     * @param propertyName
+     * @param oldValue
+     * @param newValue
+     */
+    void record(String propertyName, Object oldValue, Object newValue) {
+        int slot = dtoMetadata.addPropertyIndex(propertyName);
+        if (isChanged(slot)) {
+            Object originalValue = propertyChangeEvents[slot].getOldValue();
+            // New Value Returning to Old Value ?
+            if ((newValue == null && originalValue == null)
+                    || (newValue != null && newValue.equals(originalValue))
+                    || (oldValue != null && oldValue.equals(newValue))) {
+                clearSlot(slot);
+            } else {
+                propertyChangeEvents[slot] = new CorePropertyChangeEvent(propertyName, originalValue, newValue);
+            }
+        } else {
+            setSlot(slot, propertyName, oldValue, newValue);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findSlot(key) >= 0;
+    }
+
+    @Override
+    public CorePropertyChangeEvent get(Object key) {
+        int slot = findSlot(key);
+        return slot >= 0 ? propertyChangeEvents[slot] : null;
+    }
+
+    @Override
+    public CorePropertyChangeEvent put(String key, CorePropertyChangeEvent value) {
+        int slot = dtoMetadata.addPropertyIndex(key);
+        CorePropertyChangeEvent previous = isChanged(slot) ? propertyChangeEvents[slot] : null;
+        if (value == null) {
+            // a null event can't be represented - treat it as no change
+            clearSlot(slot);
+        } else {
+            setSlot(slot, key, value);
+        }
+        return previous;
+    }
+
+    @Override
+    public CorePropertyChangeEvent remove(Object key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        CorePropertyChangeEvent previous = propertyChangeEvents[slot];
+        clearSlot(slot);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        if (size != 0) {
+            Arrays.fill(changedSlots, 0L);
+            Arrays.fill(propertyNames, null);
+            Arrays.fill(propertyChangeEvents, null);
+            size = 0;
+        }
+    }
+
+    @Override
+    public Set<Entry<String, CorePropertyChangeEvent>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private int findSlot(Object key) {
+        if (key != null && !(key instanceof String)) {
+            return -1;
+        }
+        int slot = dtoMetadata.getPropertyIndex((String) key);
+        return slot >= 0 && isChanged(slot) ? slot : -1;
+    }
+
+    private boolean isChanged(int slot) {
+        int word = slot >>> 6;
+        return word < changedSlots.length && (changedSlots[word] & (1L << slot)) != 0;
+    }
+
+    private void setSlot(int slot, String propertyName, Object oldValue, Object newValue) {
+        setSlot(slot, propertyName, new CorePropertyChangeEvent(propertyName, oldValue, newValue));
+    }
+
+    private void setSlot(int slot, String propertyName, CorePropertyChangeEvent propertyChangeEvent) {
+        if (slot >= propertyNames.length) {
+            int length = Math.max(propertyNames.length * 2, slot + 1);
+            propertyNames = Arrays.copyOf(propertyNames, length);
+            propertyChangeEvents = Arrays.copyOf(propertyChangeEvents, length);
+        }
+        int word = slot >>> 6;
+        if (word >= changedSlots.length) {
+            changedSlots = Arrays.copyOf(changedSlots, word + 1);
+        }
+        if (!isChanged(slot)) {
+            changedSlots[word] |= 1L << slot;
+            size++;
+        }
+        propertyNames[slot] = propertyName;
+        propertyChangeEvents[slot] = propertyChangeEvent;
+    }
+
+    private void clearSlot(int slot) {
+        if (isChanged(slot)) {
+            changedSlots[slot >>> 6] &= ~(1L << slot);
+            propertyNames[slot] = null;
+            propertyChangeEvents[slot] = null;
+            size--;
+        }
+    }
+
+    private int nextSlot(int fromSlot) {
+        int word = fromSlot >>> 6;
+        if (word >= changedSlots.length) {
+            return -1;
+        }
+        long bits = changedSlots[word] & (-1L << fromSlot);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == changedSlots.length) {
+                return -1;
+            }
+            bits = changedSlots[word];
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1)) {
+            out.writeObject(propertyNames[slot]);
+            out.writeObject(propertyChangeEvents[slot].getOldValue());
+            out.writeObject(propertyChangeEvents[slot].getNewValue());
+        }
+    }
+
+    /*
+     * The slots are assigned per JVM so the changes are written by name and recorded again on read.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        initialize();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String propertyName = (String) in.readObject();
+            Object oldValue = in.readObject();
+            Object newValue = in.readObject();
+            setSlot(dtoMetadata.addPropertyIndex(propertyName), propertyName, oldValue, newValue);
+        }
+    }
+
+    private class EntrySet extends AbstractSet<Entry<String, CorePropertyChangeEvent>> {
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            PropertyChangeJournal.this.clear();
+        }
+
+        @Override
+        public Iterator<Entry<String, CorePropertyChangeEvent>> iterator() {
+            return new Iterator<Entry<String, CorePropertyChangeEvent>>() {
+                private int nextSlot = nextSlot(0);
+                private int lastSlot = -1;
+
+                @Override
+                public boolean hasNext() {
+                    return nextSlot >= 0;
+                }
+
+                @Override
+                public Entry<String, CorePropertyChangeEvent> next() {
+                    if (nextSlot < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    lastSlot = nextSlot;
+                    nextSlot = nextSlot(nextSlot + 1);
+                    final String propertyName = propertyNames[lastSlot];
+                    return new SimpleEntry<String, CorePropertyChangeEvent>(propertyName, propertyChangeEvents[lastSlot]) {
+                        private static final long serialVersionUID = 1L;
+
+                        @Override
+                        public CorePropertyChangeEvent setValue(CorePropertyChangeEvent value) {
+                            super.setValue(value);
+                            return put(propertyName, value);
+                        }
+                    };
+                }
+
+                @Override
+                public void remove() {
+                    if (lastSlot < 0) {
+                        throw new IllegalStateException();
+                    }
+                    clearSlot(lastSlot);
+                    lastSlot = -1;
+                }
+            };
+        }
+    }
+}
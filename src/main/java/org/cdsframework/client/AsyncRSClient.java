@@ -0,0 +1,324 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.client;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.InvocationCallback;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.enumeration.DTOState;
+import org.cdsframework.exceptions.AuthenticationException;
+import org.cdsframework.exceptions.AuthorizationException;
+import org.cdsframework.exceptions.ConstraintViolationException;
+import org.cdsframework.exceptions.MtsException;
+import org.cdsframework.exceptions.NotFoundException;
+import org.cdsframework.exceptions.ValidationException;
+import org.cdsframework.rs.exception.mapper.ErrorMessage;
+import org.cdsframework.rs.support.CoreRsConstants;
+import org.cdsframework.rs.utils.CommonRsUtils;
+import org.cdsframework.util.DTOUtils;
+
+/**
+ * Provides CompletableFuture based variants of the RSClient operations so independent calls can overlap.
+ *
+ * The requests are built by the wrapped RSClient and submitted through the JAX-RS async invoker of its client. Once a response
+ * arrives its entity is read and an error response is translated on the executor - the same translation as the RSClient
+ * (CommonRsUtils.throwException) - so the future completes exceptionally with the ConstraintViolationException,
+ * ValidationException, NotFoundException, AuthenticationException, AuthorizationException or MtsException the blocking call
+ * would throw. Argument errors are thrown by the calling thread. Cancelling a future cancels the pending request.
+ *
+ * The executor only runs the response handling and the dependent stages. The requests themselves are sent on the async
+ * executor of the JAX-RS client the RSClient was built with, so bounding the number of requests in flight has to be done there
+ * (ClientBuilder.executorService) or by the connection pool (RSClientFactory.setMaxTotal, setMaxPerRoute). When the RSClient has a
+ * conditional cache (setConditionalCacheSize) findByPrimaryKey revalidates the cached DTO like the blocking call; the rare
+ * retry after a failed copy of a cached DTO is sent synchronously on the handling thread.
+ *
+ * @author HLN Consulting, LLC
+ */
+public class AsyncRSClient {
+
+    private final RSClient rsClient;
+    private final Executor executor;
+
+    /**
+     *
+     * @param rsClient the client the requests are built and sent with
+     */
+    public AsyncRSClient(RSClient rsClient) {
+        this(rsClient, null);
+    }
+
+    /**
+     *
+     * @param rsClient the client the requests are built and sent with
+     * @param executor runs the response handling and the dependent stages, not the requests,
+     *                 null handles the response on the thread of the client that received it
+     */
+    public AsyncRSClient(RSClient rsClient, Executor executor) {
+        if (rsClient == null) {
+            throw new IllegalArgumentException("Unsupported rsClient " + rsClient);
+        }
+        this.rsClient = rsClient;
+        this.executor = executor;
+    }
+
+    /**
+     *
+     * @return the wrapped blocking client
+     */
+    public RSClient getRsClient() {
+        return rsClient;
+    }
+
+    /**
+     *
+     * @param <T>
+     * @param responseType extends BaseDTO
+     * @param childclasses child resources to return
+     * @param propertyMap used to control flow
+     * @param sessionId session Id associated with authentication
+     * @return
+     */
+    public <T extends BaseDTO> CompletableFuture<T> findByPrimaryKey(T responseType, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) {
+        return (CompletableFuture<T>) findByPrimaryKey(responseType.getClass(), DTOUtils.getPrimaryKeys(responseType), childclasses, propertyMap, sessionId);
+    }
+
+    /**
+     *
+     * @param <T>
+     * @param responseType type of class to return (extends BaseDTO.class, Response.class, String.class)
+     * @param primaryKey primary key object, supports Collections (List or Map), Integer, Long, String, Date
+     * @param childclasses child resources to return
+     * @param propertyMap used to control flow
+     * @param sessionId session Id associated with authentication
+     * @return
+     */
+    public <T> CompletableFuture<T> findByPrimaryKey(final Class<T> responseType, Object primaryKey, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) {
+        final WebTarget resource = rsClient.getFindByPrimaryKeyTarget(responseType, RSClient.getPrimaryKeyList(responseType, primaryKey), childclasses, propertyMap, sessionId);
+        // only a BaseDTO response type is cached - a Response is returned open to the caller
+        final ConditionalResponseCache cache = rsClient.getConditionalCache(responseType);
+        if (cache != null) {
+            final String uri = resource.getUri().toString();
+            final ConditionalResponseCache.Entry entry = cache.get(uri);
+            return submit(RSClient.getConditionalRequest(resource, entry).buildGet(), responseType != Response.class, new ResponseReader<T>() {
+                @Override
+                public T read(Response response) throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+                    return rsClient.evaluateConditionalResponse(response, responseType, resource, uri, cache, entry);
+                }
+            });
+        }
+        Invocation invocation = resource.request().buildGet();
+        return submit(invocation, responseType != Response.class, new ResponseReader<T>() {
+            @Override
+            public T read(Response response) throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+                return rsClient.evaluateResponse(response, responseType);
+            }
+        });
+    }
+
+    /**
+     *
+     * @param <T>
+     * @param responseType type of class to return (extends BaseDTO.class, Response.class, String.class)
+     * @param filterMap Map used to construct query 
+     * @param childclasses child resources to return
+     * @param propertyMap Map used to control flow, identifies query class, etc
+     * @param sessionId Session Id associated with authentication
+     * @return
+     */
+    public <T> CompletableFuture<List<T>> findByQueryList(Class<T> responseType, Map<String, Object> filterMap, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) {
+        final GenericType<List<T>> genericType = RSClient.getListType(responseType);
+        Invocation invocation = rsClient.getFindByQueryListTarget(responseType, null, filterMap, childclasses, propertyMap, sessionId)
+                .request().buildGet();
+        return submit(invocation, true, new ResponseReader<List<T>>() {
+            @Override
+            public List<T> read(Response response) throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+                return rsClient.readListResponse(response, genericType);
+            }
+        });
+    }
+
+    /**
+     * Creates, updates or deletes the DTO according to its state and returns the resource.
+     *
+     * @param <T>
+     * @param requestEntity extends BaseDTO
+     * @param propertyMap Map used to control flow
+     * @param sessionId Session Id associated with authentication
+     * @return
+     */
+    public <T extends BaseDTO> CompletableFuture<T> save(T requestEntity, Map<String, Object> propertyMap, String sessionId) {
+        if (requestEntity == null) {
+            throw new IllegalArgumentException("Unsupported requestEntity " + requestEntity);
+        }
+        if (propertyMap == null) {
+            propertyMap = new HashMap<String, Object>();
+        }
+        propertyMap.put(CoreRsConstants.RS_RETURN_RESOURCE, true);
+        return (CompletableFuture<T>) save(requestEntity, requestEntity.getClass(), propertyMap, sessionId);
+    }
+
+    /**
+     * Creates, updates or deletes the DTO according to its state.
+     *
+     * @param <T>
+     * @param requestEntity extends BaseDTO
+     * @param responseType Response, String or BaseDTO Type
+     * @param propertyMap Map used to control flow, (returnResource = true will return the resource)
+     * @param sessionId Session Id associated with authentication
+     * @return
+     */
+    public <T> CompletableFuture<T> save(Object requestEntity, final Class<T> responseType, Map<String, Object> propertyMap, String sessionId) {
+        BaseDTO dto = RSClient.getSaveDTO(requestEntity, responseType, sessionId);
+        final DTOState dtoState = RSClient.getSaveDTOState(dto);
+        return submit(rsClient.getSaveInvocation(dto, propertyMap, sessionId), responseType != Response.class, new ResponseReader<T>() {
+            @Override
+            public T read(Response response) throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+                return rsClient.evaluateSaveResponse(response, dtoState, responseType);
+            }
+        });
+    }
+
+    /**
+     * Deletes the resource identified by the primary key of the DTO regardless of its DTOState.
+     *
+     * @param requestEntity extends BaseDTO
+     * @param propertyMap Map used to control flow
+     * @param sessionId Session Id associated with authentication
+     * @return
+     */
+    public CompletableFuture<Void> delete(BaseDTO requestEntity, Map<String, Object> propertyMap, String sessionId) {
+        if (requestEntity == null) {
+            throw new IllegalArgumentException("Unsupported requestEntity " + requestEntity);
+        }
+        Invocation invocation = rsClient.getDeleteInvocation(requestEntity, DTOUtils.getPrimaryKeys(requestEntity), propertyMap, sessionId);
+        return submit(invocation, true, new ResponseReader<Void>() {
+            @Override
+            public Void read(Response response) throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+                if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+                    CommonRsUtils.throwException(response.readEntity(ErrorMessage.class));
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     *
+     * @param <T>
+     * @param requestEntity the DTO class of the report resource
+     * @param responseType Response or the report type
+     * @param filterMap Map used to construct query 
+     * @param reportParameters the report parameters
+     * @param propertyMap Map used to control flow
+     * @param sessionId Session Id associated with authentication
+     * @return
+     */
+    public <T> CompletableFuture<T> getReport(Class<? extends BaseDTO> requestEntity, final Class<T> responseType, Map<String, Object> filterMap, 
+            Map<String, Object> reportParameters, Map<String, Object> propertyMap, String sessionId) {
+        Invocation invocation = rsClient.getReportTarget(requestEntity, filterMap, reportParameters, propertyMap, sessionId)
+                .request().accept(MediaType.APPLICATION_OCTET_STREAM_TYPE).buildGet();
+        return submit(invocation, responseType != Response.class, new ResponseReader<T>() {
+            @Override
+            public T read(Response response) throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+                return rsClient.evaluateResponse(response, responseType);
+            }
+        });
+    }
+
+    /*
+     * Reads the entity of a response or translates its error.
+     */
+    private interface ResponseReader<T> {
+
+        T read(Response response) throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException;
+    }
+
+    private <T> CompletableFuture<T> submit(Invocation invocation, final boolean closeResponse, final ResponseReader<T> reader) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        final Future<Response> request = invocation.submit(new InvocationCallback<Response>() {
+            @Override
+            public void completed(final Response response) {
+                if (executor == null) {
+                    complete(future, response, closeResponse, reader);
+                } else {
+                    try {
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                complete(future, response, closeResponse, reader);
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        response.close();
+                        future.completeExceptionally(e);
+                    }
+                }
+            }
+
+            @Override
+            public void failed(Throwable throwable) {
+                future.completeExceptionally(throwable);
+            }
+        });
+        future.whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T result, Throwable throwable) {
+                if (future.isCancelled()) {
+                    request.cancel(true);
+                }
+            }
+        });
+        return future;
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, Response response, boolean closeResponse, ResponseReader<T> reader) {
+        try {
+            if (!future.isDone()) {
+                future.complete(reader.read(response));
+            }
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        } finally {
+            // a Response result has to be closed by the caller
+            if (closeResponse || future.isCompletedExceptionally()) {
+                response.close();
+            }
+        }
+    }
+}
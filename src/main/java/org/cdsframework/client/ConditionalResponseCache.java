@@ -0,0 +1,121 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.cdsframework.util.support.DeepCopy;
+
+/**
+ * A least recently used cache of the DTOs read by RSClient.findByPrimaryKey together with their ETag and Last-Modified
+ * validators. The DTOs are stored and handed out as copies so a caller can't change the cached state.
+ *
+ * @author HLN Consulting, LLC
+ */
+class ConditionalResponseCache {
+
+    private final Map<String, Entry> entries;
+
+    ConditionalResponseCache(final int maxEntries) {
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 6393129485214063752L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    synchronized Entry get(String uri) {
+        return entries.get(uri);
+    }
+
+    /**
+     * Caches a copy of the entity, a response without validators removes the uri.
+     *
+     * @param uri
+     * @param entityTag the ETag header or null
+     * @param lastModified the Last-Modified header or null
+     * @param entity
+     */
+    void put(String uri, String entityTag, String lastModified, Object entity) {
+        if (entity == null || (entityTag == null && lastModified == null)) {
+            remove(uri);
+            return;
+        }
+        Object copy = DeepCopy.copy(entity);
+        if (copy == null) {
+            remove(uri);
+            return;
+        }
+        synchronized (this) {
+            entries.put(uri, new Entry(entityTag, lastModified, copy));
+        }
+    }
+
+    synchronized void remove(String uri) {
+        entries.remove(uri);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    static final class Entry {
+
+        private final String entityTag;
+        private final String lastModified;
+        private final Object entity;
+
+        private Entry(String entityTag, String lastModified, Object entity) {
+            this.entityTag = entityTag;
+            this.lastModified = lastModified;
+            this.entity = entity;
+        }
+
+        String getEntityTag() {
+            return entityTag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         *
+         * @return a copy of the cached entity
+         */
+        Object getEntity() {
+            return DeepCopy.copy(entity);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.client;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response;
+
+/**
+ * Reads the elements of a JSON array response one at a time with the Jackson streaming parser. The response is closed when the
+ * array has been read or the iterator is closed.
+ *
+ * @param <T> the element type.
+ * @author HLN Consulting, LLC
+ */
+final class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+    private final Response response;
+    private final JsonParser jsonParser;
+    private final ObjectReader objectReader;
+    private boolean nextRead;
+    private boolean closed;
+
+    JsonArrayIterator(Response response, ObjectMapper objectMapper, Class<T> elementType) {
+        this.response = response;
+        this.objectReader = objectMapper.readerFor(elementType);
+        try {
+            jsonParser = objectMapper.getFactory().createParser(response.readEntity(InputStream.class));
+            JsonToken token = jsonParser.nextToken();
+            if (token != JsonToken.START_ARRAY) {
+                throw new ProcessingException("Expected a JSON array - received " + token);
+            }
+        } catch (IOException | RuntimeException e) {
+            response.close();
+            throw e instanceof ProcessingException ? (ProcessingException) e : new ProcessingException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!nextRead && !closed) {
+            try {
+                if (jsonParser.nextToken() == JsonToken.END_ARRAY) {
+                    close();
+                } else {
+                    nextRead = true;
+                }
+            } catch (IOException e) {
+                close();
+                throw new ProcessingException(e);
+            }
+        }
+        return nextRead;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        nextRead = false;
+        try {
+            return objectReader.readValue(jsonParser);
+        } catch (IOException e) {
+            close();
+            throw new ProcessingException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            nextRead = false;
+            try {
+                jsonParser.close();
+            } catch (IOException e) {
+                // the response is closed below
+            } finally {
+                response.close();
+            }
+        }
+    }
+}
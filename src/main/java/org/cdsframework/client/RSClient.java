@@ -27,20 +27,40 @@
 package org.cdsframework.client;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Form;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import org.apache.commons.lang3.StringUtils;
@@ -56,6 +76,8 @@ import org.cdsframework.exceptions.NotFoundException;
 import org.cdsframework.exceptions.ValidationException;
 import org.cdsframework.rs.exception.mapper.ErrorMessage;
 import org.cdsframework.rs.provider.CoreJacksonJsonProvider;
+import org.cdsframework.rs.provider.ObjectMapperRegistry;
+import org.cdsframework.rs.support.BulkResult;
 import org.cdsframework.rs.support.CoreRsConstants;
 import org.cdsframework.rs.utils.CommonRsUtils;
 import org.cdsframework.util.ClassUtils;
@@ -80,8 +102,12 @@ public class RSClient {
     private final JsonInclude.Include jsonInclude;
     private final boolean loggingFilter;
     private final boolean gzipSupport;
+    private final CoreJacksonJsonProvider jacksonJsonProvider;
+    private final boolean sharedClient;
     private static final Logger logger = Logger.getLogger(RSClient.class.getCanonicalName());
     private final boolean useResourceInPath;
+    private volatile ConditionalResponseCache conditionalCache;
+    private boolean typedParameterEncoding;
 
     /**
      *
@@ -144,10 +170,36 @@ public class RSClient {
         this.jsonInclude = jsonInclude;
         this.baseURI = baseURI + "/" + CoreRsConstants.RESOURCE_ROOT;
         this.rootPath = rootPath;
-        client = getClient(jsonInclude);
-       
+        jacksonJsonProvider = new CoreJacksonJsonProvider(jsonInclude);
+        client = createClient();
+        sharedClient = false;
     }    
 
+    /**
+     * Creates an RSClient that shares the client of an RSClientFactory. Client properties set through this instance only apply
+     * to its own requests and close leaves the shared client open.
+     *
+     * @param client the shared client
+     * @param jacksonJsonProvider the json provider registered with the shared client
+     * @param baseURI base of rest service
+     * @param rootPath root of rest service
+     * @param loggingFilter whether the shared client logs
+     * @param useResourceInPath false expects a Typed DTO RS service, true expects a Generic RS service
+     * @param gzipSupport whether the shared client supports GZIP decompression
+     */
+    RSClient(Client client, CoreJacksonJsonProvider jacksonJsonProvider, String baseURI, String rootPath, boolean loggingFilter,
+            boolean useResourceInPath, boolean gzipSupport) {
+        this.useResourceInPath = useResourceInPath;
+        this.loggingFilter = loggingFilter;
+        this.gzipSupport = gzipSupport;
+        this.jsonInclude = JsonInclude.Include.NON_NULL;
+        this.baseURI = baseURI + "/" + CoreRsConstants.RESOURCE_ROOT;
+        this.rootPath = rootPath;
+        this.jacksonJsonProvider = jacksonJsonProvider;
+        this.client = client;
+        this.sharedClient = true;
+    }
+
     public void setConnectTimeout(Integer value ) {
         setClientProperties(ClientProperties.CONNECT_TIMEOUT, value);
     }    
@@ -157,12 +209,59 @@ public class RSClient {
     }    
 
     public void setClientProperties(String clientProperty, Integer value ) {
-        client.property(clientProperty, value);
+        if (sharedClient) {
+            // keep the setting local to this instance - the targets of its requests derive from its web target
+            webTarget = getWebTarget().property(clientProperty, value);
+        } else {
+            client.property(clientProperty, value);
+        }
     }
     
     public Client getClient() {
         return client;
     }
+
+    /**
+     * Turns on the revalidation of findByPrimaryKey responses. The DTOs that come back with an ETag or Last-Modified header are
+     * kept and the next request for the same URI sends If-None-Match or If-Modified-Since, a 304 response returns a copy of the
+     * kept DTO without reading the body. The RS service has to register the ConditionalResponseFilter.
+     *
+     * @param maxEntries the number of DTOs kept, least recently used first out, 0 turns the cache off
+     */
+    public void setConditionalCacheSize(int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("maxEntries must not be negative: " + maxEntries);
+        }
+        conditionalCache = maxEntries > 0 ? new ConditionalResponseCache(maxEntries) : null;
+    }
+
+    public boolean isTypedParameterEncoding() {
+        return typedParameterEncoding;
+    }
+
+    /**
+     * Sends the filter and property maps in the TypedParameterEncoding instead of the legacy key=value form, so Longs, Dates,
+     * BigDecimals and lists reach the service with their types. The service has to understand the typed encoding.
+     *
+     * @param typedParameterEncoding false is the default
+     */
+    public void setTypedParameterEncoding(boolean typedParameterEncoding) {
+        this.typedParameterEncoding = typedParameterEncoding;
+    }
+
+    private String encodeParameters(Map<String, Object> parameterMap) {
+        return typedParameterEncoding ? CommonRsUtils.getMapAsTypedEncodedString(parameterMap) : CommonRsUtils.getMapAsEncodedString(parameterMap);
+    }
+
+    /**
+     * Drops the DTOs kept for revalidation.
+     */
+    public void clearConditionalCache() {
+        ConditionalResponseCache cache = conditionalCache;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
     
     /**
      *
@@ -187,13 +286,13 @@ public class RSClient {
         return client.target(baseURI).path(rootPath);
     }
     
-    private Client getClient(JsonInclude.Include jsonInclude) {
+    private Client createClient() {
         Client client = ClientBuilder.newClient()
                 .register(new JacksonFeature());
         if (loggingFilter) {
             client.register(new LoggingFeature(logger));
         }
-        client.register(new CoreJacksonJsonProvider(jsonInclude));
+        client.register(jacksonJsonProvider);
         if (gzipSupport) {
             client.register(new EncodingFeature("gzip", GZipEncoder.class));
         }
@@ -202,10 +301,12 @@ public class RSClient {
     }    
 
     /**
-     * closes client
+     * closes client, a client shared through an RSClientFactory is closed by the factory
      */
     public void close() {
-        client.close();
+        if (!sharedClient) {
+            client.close();
+        }
     }
 
     /**
@@ -269,7 +370,7 @@ public class RSClient {
      *
      * @param <T>
      * @param responseType type of class to return (extends BaseDTO.class, Response.class, String.class)
-     * @param primaryKey primary key object, supports Collections (List or HashMap), Integer, Long, String, Date
+     * @param primaryKey primary key object, supports Collections (List or Map), Integer, Long, String, Date
      * @param sessionId session Id associated with authentication
      * @return
      * @throws ConstraintViolationException
@@ -288,7 +389,7 @@ public class RSClient {
      *
      * @param <T>
      * @param responseType type of class to return (extends BaseDTO.class, Response.class, String.class)
-     * @param primaryKey primary key object, supports Collections (List or HashMap), Integer, Long, String, Date
+     * @param primaryKey primary key object, supports Collections (List or Map), Integer, Long, String, Date
      * @param childclasses child resources to return
      * @param sessionId session Id associated with authentication
      * @return
@@ -308,7 +409,7 @@ public class RSClient {
      *
      * @param <T> 
      * @param responseType type of class to return (extends BaseDTO.class, Response.class, String.class)
-     * @param primaryKey primary key object, supports Collections (List or HashMap), Integer, Long, String, Date
+     * @param primaryKey primary key object, supports Collections (List or Map), Integer, Long, String, Date
      * @param childclasses child resources to return
      * @param propertyMap used to control flow
      * @param sessionId session Id associated with authentication
@@ -322,17 +423,125 @@ public class RSClient {
      */
     public <T> T findByPrimaryKey(Class<T> responseType, Object primaryKey, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) 
         throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        return findByPrimaryKey(responseType, getPrimaryKeyList(responseType, primaryKey), childclasses, propertyMap, sessionId);
+    }
+
+    /**
+     * Retrieves the resources of many primary keys with one request instead of one findByPrimaryKey per key.
+     *
+     * @param <T>
+     * @param responseType extends BaseDTO
+     * @param primaryKeys primary key objects, each supports Collections (List or Map), Integer, Long, String, Date
+     * @param childclasses child resources to return
+     * @param propertyMap used to control flow
+     * @param sessionId session Id associated with authentication
+     * @return the resources keyed by the primary key objects in the order of primaryKeys, keys that were not found are absent
+     * @throws org.cdsframework.exceptions.ConstraintViolationException
+     * @throws org.cdsframework.exceptions.ValidationException
+     * @throws org.cdsframework.exceptions.NotFoundException
+     * @throws org.cdsframework.exceptions.AuthenticationException
+     * @throws org.cdsframework.exceptions.AuthorizationException
+     * @throws org.cdsframework.exceptions.MtsException
+     */
+    public <T extends BaseDTO> Map<Object, T> findByPrimaryKeys(Class<T> responseType, Collection<?> primaryKeys, List<String> childclasses, 
+            Map<String, Object> propertyMap, String sessionId) 
+        throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        final String METHODNAME = "findByPrimaryKeys ";
+        Map<Object, T> resources = new LinkedHashMap<Object, T>();
+        if (primaryKeys == null || primaryKeys.isEmpty()) {
+            return resources;
+        }
+        // The keys are sent in their path form, the service resolves each like the primaryKey path of findByPrimaryKey
+        Map<String, Object> primaryKeyPaths = new LinkedHashMap<String, Object>();
+        for (Object primaryKey : primaryKeys) {
+            primaryKeyPaths.put(getPath(getPrimaryKeyList(responseType, primaryKey)), primaryKey);
+        }
+        WebTarget resource = getWebTarget();
+        if (useResourceInPath) {
+            resource = resource.path(ClassUtils.getResourceName(responseType));
+        }
+        resource = resource.path(CoreRsConstants.PRIMARY_KEYS_PATH);
+        if (childclasses != null) {
+            for (String childclass : childclasses) {
+                resource = resource.queryParam(CoreRsConstants.QUERYPARMEXPAND, childclass);
+            }
+        }
+        if (propertyMap != null) {
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
+        }
+        if (sessionId != null) {
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
+        }
+        Response response = resource
+                .request(javax.ws.rs.core.MediaType.APPLICATION_JSON)
+                .post(javax.ws.rs.client.Entity.entity(new ArrayList<String>(primaryKeyPaths.keySet()), javax.ws.rs.core.MediaType.APPLICATION_JSON));
+        List<T> found = readListResponse(response, getListType(responseType));
+
+        Map<String, T> foundByPath = new HashMap<String, T>();
+        if (found != null) {
+            for (T dto : found) {
+                foundByPath.put(getPath(DTOUtils.getPrimaryKeys(dto)), dto);
+            }
+        }
+        for (Map.Entry<String, Object> entry : primaryKeyPaths.entrySet()) {
+            T dto = foundByPath.get(entry.getKey());
+            if (dto != null) {
+                resources.put(entry.getValue(), dto);
+            }
+        }
+        return resources;
+    }
+
+    /*
+     * Expands a primary key object (List, Map or single value) into the list of primary keys of the path. The values of a Map,
+     * e.g. the CompositeKey of a DTO, are taken in the primary key field order of the response type and a DTO value is expanded
+     * into its own primary keys, the same as DTOUtils.getPrimaryKeys.
+     */
+    static List<Object> getPrimaryKeyList(Class responseType, Object primaryKey) {
         List<Object> primaryKeys = new ArrayList<Object>();
         if (primaryKey instanceof List) {
             primaryKeys.addAll((Collection<? extends Object>) primaryKey);
         }
-        else if (primaryKey instanceof HashMap) {
-            primaryKeys.addAll( ((HashMap) primaryKey).values());
+        else if (primaryKey instanceof Map) {
+            Map<?, ?> primaryKeyMap = (Map<?, ?>) primaryKey;
+            List<Field> primaryKeyFields = null;
+            if (responseType != null && BaseDTO.class.isAssignableFrom(responseType)) {
+                primaryKeyFields = DTOUtils.getPrimaryKeyFields(responseType);
+            }
+            if (isPrimaryKeyMap(primaryKeyMap, primaryKeyFields)) {
+                for (Field field : primaryKeyFields) {
+                    addPrimaryKeyValue(primaryKeys, primaryKeyMap.get(field.getName()));
+                }
+            } else {
+                for (Object value : primaryKeyMap.values()) {
+                    addPrimaryKeyValue(primaryKeys, value);
+                }
+            }
         }
         else {
             primaryKeys.add(primaryKey);
         }
-        return findByPrimaryKey(responseType, primaryKeys, childclasses, propertyMap, sessionId);
+        return primaryKeys;
+    }
+
+    private static boolean isPrimaryKeyMap(Map<?, ?> primaryKeyMap, List<Field> primaryKeyFields) {
+        if (primaryKeyFields == null || primaryKeyFields.size() != primaryKeyMap.size()) {
+            return false;
+        }
+        for (Field field : primaryKeyFields) {
+            if (!primaryKeyMap.containsKey(field.getName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addPrimaryKeyValue(List<Object> primaryKeys, Object value) {
+        if (value instanceof BaseDTO) {
+            primaryKeys.addAll(DTOUtils.getPrimaryKeys((BaseDTO) value));
+        } else {
+            primaryKeys.add(value);
+        }
     }
 
     /**
@@ -354,6 +563,91 @@ public class RSClient {
     public <T> T findByPrimaryKey(Class<T> responseType, List<Object> primaryKeys, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) 
         throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
         final String METHODNAME = "findByPrimaryKey ";
+        WebTarget resource = getFindByPrimaryKeyTarget(responseType, primaryKeys, childclasses, propertyMap, sessionId);
+        ConditionalResponseCache cache = getConditionalCache(responseType);
+        if (cache != null) {
+            return getConditionalResponse(responseType, resource, cache);
+        }
+        return getResponse(responseType, resource);
+    }
+
+    /*
+     * Returns the conditional cache when it applies to the response type, null otherwise.
+     */
+    ConditionalResponseCache getConditionalCache(Class responseType) {
+        ConditionalResponseCache cache = conditionalCache;
+        if (cache != null && responseType != null && BaseDTO.class.isAssignableFrom(responseType)) {
+            return cache;
+        }
+        return null;
+    }
+
+    private <T> T getConditionalResponse(Class<T> responseType, WebTarget resource, ConditionalResponseCache cache)
+        throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        String uri = resource.getUri().toString();
+        ConditionalResponseCache.Entry entry = cache.get(uri);
+        Response response = null;
+        try {
+            response = getConditionalRequest(resource, entry).get(Response.class);
+            return evaluateConditionalResponse(response, responseType, resource, uri, cache, entry);
+        }
+        finally {
+            if (response != null) {
+                response.close();
+            }
+        }
+    }
+
+    /*
+     * Adds the validators of the cached entry to the request.
+     */
+    static Invocation.Builder getConditionalRequest(WebTarget resource, ConditionalResponseCache.Entry entry) {
+        Invocation.Builder request = resource.request();
+        if (entry != null) {
+            if (entry.getEntityTag() != null) {
+                request = request.header(HttpHeaders.IF_NONE_MATCH, entry.getEntityTag());
+            } else {
+                request = request.header(HttpHeaders.IF_MODIFIED_SINCE, entry.getLastModified());
+            }
+        }
+        return request;
+    }
+
+    /*
+     * Returns a copy of the cached entity on a 304, otherwise evaluates the response and caches the result with its validators.
+     * The response is closed.
+     */
+    <T> T evaluateConditionalResponse(Response response, Class<T> responseType, WebTarget resource, String uri,
+            ConditionalResponseCache cache, ConditionalResponseCache.Entry entry)
+        throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        final String METHODNAME = "evaluateConditionalResponse ";
+        try {
+            if (entry != null && response.getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+                Object entity = entry.getEntity();
+                if (entity != null) {
+                    if (logger.isLoggable(Level.FINE)) {
+                        logger.fine(METHODNAME + "not modified uri=" + uri);
+                    }
+                    return responseType.cast(entity);
+                }
+                cache.remove(uri);
+                // the copy failed - ask again without the validators
+                response.close();
+                response = resource.request().get(Response.class);
+            }
+            // read the validators before readEntity closes the response
+            String entityTag = response.getHeaderString(HttpHeaders.ETAG);
+            String lastModified = response.getHeaderString(HttpHeaders.LAST_MODIFIED);
+            T result = evaluateResponse(response, responseType);
+            cache.put(uri, entityTag, lastModified, result);
+            return result;
+        }
+        finally {
+            response.close();
+        }
+    }
+
+    WebTarget getFindByPrimaryKeyTarget(Class responseType, List<Object> primaryKeys, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) {
         WebTarget resource = getWebTarget();
         if (responseType != null && useResourceInPath) {
             resource = resource.path(ClassUtils.getResourceName(responseType));
@@ -364,14 +658,12 @@ public class RSClient {
             }
         }
         if (propertyMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, CommonRsUtils.getMapAsEncodedString(propertyMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
         }
         if (sessionId != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
         }
-
-        resource = resource.path(getPath(primaryKeys));
-        return getResponse(responseType, resource);
+        return resource.path(getPath(primaryKeys));
     }
     
     /**
@@ -412,7 +704,10 @@ public class RSClient {
      */
     public <T> List<T> findByQueryList(final Class<T> responseType, Map<String, Object> filterMap, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) 
         throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        return findByQueryList(responseType, getListType(responseType), filterMap, childclasses, propertyMap, sessionId);
+    }
 
+    static <T> GenericType<List<T>> getListType(final Class<T> responseType) {
         ParameterizedType parameterizedGenericType = new ParameterizedType() {
             @Override
             public Type[] getActualTypeArguments() {
@@ -429,9 +724,7 @@ public class RSClient {
                 return List.class;
             }
         };
-        GenericType<List<T>> genericType = new GenericType<List<T>>(parameterizedGenericType){};
-        return findByQueryList(responseType, genericType, filterMap, childclasses, propertyMap, sessionId);
-        
+        return new GenericType<List<T>>(parameterizedGenericType){};
     }
 
     /**
@@ -454,11 +747,13 @@ public class RSClient {
     public <T> List<T> findByQueryList(Class<T> resourceType, GenericType genericType, Map<String, Object> filterMap, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) 
             throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
         final String METHODNAME = "findByQueryList ";
+        return readListResponse(findByQueryListResponse(resourceType, null, filterMap, childclasses, propertyMap, sessionId), genericType);
+    }
 
-        Response response = null;
+    /* Translates an error response of a list request and reads the list, the response is closed */
+    <T> List<T> readListResponse(Response response, GenericType genericType) 
+            throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
         try {
-            response = findByQueryListResponse(resourceType, null, filterMap, childclasses, propertyMap, sessionId);
-
             // Check the status
             boolean success = (response.getStatus() == Response.Status.OK.getStatusCode());
 
@@ -481,6 +776,86 @@ public class RSClient {
         }
         return null;
     }
+
+    /**
+     * Streams the findByQueryList response to the consumer one element at a time instead of reading the whole list into memory.
+     *
+     * @param <T>
+     * @param responseType extends BaseDTO
+     * @param filterMap Map used to construct query 
+     * @param childclasses child resources to return
+     * @param propertyMap Map used to control flow, identifies query class, etc
+     * @param sessionId Session Id associated with authentication
+     * @param consumer receives each element
+     * @return the number of elements read
+     * @throws org.cdsframework.exceptions.ConstraintViolationException
+     * @throws org.cdsframework.exceptions.ValidationException
+     * @throws org.cdsframework.exceptions.NotFoundException
+     * @throws org.cdsframework.exceptions.AuthenticationException
+     * @throws org.cdsframework.exceptions.AuthorizationException
+     * @throws org.cdsframework.exceptions.MtsException
+     */
+    public <T> long findByQueryStream(Class<T> responseType, Map<String, Object> filterMap, List<String> childclasses, Map<String, Object> propertyMap, String sessionId, Consumer<? super T> consumer) 
+            throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        long count = 0;
+        JsonArrayIterator<T> iterator = findByQueryIterator(responseType, filterMap, childclasses, propertyMap, sessionId);
+        try {
+            while (iterator.hasNext()) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        finally {
+            iterator.close();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the findByQueryList response as a stream that parses the elements as they are consumed.
+     * The stream holds the response open and must be closed, i.e. by try-with-resources.
+     *
+     * @param <T>
+     * @param responseType extends BaseDTO
+     * @param filterMap Map used to construct query 
+     * @param childclasses child resources to return
+     * @param propertyMap Map used to control flow, identifies query class, etc
+     * @param sessionId Session Id associated with authentication
+     * @return the element stream
+     * @throws org.cdsframework.exceptions.ConstraintViolationException
+     * @throws org.cdsframework.exceptions.ValidationException
+     * @throws org.cdsframework.exceptions.NotFoundException
+     * @throws org.cdsframework.exceptions.AuthenticationException
+     * @throws org.cdsframework.exceptions.AuthorizationException
+     * @throws org.cdsframework.exceptions.MtsException
+     */
+    public <T> Stream<T> findByQueryStream(Class<T> responseType, Map<String, Object> filterMap, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) 
+            throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        final JsonArrayIterator<T> iterator = findByQueryIterator(responseType, filterMap, childclasses, propertyMap, sessionId);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(new Runnable() {
+                    @Override
+                    public void run() {
+                        iterator.close();
+                    }
+                });
+    }
+
+    private <T> JsonArrayIterator<T> findByQueryIterator(Class<T> responseType, Map<String, Object> filterMap, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) 
+            throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        Response response = findByQueryListResponse(responseType, null, filterMap, childclasses, propertyMap, sessionId);
+        if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+            try {
+                // Caller not interested in the response, translate and throw
+                CommonRsUtils.throwException(response.readEntity(ErrorMessage.class));
+            }
+            finally {
+                response.close();
+            }
+        }
+        // the iterator closes the response
+        return new JsonArrayIterator<T>(response, jacksonJsonProvider.getContext(responseType), responseType);
+    }
         
     /**
      *
@@ -502,6 +877,11 @@ public class RSClient {
             throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
         final String METHODNAME = "findByQueryListResponse ";
         
+        // Get the response
+        return getFindByQueryListTarget(resourceType, responseType, filterMap, childclasses, propertyMap, sessionId).request().get(Response.class);
+    }
+
+    WebTarget getFindByQueryListTarget(Class resourceType, Class responseType, Map<String, Object> filterMap, List<String> childclasses, Map<String, Object> propertyMap, String sessionId) {
         WebTarget resource = getWebTarget();
         if (resourceType != null && useResourceInPath) {
             resource = resource.path(ClassUtils.getResourceName(resourceType));
@@ -522,17 +902,15 @@ public class RSClient {
             }
         }
         if (filterMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMFILTER, CommonRsUtils.getMapAsEncodedString(filterMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMFILTER, encodeParameters(filterMap));
         }
         if (propertyMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, CommonRsUtils.getMapAsEncodedString(propertyMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
         }
         if (sessionId != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
         }
-
-        // Get the response
-        return resource.request().get(Response.class);
+        return resource;
         
     }    
 
@@ -639,13 +1017,16 @@ public class RSClient {
      * @return
      */
     private <T> T update(Object requestEntity, Class<T> responseType, Map<String, Object> propertyMap, String sessionId) {
-        // This is the only call that creates a new Client instance because of the registration
-        WebTarget resource = getWebTarget(getClient(JsonInclude.Include.ALWAYS));
+        return getUpdateInvocation(requestEntity, propertyMap, sessionId).invoke(responseType);
+    }
+
+    Invocation getUpdateInvocation(Object requestEntity, Map<String, Object> propertyMap, String sessionId) {
+        WebTarget resource = getWebTarget();
         if (requestEntity != null && useResourceInPath) {
             resource = resource.path(ClassUtils.getResourceName(requestEntity.getClass()));
         }
         if (propertyMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, CommonRsUtils.getMapAsEncodedString(propertyMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
         }
         if (sessionId != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
@@ -656,13 +1037,23 @@ public class RSClient {
             List<Object> primaryKeys = DTOUtils.getPrimaryKeys(baseDTO);
             String path = getPath(primaryKeys);
             resource = resource.path(path);
-            System.out.println("resource=" + resource);
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("resource=" + resource);
+            }
+        }
+        // The update serializes nulls so cleared properties reach the service. The entity is written with the cached
+        // ALWAYS inclusion writer rather than a client registered with its own provider, so the pooled connection is reused
+        byte[] entity;
+        try {
+            entity = ObjectMapperRegistry.getWriter(JsonInclude.Include.ALWAYS).writeValueAsBytes(requestEntity);
+        } catch (JsonProcessingException e) {
+            throw new ProcessingException(e);
         }
         return resource
                 .request(javax.ws.rs.core.MediaType.APPLICATION_JSON)
-                .put(javax.ws.rs.client.Entity.entity(requestEntity, javax.ws.rs.core.MediaType.APPLICATION_JSON), responseType);
+                .buildPut(javax.ws.rs.client.Entity.entity(entity, javax.ws.rs.core.MediaType.APPLICATION_JSON));
     }
-    
+
     /**
      *
      * @param <T>
@@ -685,12 +1076,16 @@ public class RSClient {
      * @return
      */    
     private <T> T create(Object requestEntity, Class<T> responseType, Map<String, Object> propertyMap, String sessionId) {
+        return getCreateInvocation(requestEntity, propertyMap, sessionId).invoke(responseType);
+    }
+
+    Invocation getCreateInvocation(Object requestEntity, Map<String, Object> propertyMap, String sessionId) {
         WebTarget resource = getWebTarget();
         if (requestEntity != null && useResourceInPath) {
             resource = resource.path(ClassUtils.getResourceName(requestEntity.getClass()));
         }        
         if (propertyMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, CommonRsUtils.getMapAsEncodedString(propertyMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
         }
         if (sessionId != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
@@ -698,7 +1093,7 @@ public class RSClient {
         
         return resource
                 .request(javax.ws.rs.core.MediaType.APPLICATION_JSON)
-                .post(javax.ws.rs.client.Entity.entity(requestEntity, javax.ws.rs.core.MediaType.APPLICATION_JSON), responseType);
+                .buildPost(javax.ws.rs.client.Entity.entity(requestEntity, javax.ws.rs.core.MediaType.APPLICATION_JSON));
     }
 
     
@@ -782,8 +1177,25 @@ public class RSClient {
     
     public <T> T save(Object requestEntity, Class<T> responseType, Map<String, Object> propertyMap, String sessionId) 
         throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
-        final String METHODNAME = "saveDTO ";
+        BaseDTO dto = getSaveDTO(requestEntity, responseType, sessionId);
+        DTOState dtoState = getSaveDTOState(dto);
         
+        Response response = null;
+        try {
+            response = getSaveInvocation(dto, propertyMap, sessionId).invoke();
+            return evaluateSaveResponse(response, dtoState, responseType);
+        }
+        finally {
+            // Just in case we get here and the response is not closed, readEntity closes the response by default
+            // But if during the Create, Update, Delete an Jersey exception occurs we want to close out the response
+            if (response != null && responseType != Response.class) {
+                response.close();
+            }
+        }
+    }    
+
+    /* Validates the save arguments and returns the request entity as a BaseDTO */
+    static BaseDTO getSaveDTO(Object requestEntity, Class responseType, String sessionId) {
         if (requestEntity == null) {
             throw new IllegalArgumentException("Unsupported requestEntity " + requestEntity);
         }
@@ -793,84 +1205,397 @@ public class RSClient {
         if (StringUtils.isEmpty(sessionId)) {
             throw new IllegalArgumentException("Unsupported sessionId " + sessionId);
         }
+        if (!(requestEntity instanceof BaseDTO)) {
+            throw new IllegalArgumentException("Unsupported requestEntity class " + requestEntity.getClass().getCanonicalName());
+        }
+        return (BaseDTO) requestEntity;
+    }
+
+    /* The DTOState the save response is checked against, fails if the DTO is not in a state that can be saved */
+    static DTOState getSaveDTOState(BaseDTO dto) {
+        if (dto.isNew() || dto.isDeleted()) {
+            return dto.getDTOState();
+        }
+        // Get the operation state
+        DTOState dtoState = dto.getOperationDTOState();
+        if (dtoState != DTOState.UPDATED) {
+            throw new IllegalArgumentException("Unsupported requestEntity class " + dto.getClass().getCanonicalName() + 
+                    " DTOState " + dtoState + " is not in a state that can be saved.");
+        }
+        return dtoState;
+    }
 
-        BaseDTO dto = null;
-        if (requestEntity instanceof BaseDTO) {
-            dto = (BaseDTO) requestEntity;
+    /* The create, delete or update invocation of the DTO */
+    Invocation getSaveInvocation(BaseDTO dto, Map<String, Object> propertyMap, String sessionId) {
+        if (dto.isNew()) {
+            return getCreateInvocation(dto, propertyMap, sessionId);
+        }
+        else if (dto.isDeleted()) {
+            return getDeleteInvocation(dto, DTOUtils.getPrimaryKeys(dto), propertyMap, sessionId);
         }
         else {
-            throw new IllegalArgumentException("Unsupported requestEntity class " + requestEntity.getClass().getCanonicalName());
+            if (propertyMap == null) {
+                propertyMap = new HashMap<String, Object>();
+            }
+            // Add flag to inform BO layer that a RS DTO Client is being used
+            propertyMap.put(CoreRsConstants.RS_CLIENT, true);
+            return getUpdateInvocation(dto, propertyMap, sessionId);
         }
-        
-        Response response = null;
-        try {
-            if (dto != null) {
-                DTOState dtoState = dto.getDTOState();
+    }
 
-                if (dto.isNew()) {
-                    response = create(requestEntity, Response.class, propertyMap, sessionId);
+    /* Checks the status of a save response against the DTOState and returns the appropriate type, the response is not closed */
+    <T> T evaluateSaveResponse(Response response, DTOState dtoState, Class<T> responseType)
+            throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        final String METHODNAME = "saveDTO ";
+        boolean success = false;
+        // New, New Modified
+        if (dtoState == DTOState.NEW || dtoState == DTOState.NEWMODIFIED) {
+            success = (response.getStatus() == Response.Status.CREATED.getStatusCode());
+        }
+        // Updated, Deleted returns OK status                
+        else if (dtoState == DTOState.UPDATED || dtoState == DTOState.DELETED) {
+            success = (response.getStatus() == Response.Status.OK.getStatusCode());
+        }
+        logger.info(METHODNAME + "success=" + success + " responseType=" + responseType);
+
+        // Success
+        if (!success) {
+            // Caller not interested in the response, translate and throw
+            if (responseType != Response.class) {
+                CommonRsUtils.throwException(response.readEntity(ErrorMessage.class));
+            }
+        }
+
+        // Caller interested in response, this must be closed by the caller, unless entity is read
+        if (responseType == Response.class) {
+            return (T) response;
+        }
+        else {
+            return response.readEntity(responseType);
+        }
+    }
+
+    /**
+     * Saves the DTOs with one request to the bulk resource of their class. Each DTO is created, updated or deleted according to
+     * its DTOState, a failure of one DTO is returned in its result and doesn't stop the others.
+     *
+     * @param <T> 
+     * @param requestEntities DTOs of the same class
+     * @param propertyMap Map used to control flow, (returnResource = true returns the saved resources)
+     * @param sessionId Session Id associated with authentication
+     * @return one result per DTO in request order
+     * @throws org.cdsframework.exceptions.ConstraintViolationException
+     * @throws org.cdsframework.exceptions.ValidationException
+     * @throws org.cdsframework.exceptions.NotFoundException
+     * @throws org.cdsframework.exceptions.AuthenticationException
+     * @throws org.cdsframework.exceptions.AuthorizationException
+     * @throws org.cdsframework.exceptions.MtsException
+     */
+    public <T extends BaseDTO> List<BulkResult<T>> saveAll(List<T> requestEntities, Map<String, Object> propertyMap, String sessionId)
+        throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        return saveAll(requestEntities, propertyMap, 0, null, sessionId);
+    }
+
+    /**
+     * Saves the DTOs with one bulk request per chunk. Without an executor the chunks are sent one after the other, with an
+     * executor they are sent in parallel. A chunk that fails as a whole (authentication, transport) fails the call, the chunks
+     * that were already saved stay saved. Like a single save only the updates are flagged RS_CLIENT, so a chunk that mixes updates
+     * with creates or deletes is sent as one request per run of consecutive updates or consecutive creates and deletes. The runs are
+     * sent in order, so the DTOs are saved in request order, but interleaving updates with the other states costs requests.
+     *
+     * @param <T> 
+     * @param requestEntities DTOs of the same class
+     * @param propertyMap Map used to control flow, (returnResource = true returns the saved resources)
+     * @param chunkSize the maximum number of DTOs per request, 0 sends them all at once
+     * @param executor sends the chunks in parallel, null sends them sequentially
+     * @param sessionId Session Id associated with authentication
+     * @return one result per DTO in request order
+     * @throws org.cdsframework.exceptions.ConstraintViolationException
+     * @throws org.cdsframework.exceptions.ValidationException
+     * @throws org.cdsframework.exceptions.NotFoundException
+     * @throws org.cdsframework.exceptions.AuthenticationException
+     * @throws org.cdsframework.exceptions.AuthorizationException
+     * @throws org.cdsframework.exceptions.MtsException
+     */
+    public <T extends BaseDTO> List<BulkResult<T>> saveAll(List<T> requestEntities, Map<String, Object> propertyMap, int chunkSize, Executor executor, 
+            final String sessionId)
+        throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        if (requestEntities == null) {
+            throw new IllegalArgumentException("Unsupported requestEntities " + requestEntities);
+        }
+        List<BulkResult<T>> results = new ArrayList<BulkResult<T>>(requestEntities.size());
+        if (requestEntities.isEmpty()) {
+            return results;
+        }
+        final Class<T> resourceType = getBulkResourceType(requestEntities, sessionId);
+        for (T requestEntity : requestEntities) {
+            getSaveDTOState(requestEntity);
+        }
+        final Map<String, Object> bulkPropertyMap = propertyMap != null ? propertyMap : new HashMap<String, Object>();
+
+        int size = requestEntities.size();
+        if (chunkSize <= 0 || chunkSize >= size) {
+            return saveChunk(resourceType, requestEntities, 0, bulkPropertyMap, sessionId);
+        }
+        if (executor == null) {
+            for (int offset = 0; offset < size; offset += chunkSize) {
+                results.addAll(saveChunk(resourceType, requestEntities.subList(offset, Math.min(size, offset + chunkSize)), offset, bulkPropertyMap, sessionId));
+            }
+            return results;
+        }
+        List<CompletableFuture<List<BulkResult<T>>>> futures = new ArrayList<CompletableFuture<List<BulkResult<T>>>>();
+        for (int offset = 0; offset < size; offset += chunkSize) {
+            final List<T> chunk = requestEntities.subList(offset, Math.min(size, offset + chunkSize));
+            final int chunkOffset = offset;
+            futures.add(CompletableFuture.supplyAsync(new Supplier<List<BulkResult<T>>>() {
+                @Override
+                public List<BulkResult<T>> get() {
+                    try {
+                        return saveChunk(resourceType, chunk, chunkOffset, bulkPropertyMap, sessionId);
+                    } catch (ConstraintViolationException | ValidationException | NotFoundException | AuthenticationException | AuthorizationException | MtsException e) {
+                        throw new CompletionException(e);
+                    }
                 }
-                else if (dto.isDeleted()) {
-                    response = delete(requestEntity, DTOUtils.getPrimaryKeys(dto), Response.class, propertyMap, sessionId);
+            }, executor));
+        }
+        for (CompletableFuture<List<BulkResult<T>>> future : futures) {
+            try {
+                results.addAll(future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ConstraintViolationException) {
+                    throw (ConstraintViolationException) cause;
+                } else if (cause instanceof ValidationException) {
+                    throw (ValidationException) cause;
+                } else if (cause instanceof NotFoundException) {
+                    throw (NotFoundException) cause;
+                } else if (cause instanceof AuthenticationException) {
+                    throw (AuthenticationException) cause;
+                } else if (cause instanceof AuthorizationException) {
+                    throw (AuthorizationException) cause;
+                } else if (cause instanceof MtsException) {
+                    throw (MtsException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
                 }
-                else {
-                    // Get the operation state
-                    dtoState = dto.getOperationDTOState();                
-                    if (dtoState == DTOState.UPDATED) {
-                        if (propertyMap == null) {
-                            propertyMap = new HashMap<String, Object>();
-                        }
-                        // Add flag to inform BO layer that a RS DTO Client is being used
-                        propertyMap.put(CoreRsConstants.RS_CLIENT, true);
-                        
-                        response = update(requestEntity, Response.class, propertyMap, sessionId);
-                    }
-                    else {
-                        throw new IllegalArgumentException("Unsupported requestEntity class " + requestEntity.getClass().getCanonicalName() + 
-                                " DTOState " + dtoState + " is not in a state that can be saved.");
-                    }
+                throw new MtsException("An " + cause.getClass().getSimpleName() + " has occurred; Message: " + cause.getMessage(), cause);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Marks the DTOs deleted and deletes them with bulk requests, see saveAll. A DTO that isn't deleted - its result failed or the
+     * call threw - gets its previous DTOState back.
+     *
+     * @param <T> 
+     * @param requestEntities DTOs of the same class
+     * @param propertyMap Map used to control flow
+     * @param chunkSize the maximum number of DTOs per request, 0 sends them all at once
+     * @param executor sends the chunks in parallel, null sends them sequentially
+     * @param sessionId Session Id associated with authentication
+     * @return one result per DTO in request order
+     * @throws org.cdsframework.exceptions.ConstraintViolationException
+     * @throws org.cdsframework.exceptions.ValidationException
+     * @throws org.cdsframework.exceptions.NotFoundException
+     * @throws org.cdsframework.exceptions.AuthenticationException
+     * @throws org.cdsframework.exceptions.AuthorizationException
+     * @throws org.cdsframework.exceptions.MtsException
+     */
+    public <T extends BaseDTO> List<BulkResult<T>> deleteAll(List<T> requestEntities, Map<String, Object> propertyMap, int chunkSize, Executor executor, 
+            String sessionId)
+        throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        if (requestEntities == null) {
+            throw new IllegalArgumentException("Unsupported requestEntities " + requestEntities);
+        }
+        if (!requestEntities.isEmpty()) {
+            // validate before any DTO is marked deleted
+            getBulkResourceType(requestEntities, sessionId);
+        }
+        DTOState[] dtoStates = new DTOState[requestEntities.size()];
+        for (int i = 0; i < dtoStates.length; i++) {
+            dtoStates[i] = requestEntities.get(i).getDTOState();
+            requestEntities.get(i).delete();
+        }
+        List<BulkResult<T>> results = null;
+        try {
+            results = saveAll(requestEntities, propertyMap, chunkSize, executor, sessionId);
+            return results;
+        }
+        finally {
+            for (int i = 0; i < dtoStates.length; i++) {
+                if (results == null || !results.get(i).isSuccess()) {
+                    DTOUtils.setDTOState(requestEntities.get(i), dtoStates[i]);
                 }
+            }
+        }
+    }
 
-                // Check response
-                if (response != null) {
-                    boolean success = false;
-                    // New, New Modified
-                    if (dtoState == DTOState.NEW || dtoState == DTOState.NEWMODIFIED) {
-                        success = (response.getStatus() == Response.Status.CREATED.getStatusCode());
-                    }
-                    // Updated, Deleted returns OK status                
-                    else if (dtoState == DTOState.UPDATED || dtoState == DTOState.DELETED) {
-                        success = (response.getStatus() == Response.Status.OK.getStatusCode());
-                    }
-                    logger.info(METHODNAME + "success=" + success + " responseType=" + responseType);
-
-                    // Success
-                    if (!success) {
-                        // Caller not interested in the response, translate and throw
-                        if (responseType != Response.class) {
-                            CommonRsUtils.throwException(response.readEntity(ErrorMessage.class));
-                        }
-                    }
+    /* Validates the bulk arguments like a single save and returns the class of the DTOs, they all have to be of the same class */
+    private static <T extends BaseDTO> Class<T> getBulkResourceType(List<T> requestEntities, String sessionId) {
+        if (requestEntities.get(0) == null) {
+            throw new IllegalArgumentException("Unsupported requestEntity " + null);
+        }
+        Class<T> resourceType = (Class<T>) requestEntities.get(0).getClass();
+        for (T requestEntity : requestEntities) {
+            getSaveDTO(requestEntity, resourceType, sessionId);
+            if (requestEntity.getClass() != resourceType) {
+                throw new IllegalArgumentException("Unsupported requestEntity class " + requestEntity.getClass().getCanonicalName() 
+                        + " the bulk request is for " + resourceType.getCanonicalName());
+            }
+        }
+        return resourceType;
+    }
 
-                    // Caller interested in response, this must be closed by the caller, unless entity is read
-                    if (responseType == Response.class) {
-                        return (T) response;
-                    }
-                    else {
-                        return response.readEntity(responseType);
-                    }
+    /*
+     * Saves a chunk and returns its results indexed from the offset. RS_CLIENT applies to the whole request and a single save
+     * only sends it with an update, so the chunk is sent as runs of consecutive updates and of consecutive creates or deletes -
+     * one request per run in the order of the DTOs.
+     */
+    private <T extends BaseDTO> List<BulkResult<T>> saveChunk(Class<T> resourceType, List<T> requestEntities, int offset, Map<String, Object> propertyMap, 
+            String sessionId) 
+        throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        final String METHODNAME = "saveChunk ";
+        long start = System.nanoTime();
+        List<BulkResult<T>> results = new ArrayList<BulkResult<T>>(requestEntities.size());
+        Map<String, Object> updatePropertyMap = null;
+        int size = requestEntities.size();
+        int from = 0;
+        while (from < size) {
+            boolean update = isBulkUpdate(requestEntities.get(from));
+            int to = from + 1;
+            while (to < size && isBulkUpdate(requestEntities.get(to)) == update) {
+                to++;
+            }
+            Map<String, Object> runPropertyMap = propertyMap;
+            if (update) {
+                if (updatePropertyMap == null) {
+                    updatePropertyMap = new HashMap<String, Object>(propertyMap);
+                    // Add flag to inform BO layer that a RS DTO Client is being used
+                    updatePropertyMap.put(CoreRsConstants.RS_CLIENT, true);
                 }
+                runPropertyMap = updatePropertyMap;
             }
+            addBulkResults(results, postBulk(resourceType, requestEntities.subList(from, to), runPropertyMap, sessionId), offset + from);
+            from = to;
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(METHODNAME + "saved " + size + " in " + (System.nanoTime() - start) / 1000000 + "ms");
+        }
+        return results;
+    }
+
+    private static boolean isBulkUpdate(BaseDTO requestEntity) {
+        return !requestEntity.isNew() && !requestEntity.isDeleted();
+    }
+
+    /* Appends the results of a request in the order of its DTOs and indexes them from the offset */
+    private static <T> void addBulkResults(List<BulkResult<T>> results, List<BulkResult<T>> bulkResults, int offset) throws MtsException {
+        BulkResult<T>[] orderedResults = new BulkResult[bulkResults.size()];
+        for (BulkResult<T> bulkResult : bulkResults) {
+            int index = bulkResult.getIndex();
+            if (index < 0 || index >= orderedResults.length || orderedResults[index] != null) {
+                throw new MtsException("The bulk request of " + orderedResults.length + " returned an unexpected result index " + index);
+            }
+            bulkResult.setIndex(offset + index);
+            orderedResults[index] = bulkResult;
+        }
+        results.addAll(Arrays.asList(orderedResults));
+    }
+
+    private <T extends BaseDTO> List<BulkResult<T>> postBulk(Class<T> resourceType, List<T> requestEntities, Map<String, Object> propertyMap, 
+            String sessionId) 
+        throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
+        WebTarget resource = getWebTarget();
+        if (useResourceInPath) {
+            resource = resource.path(ClassUtils.getResourceName(resourceType));
+        }
+        resource = resource.path(CoreRsConstants.BULK_PATH);
+        if (propertyMap != null) {
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
+        }
+        if (sessionId != null) {
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
+        }
+        Response response = null;
+        try {
+            response = resource
+                    .request(javax.ws.rs.core.MediaType.APPLICATION_JSON)
+                    .post(javax.ws.rs.client.Entity.entity(getBulkEntity(requestEntities), javax.ws.rs.core.MediaType.APPLICATION_JSON));
+            if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+                CommonRsUtils.throwException(response.readEntity(ErrorMessage.class));
+            }
+            List<BulkResult<T>> results = response.readEntity(getBulkResultListType(resourceType));
+            if (results.size() != requestEntities.size()) {
+                throw new MtsException("The bulk request of " + requestEntities.size() + " " + resourceType.getSimpleName() 
+                        + " returned " + results.size() + " results");
+            }
+            return results;
         }
         finally {
-            // Just in case we get here and the response is not closed, readEntity closes the response by default
-            // But if during the Create, Update, Delete an Jersey exception occurs we want to close out the response
-            if (response != null && responseType != Response.class) {
+            if (response != null) {
                 response.close();
             }
         }
-        return null;
-    }    
+    }
+
+    /*
+     * Writes the DTOs as a json array, a new DTO with the client inclusion like create, the others with nulls like update.
+     */
+    private byte[] getBulkEntity(List<? extends BaseDTO> requestEntities) {
+        ObjectWriter createWriter = jacksonJsonProvider.getContext(Object.class).writer();
+        ByteArrayOutputStream entity = new ByteArrayOutputStream();
+        try {
+            entity.write('[');
+            for (int i = 0; i < requestEntities.size(); i++) {
+                BaseDTO requestEntity = requestEntities.get(i);
+                if (i > 0) {
+                    entity.write(',');
+                }
+                entity.write((requestEntity.isNew() ? createWriter : ObjectMapperRegistry.getWriter(JsonInclude.Include.ALWAYS)).writeValueAsBytes(requestEntity));
+            }
+            entity.write(']');
+        } catch (IOException e) {
+            throw new ProcessingException(e);
+        }
+        return entity.toByteArray();
+    }
+
+    private static <T> GenericType<List<BulkResult<T>>> getBulkResultListType(final Class<T> resourceType) {
+        final ParameterizedType bulkResultType = new ParameterizedType() {
+            @Override
+            public Type[] getActualTypeArguments() {
+                return new Type[] { resourceType };
+            }
+
+            @Override
+            public Type getRawType() {
+                return BulkResult.class;
+            }
+
+            @Override
+            public Type getOwnerType() {
+                return null;
+            }
+        };
+        ParameterizedType listType = new ParameterizedType() {
+            @Override
+            public Type[] getActualTypeArguments() {
+                return new Type[] { bulkResultType };
+            }
+
+            @Override
+            public Type getRawType() {
+                return List.class;
+            }
+
+            @Override
+            public Type getOwnerType() {
+                return null;
+            }
+        };
+        return new GenericType<List<BulkResult<T>>>(listType){};
+    }
     
         
     /**
@@ -940,18 +1665,22 @@ public class RSClient {
      * @return
      */
     private <T> T delete(Object requestEntity, List<Object> primaryKeys, Class<T> responseType, Map<String, Object> propertyMap, String sessionId) {
+        return getDeleteInvocation(requestEntity, primaryKeys, propertyMap, sessionId).invoke(responseType);
+    }
+
+    Invocation getDeleteInvocation(Object requestEntity, List<Object> primaryKeys, Map<String, Object> propertyMap, String sessionId) {
         WebTarget resource = getWebTarget();
         if (requestEntity != null && useResourceInPath) {
             resource = resource.path(ClassUtils.getResourceName(requestEntity.getClass()));
         }
         if (propertyMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, CommonRsUtils.getMapAsEncodedString(propertyMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
         }
         if (sessionId != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
         }
         resource = resource.path(getPath(primaryKeys));
-        return resource.request().delete(responseType);
+        return resource.request().buildDelete();
     }        
 
     /**
@@ -976,7 +1705,7 @@ public class RSClient {
             resource = resource.path(ClassUtils.getResourceName(responseType));
         }        
         if (propertyMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, CommonRsUtils.getMapAsEncodedString(propertyMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
         }
         if (sessionId != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
@@ -996,7 +1725,7 @@ public class RSClient {
     private Response delete(Map<String, Object> filterMap, String sessionId) {
         WebTarget resource = getWebTarget();
         if (filterMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMFILTER, CommonRsUtils.getMapAsEncodedString(filterMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMFILTER, encodeParameters(filterMap));
         }
         if (sessionId != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
@@ -1031,16 +1760,23 @@ public class RSClient {
             Map<String, Object> propertyMap, String sessionId) 
             throws MtsException, NotFoundException, AuthenticationException, AuthorizationException, ValidationException, ConstraintViolationException {    
         final String METHODNAME = "getReport ";
+        Response response = getReportTarget(requestEntity, filterMap, reportParameters, propertyMap, sessionId)
+                .request().accept(MediaType.APPLICATION_OCTET_STREAM_TYPE).get();
+        return evaluateResponse(response, responseType);        
+    }
+
+    WebTarget getReportTarget(Class<? extends BaseDTO> requestEntity, Map<String, Object> filterMap, Map<String, Object> reportParameters, 
+            Map<String, Object> propertyMap, String sessionId) {
         WebTarget resource = getWebTarget();
         if (requestEntity != null && useResourceInPath) {
             resource = resource.path(ClassUtils.getResourceName(requestEntity));
         }
         resource = resource.path("report");
         if (filterMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMFILTER, CommonRsUtils.getMapAsEncodedString(filterMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMFILTER, encodeParameters(filterMap));
         }
         if (propertyMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, CommonRsUtils.getMapAsEncodedString(propertyMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
         }
         if (reportParameters != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARAMREPORTPARAMS, CommonRsUtils.getMapAsJsonEncodedString(reportParameters));
@@ -1048,8 +1784,7 @@ public class RSClient {
         if (sessionId != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
         }
-        Response response = resource.request().accept(MediaType.APPLICATION_OCTET_STREAM_TYPE).get();
-        return evaluateResponse(response, responseType);        
+        return resource;
     }
     
     /**
@@ -1174,7 +1909,7 @@ public class RSClient {
         
         WebTarget resource = getWebTarget().path(path);
         if (propertyMap != null) {
-            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, CommonRsUtils.getMapAsEncodedString(propertyMap));
+            resource = resource.queryParam(CoreRsConstants.QUERYPARMPROPERTY, encodeParameters(propertyMap));
         }
         if (sessionId != null) {
             resource = resource.queryParam(CoreRsConstants.QUERYPARMSESSION, sessionId);
@@ -1193,7 +1928,7 @@ public class RSClient {
     }
 
     /* Common function to evaluate the outcome of the response and return the appropriate type */
-    private <T> T evaluateResponse(Response response, Class<T> responseType) 
+    <T> T evaluateResponse(Response response, Class<T> responseType) 
             throws ConstraintViolationException, ValidationException, NotFoundException, AuthenticationException, AuthorizationException, MtsException {
         final String METHODNAME = "evaluateResponse ";
         
@@ -26,16 +26,51 @@
  */
 package org.cdsframework.client;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.cdsframework.rs.provider.CoreJacksonJsonProvider;
 import org.cdsframework.rs.support.CoreRsConstants;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.filter.EncodingFeature;
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.logging.LoggingFeature;
+import org.glassfish.jersey.message.GZipEncoder;
 
 /**
+ * Hands out RSClients that share one client and one pooled connection manager.
+ *
+ * The client, its json provider and the connection pool are created on the first getRsClient call. The pool limits can be
+ * changed at any time. The connection time to live is fixed when the pool is created, so it applies if it is set before the
+ * first getRsClient call or before the first one after close. Idle connections are evicted in the background. close releases
+ * the client and the pool.
  *
  * @author HLN Consulting, LLC
  */
 public class RSClientFactory {
+    public static final int DEFAULT_MAX_TOTAL = 50;
+    public static final int DEFAULT_MAX_PER_ROUTE = 20;
+    public static final long DEFAULT_IDLE_CONNECTION_TIMEOUT = 30000;
     private String baseURI;
     private boolean loggingFilter;
     private boolean gzipSupport;
+    private int maxTotal = DEFAULT_MAX_TOTAL;
+    private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    private long connectionTimeToLive = -1;
+    private long idleConnectionTimeout = DEFAULT_IDLE_CONNECTION_TIMEOUT;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private Client client;
+    private CoreJacksonJsonProvider jacksonJsonProvider;
+    private ScheduledExecutorService idleConnectionEvictor;
     
     /**
      *
@@ -72,8 +107,9 @@ public class RSClientFactory {
      *
      * @return
      */
-    public RSClient getRsClient() {
-        return new RSClient(baseURI, CoreRsConstants.GENERAL_RS_ROOT, loggingFilter, gzipSupport);
+    public synchronized RSClient getRsClient() {
+        // the client and its provider are read under the lock so a concurrent close can't hand out a null provider
+        return new RSClient(getClient(), jacksonJsonProvider, baseURI, CoreRsConstants.GENERAL_RS_ROOT, loggingFilter, true, gzipSupport);
     }
     
     /**
@@ -83,8 +119,174 @@ public class RSClientFactory {
      *                     otherwise 404 is likely
      * @return RSClient
      */
-    public RSClient getRsClient(String rsRoot) {
-        return new RSClient(baseURI, rsRoot, loggingFilter, false, gzipSupport);
+    public synchronized RSClient getRsClient(String rsRoot) {
+        return new RSClient(getClient(), jacksonJsonProvider, baseURI, rsRoot, loggingFilter, false, gzipSupport);
+    }
+
+    /**
+     *
+     * @param executor runs the response handling of the asynchronous requests, not the requests, null uses the thread of the client
+     * @return AsyncRSClient
+     */
+    public AsyncRSClient getAsyncRsClient(Executor executor) {
+        return new AsyncRSClient(getRsClient(), executor);
+    }
+
+    /**
+     *
+     * @param rsRoot The root URI of the RS Service, typically this is the lowercase DTO name pluralized
+     * @param executor runs the response handling of the asynchronous requests, not the requests, null uses the thread of the client
+     * @return AsyncRSClient
+     */
+    public AsyncRSClient getAsyncRsClient(String rsRoot, Executor executor) {
+        return new AsyncRSClient(getRsClient(rsRoot), executor);
+    }
+
+    /**
+     *
+     * @return the client shared by the RSClients of this factory
+     */
+    public synchronized Client getClient() {
+        if (client == null) {
+            connectionManager = new PoolingHttpClientConnectionManager(connectionTimeToLive, TimeUnit.MILLISECONDS);
+            connectionManager.setMaxTotal(maxTotal);
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+            jacksonJsonProvider = new CoreJacksonJsonProvider();
+
+            ClientConfig clientConfig = new ClientConfig();
+            clientConfig.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+            clientConfig.connectorProvider(new ApacheConnectorProvider());
+            clientConfig.register(new JacksonFeature());
+            if (loggingFilter) {
+                clientConfig.register(new LoggingFeature(java.util.logging.Logger.getLogger(RSClient.class.getCanonicalName())));
+            }
+            clientConfig.register(jacksonJsonProvider);
+            if (gzipSupport) {
+                clientConfig.register(new EncodingFeature("gzip", GZipEncoder.class));
+            }
+            client = ClientBuilder.newClient(clientConfig);
+            scheduleIdleConnectionEviction();
+        }
+        return client;
+    }
+
+    private void scheduleIdleConnectionEviction() {
+        if (idleConnectionTimeout > 0 && idleConnectionEvictor == null) {
+            idleConnectionEvictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "RSClientFactory-idle-connection-evictor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            final PoolingHttpClientConnectionManager evictedConnectionManager = connectionManager;
+            final long timeout = idleConnectionTimeout;
+            long period = Math.max(1000, timeout / 2);
+            idleConnectionEvictor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    evictedConnectionManager.closeExpiredConnections();
+                    evictedConnectionManager.closeIdleConnections(timeout, TimeUnit.MILLISECONDS);
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Closes the shared client and its connection pool. The next getRsClient call creates new ones.
+     */
+    public synchronized void close() {
+        if (idleConnectionEvictor != null) {
+            idleConnectionEvictor.shutdownNow();
+            idleConnectionEvictor = null;
+        }
+        if (client != null) {
+            client.close();
+            connectionManager.shutdown();
+            client = null;
+            connectionManager = null;
+            jacksonJsonProvider = null;
+        }
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     *
+     * @param maxTotal the maximum number of pooled connections
+     */
+    public synchronized void setMaxTotal(int maxTotal) {
+        this.maxTotal = maxTotal;
+        if (connectionManager != null) {
+            connectionManager.setMaxTotal(maxTotal);
+        }
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    /**
+     *
+     * @param maxPerRoute the maximum number of pooled connections per route
+     */
+    public synchronized void setMaxPerRoute(int maxPerRoute) {
+        this.maxPerRoute = maxPerRoute;
+        if (connectionManager != null) {
+            connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        }
+    }
+
+    public long getConnectionTimeToLive() {
+        return connectionTimeToLive;
+    }
+
+    /**
+     *
+     * @param connectionTimeToLive the maximum lifetime of a kept alive connection in milliseconds, -1 for no limit,
+     *                             applies to the pool created by the first getRsClient call or the first one after close
+     */
+    public synchronized void setConnectionTimeToLive(long connectionTimeToLive) {
+        this.connectionTimeToLive = connectionTimeToLive;
+    }
+
+    public long getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     *
+     * @param idleConnectionTimeout the idle time in milliseconds after which a pooled connection is evicted, 0 disables eviction
+     */
+    public synchronized void setIdleConnectionTimeout(long idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+        if (idleConnectionEvictor != null) {
+            idleConnectionEvictor.shutdownNow();
+            idleConnectionEvictor = null;
+        }
+        if (connectionManager != null) {
+            scheduleIdleConnectionEviction();
+        }
+    }
+
+    /**
+     *
+     * @return the leased, pending, available and max connection counts of the pool or null if the pool hasn't been created
+     */
+    public synchronized PoolStats getPoolStats() {
+        return connectionManager != null ? connectionManager.getTotalStats() : null;
+    }
+
+    /**
+     *
+     * @param route
+     * @return the leased, pending, available and max connection counts of the route or null if the pool hasn't been created
+     */
+    public synchronized PoolStats getPoolStats(HttpRoute route) {
+        return connectionManager != null ? connectionManager.getStats(route) : null;
     }
     
 }
@@ -28,16 +28,16 @@ package org.cdsframework.rs.provider;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import java.io.IOException;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import org.cdsframework.base.BaseDTO;
 import org.cdsframework.util.ClassUtils;
 import org.cdsframework.util.LogUtils;
@@ -53,6 +53,7 @@ public class BaseDTODeserializer extends StdDeserializer<BaseDTO> {
     private final static LogUtils logger = LogUtils.getLogger(BaseDTODeserializer.class);
     private final Map<String, Class<? extends BaseDTO>> registry = new HashMap<String, Class<? extends BaseDTO>>();
     public final static String resourcePropertyName = "resourceName";
+    private static final ThreadLocal<String> PATH_RESOURCE_NAME = new ThreadLocal<String>();
     
     public BaseDTODeserializer() {
         super(BaseDTO.class);
@@ -95,30 +96,101 @@ public class BaseDTODeserializer extends StdDeserializer<BaseDTO> {
         
     }    
 
+    /**
+     * Sets the resource named by the path of the request being read on the current thread, CoreInterceptor calls it around the
+     * read of a general rs service request. The resource of the path wins for the top level DTO - a resourceName in its body is
+     * ignored as it was when the path resource was written into the body. The DTOs of a top level array that don't start with a
+     * registered resourceName get the resource of the path too.
+     *
+     * @param resourceName the resource of the path or null to clear it
+     */
+    public static void setPathResourceName(String resourceName) {
+        if (resourceName == null) {
+            PATH_RESOURCE_NAME.remove();
+        } else {
+            PATH_RESOURCE_NAME.set(resourceName);
+        }
+    }
+
+    /*
+     * Resolves the DTO class of the request body from the resource of the path. Otherwise from a leading resourceName field, then
+     * from the resource of the path for the DTOs of a request body array and only then scans the fields for a resourceName,
+     * buffering the fields it passes. The body is parsed once in every case.
+     */
     @Override
     public BaseDTO deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException, JsonProcessingException {
         final String METHODNAME = "deserialize ";
-        ObjectMapper mapper = (ObjectMapper) jp.getCodec();
-        ObjectNode root = (ObjectNode) mapper.readTree(jp);
-        Class<? extends BaseDTO> baseDTOClass = null;
         if (logger.isDebugEnabled()) {
             logger.debug(METHODNAME, "starting deserilization");
         }
-                
+        JsonToken token = jp.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = jp.nextToken();
+        }
+        if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+            return (BaseDTO) ctxt.handleUnexpectedToken(BaseDTO.class, jp);
+        }
+        Class<? extends BaseDTO> baseDTOClass = null;
         String resource = null;
-        Iterator<Entry<String, JsonNode>> elementsIterator = root.fields();
-        while (elementsIterator.hasNext()) {
-            Entry<String, JsonNode> element = elementsIterator.next();
-            String name = element.getKey();
-            JsonNode value = element.getValue();
-            if (name.equalsIgnoreCase(resourcePropertyName)) {
-                resource = value.textValue();
-                if (registry.containsKey(resource)) {
+        JsonParser parser = jp;
+        String pathResourceName = PATH_RESOURCE_NAME.get();
+
+        // the resource of the path for the request body
+        if (pathResourceName != null && isRequestBody(jp)) {
+            baseDTOClass = registry.get(pathResourceName);
+            if (baseDTOClass != null) {
+                resource = pathResourceName;
+            }
+        }
+
+        // a leading resourceName
+        if (token == JsonToken.FIELD_NAME && jp.getCurrentName().equalsIgnoreCase(resourcePropertyName)) {
+            if (jp.nextToken() == JsonToken.VALUE_STRING) {
+                if (baseDTOClass == null) {
+                    resource = jp.getText();
+                    baseDTOClass = registry.get(resource);
+                } else if (!resource.equals(jp.getText()) && logger.isDebugEnabled()) {
+                    logger.debug(METHODNAME, "ignoring the resourceName ", jp.getText(), " of the body of the resource ", resource);
+                }
+            } else {
+                jp.skipChildren();
+            }
+            token = jp.nextToken();
+        }
+
+        // the resource of the path for the DTOs of a request body array
+        if (baseDTOClass == null && pathResourceName != null && isRequestBodyArrayElement(jp)) {
+            baseDTOClass = registry.get(pathResourceName);
+            if (baseDTOClass != null) {
+                resource = pathResourceName;
+            }
+        }
+
+        // a resourceName further on, the fields before it are buffered
+        if (baseDTOClass == null) {
+            TokenBuffer tokenBuffer = new TokenBuffer(jp, ctxt);
+            tokenBuffer.writeStartObject();
+            for (; token == JsonToken.FIELD_NAME; token = jp.nextToken()) {
+                String name = jp.getCurrentName();
+                token = jp.nextToken();
+                if (name.equalsIgnoreCase(resourcePropertyName) && token == JsonToken.VALUE_STRING) {
+                    resource = jp.getText();
                     baseDTOClass = registry.get(resource);
-                    break;
+                    if (baseDTOClass != null) {
+                        jp.nextToken();
+                        break;
+                    }
+                } else {
+                    tokenBuffer.writeFieldName(name);
+                    tokenBuffer.copyCurrentStructure(jp);
                 }
             }
+            if (baseDTOClass != null) {
+                parser = JsonParserSequence.createFlattened(true, tokenBuffer.asParser(jp), jp);
+                parser.nextToken();
+            }
         }
+
         if (baseDTOClass == null) {
             String errorMessage = null;
             if (resource == null) {
@@ -134,7 +206,24 @@ public class BaseDTODeserializer extends StdDeserializer<BaseDTO> {
             logger.error(METHODNAME, errorMessage);
             throw new IOException(errorMessage);
         }
-        
-        return mapper.readValue(root.toString(), baseDTOClass);
+
+        JsonDeserializer<Object> deserializer = ctxt.findRootValueDeserializer(ctxt.constructType(baseDTOClass));
+        return (BaseDTO) deserializer.deserialize(parser, ctxt);
+    }
+
+    /*
+     * Whether the object being read is the request body.
+     */
+    private static boolean isRequestBody(JsonParser jp) {
+        JsonStreamContext parent = jp.getParsingContext().getParent();
+        return parent == null || parent.inRoot();
+    }
+
+    /*
+     * Whether the object being read is an element of a request body array.
+     */
+    private static boolean isRequestBodyArrayElement(JsonParser jp) {
+        JsonStreamContext parent = jp.getParsingContext().getParent();
+        return parent != null && parent.inArray() && parent.getParent() != null && parent.getParent().inRoot();
     }
 }
@@ -0,0 +1,196 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.rs.provider;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.zip.GZIPOutputStream;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Gzips a response once it reaches the minimum size. The first minimumSize bytes are held back, a response that ends within them
+ * is written as is, a longer one is written compressed with a Content-Encoding header. The headers are changed before anything
+ * reaches the container stream, so they are still open.
+ *
+ * @author HLN Consulting, LLC
+ */
+final class CompressingOutputStream extends OutputStream {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean THREAD_CPU_TIME = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()
+            && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+    private final OutputStream outputStream;
+    private final MultivaluedMap<String, Object> headers;
+    private final int level;
+    private final int bufferSize;
+    private final CompressionStatistics statistics;
+    private byte[] prefix;
+    private int prefixCount;
+    private CountingOutputStream countingOutputStream;
+    private GZIPOutputStream gzipOutputStream;
+    private long uncompressedByteCount;
+    private long compressionNanos;
+    private boolean finished;
+
+    /**
+     *
+     * @param outputStream the container stream
+     * @param headers the response headers
+     * @param minimumSize the smallest response that is compressed
+     * @param level the deflater level, 1 (fastest) to 9 (smallest) or -1 for the default
+     * @param bufferSize the deflater output buffer size
+     * @param statistics the counters of the route
+     */
+    CompressingOutputStream(OutputStream outputStream, MultivaluedMap<String, Object> headers, int minimumSize, int level,
+            int bufferSize, CompressionStatistics statistics) {
+        this.outputStream = outputStream;
+        this.headers = headers;
+        this.level = level;
+        this.bufferSize = bufferSize;
+        this.statistics = statistics;
+        this.prefix = new byte[Math.max(minimumSize, 1)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (finished) {
+            throw new IOException("The stream is finished");
+        }
+        if (gzipOutputStream == null) {
+            if (prefixCount + len < prefix.length) {
+                System.arraycopy(b, off, prefix, prefixCount, len);
+                prefixCount += len;
+                return;
+            }
+            startCompression();
+        }
+        long start = now();
+        gzipOutputStream.write(b, off, len);
+        compressionNanos += now() - start;
+        uncompressedByteCount += len;
+    }
+
+    /*
+     * A flush while the prefix is held back is ignored, the prefix is written once the response is compressed or finished.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (gzipOutputStream != null) {
+            gzipOutputStream.flush();
+        }
+    }
+
+    /**
+     * Writes the held back prefix or the gzip trailer and records the response, the container stream stays open.
+     *
+     * @throws IOException
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (gzipOutputStream == null) {
+            outputStream.write(prefix, 0, prefixCount);
+            statistics.recordUncompressed();
+        } else {
+            long start = now();
+            gzipOutputStream.finish();
+            compressionNanos += now() - start;
+            statistics.recordCompressed(uncompressedByteCount, countingOutputStream.count, compressionNanos);
+        }
+        prefix = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private void startCompression() throws IOException {
+        headers.putSingle(HttpHeaders.CONTENT_ENCODING, "gzip");
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        countingOutputStream = new CountingOutputStream(outputStream);
+        long start = now();
+        // syncFlush so a flush of a streamed response - see JsonArrayStreamingOutput - sends what was compressed so far
+        gzipOutputStream = new GZIPOutputStream(countingOutputStream, bufferSize, true) {
+            {
+                def.setLevel(level);
+            }
+        };
+        gzipOutputStream.write(prefix, 0, prefixCount);
+        compressionNanos += now() - start;
+        uncompressedByteCount += prefixCount;
+        prefixCount = 0;
+    }
+
+    private static long now() {
+        return THREAD_CPU_TIME ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    /*
+     * Counts the compressed bytes - close is left to the CompressingOutputStream.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        private CountingOutputStream(OutputStream outputStream) {
+            super(outputStream);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
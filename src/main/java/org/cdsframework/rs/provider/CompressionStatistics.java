@@ -0,0 +1,105 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.rs.provider;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The response compression counters of one route, see CoreInterceptor.getCompressionStatistics.
+ *
+ * Only responses to callers that accept gzip are counted. The compression time is the cpu time of the thread spent writing the
+ * compressed responses where the jvm supports thread cpu time, otherwise the elapsed time.
+ *
+ * @author HLN Consulting, LLC
+ */
+public final class CompressionStatistics {
+
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder compressedResponses = new LongAdder();
+    private final LongAdder uncompressedBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+
+    void recordUncompressed() {
+        responses.increment();
+    }
+
+    void recordCompressed(long uncompressedByteCount, long compressedByteCount, long nanos) {
+        responses.increment();
+        compressedResponses.increment();
+        uncompressedBytes.add(uncompressedByteCount);
+        compressedBytes.add(compressedByteCount);
+        compressionNanos.add(nanos);
+    }
+
+    /**
+     *
+     * @return the number of responses to callers that accept gzip
+     */
+    public long getResponses() {
+        return responses.sum();
+    }
+
+    /**
+     *
+     * @return the number of responses that reached the minimum size and were compressed
+     */
+    public long getCompressedResponses() {
+        return compressedResponses.sum();
+    }
+
+    /**
+     *
+     * @return the size of the compressed responses before compression
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes.sum();
+    }
+
+    /**
+     *
+     * @return the size of the compressed responses after compression
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    public long getBytesSaved() {
+        return getUncompressedBytes() - getCompressedBytes();
+    }
+
+    public long getCompressionNanos() {
+        return compressionNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStatistics{" + "responses=" + getResponses() + ", compressedResponses=" + getCompressedResponses()
+                + ", uncompressedBytes=" + getUncompressedBytes() + ", compressedBytes=" + getCompressedBytes()
+                + ", compressionNanos=" + getCompressionNanos() + '}';
+    }
+}
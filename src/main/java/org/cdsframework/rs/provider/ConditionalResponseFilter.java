@@ -0,0 +1,100 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.rs.provider;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import org.cdsframework.base.BaseDTO;
+
+/**
+ * Adds ETag and Last-Modified headers to a GET response whose entity is a single BaseDTO and answers a matching If-None-Match
+ * or If-Modified-Since request with 304 Not Modified and no entity.
+ *
+ * The validators are derived from the lastModDatetime (createDatetime if it was never modified) of the DTO and of the child DTOs
+ * it carries, so a change to an expanded child changes the ETag as well. A DTO tree with an untracked member gets no validators.
+ * The resource method still runs - the filter saves the transfer and the client side deserialization. Register it in the
+ * ApplicationConfig like the CORSResponseFilter.
+ *
+ * @author HLN Consulting, LLC
+ */
+public class ConditionalResponseFilter implements ContainerResponseFilter {
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException {
+        if (!HttpMethod.GET.equals(requestContext.getMethod())
+                || responseContext.getStatus() != Response.Status.OK.getStatusCode()
+                || !(responseContext.getEntity() instanceof BaseDTO)) {
+            return;
+        }
+        long[] state = new long[]{Long.MIN_VALUE, 0};
+        if (!collectState((BaseDTO) responseContext.getEntity(), state)) {
+            return;
+        }
+        EntityTag entityTag = new EntityTag(state[0] + "-" + state[1], true);
+        // http dates have a precision of seconds
+        Date lastModified = new Date(state[0] / 1000 * 1000);
+
+        Response.ResponseBuilder notModified = requestContext.getRequest().evaluatePreconditions(lastModified, entityTag);
+        if (notModified != null && notModified.build().getStatus() == Response.Status.NOT_MODIFIED.getStatusCode()) {
+            responseContext.setStatus(Response.Status.NOT_MODIFIED.getStatusCode());
+            responseContext.setEntity(null);
+            responseContext.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+        }
+        responseContext.getHeaders().putSingle(HttpHeaders.ETAG, entityTag);
+        responseContext.getHeaders().putSingle(HttpHeaders.LAST_MODIFIED, lastModified);
+    }
+
+    /*
+     * Accumulates the latest modification time (state[0]) and the DTO count (state[1]) of the DTO tree, the count catches a
+     * removed child. Returns false if a DTO has neither a lastModDatetime nor a createDatetime.
+     */
+    private static boolean collectState(BaseDTO baseDTO, long[] state) {
+        Date modified = baseDTO.getLastModDatetime() != null ? baseDTO.getLastModDatetime() : baseDTO.getCreateDatetime();
+        if (modified == null) {
+            return false;
+        }
+        state[0] = Math.max(state[0], modified.getTime());
+        state[1]++;
+        for (List<BaseDTO> childDTOs : baseDTO.getChildDTOMap().values()) {
+            for (BaseDTO childDTO : childDTOs) {
+                if (childDTO != null && !collectState(childDTO, state)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -30,28 +30,37 @@
 package org.cdsframework.rs.provider;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-import java.util.zip.ZipException;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.container.ResourceInfo;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.ext.Provider;
 import javax.ws.rs.ext.ReaderInterceptor;
 import javax.ws.rs.ext.ReaderInterceptorContext;
 import javax.ws.rs.ext.WriterInterceptor;
 import javax.ws.rs.ext.WriterInterceptorContext;
-import org.apache.commons.io.IOUtils;
+import org.cdsframework.rs.support.CoreConfiguration;
 import org.cdsframework.rs.support.CoreRsConstants;
 import org.cdsframework.rs.utils.ResourceUtil;
 import org.cdsframework.util.LogUtils;
-import org.codehaus.jettison.json.JSONException;
 
 /**
+ * Decompresses gzip request bodies, compresses responses for callers that accept gzip and hands the resource of a general rs
+ * service path to the BaseDTODeserializer.
+ *
+ * Responses smaller than the gzip minimum size are sent uncompressed, see CompressingOutputStream. The bytes saved and the
+ * compression time are counted per route, see getCompressionStatistics.
+ *
+ * The request body is never buffered here, it streams through to the message body reader, which detects the json encoding
+ * (UTF-8 by default) from the bytes.
  *
  * @author HLN Consulting, LLC
  */
@@ -59,6 +68,13 @@ import org.codehaus.jettison.json.JSONException;
 public class CoreInterceptor implements ReaderInterceptor, WriterInterceptor {
 
     private static final LogUtils logger = LogUtils.getLogger(CoreInterceptor.class);
+    // the default of 512 bytes inflates a large body in many small reads
+    private static final int GZIP_BUFFER_SIZE = 8192;
+    private static final String UNMATCHED_ROUTE = "unmatched";
+    private static final ConcurrentMap<String, CompressionStatistics> COMPRESSION_STATISTICS = new ConcurrentHashMap<String, CompressionStatistics>();
+    private final int gzipMinimumSize;
+    private final int gzipLevel;
+    private final int gzipBufferSize;
 
     @Context
     private ResourceInfo resourceInfo;
@@ -66,22 +82,80 @@ public class CoreInterceptor implements ReaderInterceptor, WriterInterceptor {
     @Context
     private HttpServletRequest httpServletRequest;
 
+    /**
+     * Used by the container for the scanned provider - the response compression follows the CoreConfiguration GZIP_MINIMUM_SIZE,
+     * GZIP_LEVEL and GZIP_BUFFER_SIZE settings.
+     */
+    public CoreInterceptor() {
+        this(CoreConfiguration.getGzipMinimumSize(), CoreConfiguration.getGzipLevel(), CoreConfiguration.getGzipBufferSize());
+    }
+
+    /**
+     * Register an instance to set the response compression other than through CoreConfiguration.
+     *
+     * @param gzipMinimumSize the smallest response in bytes that is compressed, 0 compresses every non empty response
+     * @param gzipLevel the deflater level, 1 (fastest) to 9 (smallest) or -1 for the default
+     * @param gzipBufferSize the deflater output buffer size in bytes
+     */
+    public CoreInterceptor(int gzipMinimumSize, int gzipLevel, int gzipBufferSize) {
+        if (gzipLevel < Deflater.DEFAULT_COMPRESSION || gzipLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("gzipLevel must be -1 or between 0 and 9: " + gzipLevel);
+        }
+        if (gzipBufferSize <= 0) {
+            throw new IllegalArgumentException("gzipBufferSize must be positive: " + gzipBufferSize);
+        }
+        this.gzipMinimumSize = Math.max(gzipMinimumSize, 0);
+        this.gzipLevel = gzipLevel;
+        this.gzipBufferSize = gzipBufferSize;
+    }
+
     @Override
     public void aroundWriteTo(WriterInterceptorContext writerInterceptorContext) throws IOException, WebApplicationException {
         final String METHODNAME = "aroundWriteTo ";
 
         //
         // This checks the header to see if the requestor wants a gzipped response
-        // If so, the response is gzipped and return with content-encoding for the caller to unzip
+        // If so, a response of at least gzipMinimumSize bytes is gzipped and returned with content-encoding for the caller to unzip
         //
         String acceptEncoding = httpServletRequest.getHeader("accept-encoding");
 //        logger.debug(METHODNAME, "acceptEncoding=", acceptEncoding);
         if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
-            final OutputStream outputStream = writerInterceptorContext.getOutputStream();
-            writerInterceptorContext.setOutputStream(new GZIPOutputStream(outputStream));
-            writerInterceptorContext.getHeaders().putSingle("Content-Encoding", "gzip");
+            writerInterceptorContext.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            CompressingOutputStream compressingOutputStream = new CompressingOutputStream(writerInterceptorContext.getOutputStream(),
+                    writerInterceptorContext.getHeaders(), gzipMinimumSize, gzipLevel, gzipBufferSize, getCompressionStatistics(getRoute()));
+            writerInterceptorContext.setOutputStream(compressingOutputStream);
+            writerInterceptorContext.proceed();
+            compressingOutputStream.finish();
+        } else {
+            writerInterceptorContext.proceed();
+        }
+    }
+
+    /**
+     *
+     * @return the compression counters by route - resource class and method
+     */
+    public static Map<String, CompressionStatistics> getCompressionStatistics() {
+        return Collections.unmodifiableMap(COMPRESSION_STATISTICS);
+    }
+
+    private static CompressionStatistics getCompressionStatistics(String route) {
+        CompressionStatistics compressionStatistics = COMPRESSION_STATISTICS.get(route);
+        if (compressionStatistics == null) {
+            CompressionStatistics newStatistics = new CompressionStatistics();
+            compressionStatistics = COMPRESSION_STATISTICS.putIfAbsent(route, newStatistics);
+            if (compressionStatistics == null) {
+                compressionStatistics = newStatistics;
+            }
         }
-        writerInterceptorContext.proceed();
+        return compressionStatistics;
+    }
+
+    private String getRoute() {
+        if (resourceInfo != null && resourceInfo.getResourceClass() != null && resourceInfo.getResourceMethod() != null) {
+            return resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName();
+        }
+        return UNMATCHED_ROUTE;
     }
 
     @Override
@@ -96,11 +170,12 @@ public class CoreInterceptor implements ReaderInterceptor, WriterInterceptor {
         // If the request header indicates that context-encoding gziped, its decompressed
         if (contentEncoding != null && contentEncoding.contains("gzip")) {
 //            logger.debug(METHODNAME, "context decompressed");
-            readerInterceptorContext.setInputStream(new GZIPInputStream(readerInterceptorContext.getInputStream()));
+            readerInterceptorContext.setInputStream(new GZIPInputStream(readerInterceptorContext.getInputStream(), GZIP_BUFFER_SIZE));
         }
 
-        StringBuffer requestURL = httpServletRequest.getRequestURL();
-        logger.debug(METHODNAME, "requestURL=", requestURL);
+        if (logger.isDebugEnabled()) {
+            logger.debug(METHODNAME, "requestURL=", httpServletRequest.getRequestURL());
+        }
         String requestURI = httpServletRequest.getRequestURI();
 
         if (requestURI.contains(CoreRsConstants.GENERAL_RS_ROOT)) {
@@ -124,16 +199,12 @@ public class CoreInterceptor implements ReaderInterceptor, WriterInterceptor {
                     logger.debug(METHODNAME, "resourceName=", resourceName);
 
                     // For just the general rs service we need to parse out the resourceName from the path
+                    // The deserializer falls back to it when the json doesn't lead with a registered resourceName
+                    BaseDTODeserializer.setPathResourceName(resourceName);
                     try {
-                        String json = IOUtils.toString(readerInterceptorContext.getInputStream());
-                        //                    logger.debug(METHODNAME, "json=", json);
-                        // Add the resource to the json string for the deserializer
-                        json = ResourceUtil.addResourceName(resourceName, json);
-                        // Convert the entity back and store it
-                        InputStream inputStream = IOUtils.toInputStream(json);
-                        readerInterceptorContext.setInputStream(inputStream);
-                    } catch (JSONException ex) {
-                        logger.error(METHODNAME, ex);
+                        return readerInterceptorContext.proceed();
+                    } finally {
+                        BaseDTODeserializer.setPathResourceName(null);
                     }
                 }
             }
@@ -53,15 +53,27 @@ public class CoreJacksonJsonProvider implements ContextResolver<ObjectMapper> {
     
     protected static LogUtils logger = LogUtils.getLogger(CoreJacksonJsonProvider.class);
     private ObjectMapper defaultObjectMapper = null;
+    private boolean sharedObjectMapper;
 
     public CoreJacksonJsonProvider() {
         this(JsonInclude.Include.NON_NULL);
     }    
 
+    /**
+     * A CoreJacksonJsonProvider starts out with the shared mapper of the ObjectMapperRegistry, registerDTOs switches it to a copy.
+     * A subclass gets its own mapper from createObjectMapper.
+     *
+     * @param include the inclusion policy
+     */
     public CoreJacksonJsonProvider(JsonInclude.Include include) {
         final String METHODNAME = "constructor ";
         logger.info(METHODNAME);
-        defaultObjectMapper = createObjectMapper(include, null);
+        if (getClass() == CoreJacksonJsonProvider.class) {
+            defaultObjectMapper = ObjectMapperRegistry.getObjectMapper(include);
+            sharedObjectMapper = true;
+        } else {
+            defaultObjectMapper = createObjectMapper(include, null);
+        }
     }
     
     @Override
@@ -70,7 +82,18 @@ public class CoreJacksonJsonProvider implements ContextResolver<ObjectMapper> {
     }
 
     public ObjectMapper createObjectMapper(JsonInclude.Include jsonInclude, String[] ignorableFields) {
-        final String METHODNAME = "createObjectMapper ";
+        return newObjectMapper(jsonInclude, ignorableFields);
+    }
+
+    /**
+     * Creates a mapper configured for the DTOs, ObjectMapperRegistry holds the shared ones.
+     *
+     * @param jsonInclude the inclusion policy, null leaves the jackson default
+     * @param ignorableFields the fields to leave out or null
+     * @return a new mapper
+     */
+    public static ObjectMapper newObjectMapper(JsonInclude.Include jsonInclude, String[] ignorableFields) {
+        final String METHODNAME = "newObjectMapper ";
         logger.info(METHODNAME, "creating objectMapper for ", CoreJacksonJsonProvider.class.getCanonicalName());
 
         ObjectMapper objectMapper = new ObjectMapper();
@@ -127,6 +150,11 @@ public class CoreJacksonJsonProvider implements ContextResolver<ObjectMapper> {
             }
             SimpleModule simpleModule = new SimpleModule("PolymorphicDTODeserializerModule", new Version(1, 0, 0, null));
             simpleModule.addDeserializer(BaseDTO.class, deserializer);
+            if (sharedObjectMapper) {
+                // never reconfigure the mapper of the registry
+                defaultObjectMapper = defaultObjectMapper.copy();
+                sharedObjectMapper = false;
+            }
             defaultObjectMapper.registerModule(simpleModule);
         }
     }
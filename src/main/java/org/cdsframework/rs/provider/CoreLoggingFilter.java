@@ -26,7 +26,7 @@
  */
 package org.cdsframework.rs.provider;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.io.IOException;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
@@ -34,7 +34,6 @@ import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.container.ResourceInfo;
 import javax.ws.rs.core.Context;
-import org.cdsframework.rs.provider.CoreJacksonJsonProvider;
 import org.cdsframework.rs.utils.ResourceUtil;
 import org.cdsframework.util.LogUtils;
 
@@ -78,9 +77,7 @@ public class CoreLoggingFilter implements ContainerRequestFilter, ContainerRespo
         final String METHODNAME = "filter ";
         StringBuilder sb = new StringBuilder();
         sb.append("Header: ").append(responseContext.getHeaders());
-        CoreJacksonJsonProvider coreJacksonJsonProvider = new CoreJacksonJsonProvider();
-        ObjectMapper objectMapper = coreJacksonJsonProvider.getContext(ObjectMapper.class);
-        sb.append(" - Entity: ").append(objectMapper.writeValueAsString(responseContext.getEntity()));
+        sb.append(" - Entity: ").append(ObjectMapperRegistry.getWriter(JsonInclude.Include.NON_NULL).writeValueAsString(responseContext.getEntity()));
         sb.append(" - Entity: ").append(responseContext.getEntity());
         logger.info(METHODNAME, "HTTP RESPONSE=", sb.toString());
     }
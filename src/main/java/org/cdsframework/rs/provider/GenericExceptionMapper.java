@@ -54,13 +54,22 @@ public class GenericExceptionMapper implements ExceptionMapper<Throwable> {
         if (logger.isDebugEnabled()) {
             logger.debug(METHODNAME);
         }
-        ErrorMessage errorMessage = new ErrorMessage(ex, CoreConfiguration.isReturnStackTrace());
+        ErrorMessage errorMessage = getErrorMessage(ex);
+        return Response.status(errorMessage.getStatus()).entity(errorMessage).type(MediaType.APPLICATION_JSON).build();
+    }
 
+    /**
+     *
+     * @param ex
+     * @return the error message of the exception with the http status it maps to
+     */
+    public static ErrorMessage getErrorMessage(Throwable ex) {
+        ErrorMessage errorMessage = new ErrorMessage(ex, CoreConfiguration.isReturnStackTrace());
         setHttpStatus(ex, errorMessage);
-        return Response.status(errorMessage.getStatus()).entity(errorMessage).type(MediaType.APPLICATION_JSON).build();
+        return errorMessage;
     }
 
-    private void setHttpStatus(Throwable ex, ErrorMessage errorMessage) {
+    private static void setHttpStatus(Throwable ex, ErrorMessage errorMessage) {
         final String METHODNAME = "setHttpStatus ";
 
         if (ex != null) {
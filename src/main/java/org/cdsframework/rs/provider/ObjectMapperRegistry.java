@@ -0,0 +1,191 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.rs.provider;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Hands out shared ObjectMappers and the ObjectReaders and ObjectWriters derived from them.
+ *
+ * There is one mapper per inclusion policy and set of ignorable fields, configured as CoreJacksonJsonProvider.createObjectMapper
+ * does. The readers and writers are created once per type, which resolves their root deserializer or serializer up front, so the
+ * serializer caches of the mapper are reused by every caller. The mappers are shared and must not be reconfigured - copy one
+ * before registering modules or changing features.
+ *
+ * @author HLN Consulting, LLC
+ */
+public final class ObjectMapperRegistry {
+
+    private static final ConcurrentMap<MapperKey, MapperEntry> MAPPERS = new ConcurrentHashMap<MapperKey, MapperEntry>();
+    private static final ObjectMapper PLAIN_OBJECT_MAPPER = new ObjectMapper();
+
+    private ObjectMapperRegistry() {
+    }
+
+    /**
+     *
+     * @param jsonInclude the inclusion policy, null leaves the jackson default
+     * @param ignorableFields the fields to leave out or none
+     * @return the shared mapper
+     */
+    public static ObjectMapper getObjectMapper(JsonInclude.Include jsonInclude, String... ignorableFields) {
+        return getMapperEntry(jsonInclude, ignorableFields).objectMapper;
+    }
+
+    /**
+     *
+     * @return a shared mapper without the CoreJacksonJsonProvider configuration - for plain maps and values
+     */
+    public static ObjectMapper getPlainObjectMapper() {
+        return PLAIN_OBJECT_MAPPER;
+    }
+
+    /**
+     *
+     * @param jsonInclude the inclusion policy
+     * @return the shared writer of values of any type
+     */
+    public static ObjectWriter getWriter(JsonInclude.Include jsonInclude) {
+        return getWriter(Object.class, jsonInclude);
+    }
+
+    /**
+     *
+     * @param type the type written
+     * @param jsonInclude the inclusion policy
+     * @param ignorableFields the fields to leave out or none
+     * @return the shared writer of the type
+     */
+    public static ObjectWriter getWriter(Class<?> type, JsonInclude.Include jsonInclude, String... ignorableFields) {
+        MapperEntry mapperEntry = getMapperEntry(jsonInclude, ignorableFields);
+        ObjectWriter objectWriter = mapperEntry.writers.get(type);
+        if (objectWriter == null) {
+            ObjectWriter newWriter = type == Object.class ? mapperEntry.objectMapper.writer() : mapperEntry.objectMapper.writerFor(type);
+            objectWriter = mapperEntry.writers.putIfAbsent(type, newWriter);
+            if (objectWriter == null) {
+                objectWriter = newWriter;
+            }
+        }
+        return objectWriter;
+    }
+
+    /**
+     *
+     * @param type the type read
+     * @return the shared reader of the type, configured like the default CoreJacksonJsonProvider
+     */
+    public static ObjectReader getReader(Class<?> type) {
+        return getReader(type, JsonInclude.Include.NON_NULL);
+    }
+
+    /**
+     *
+     * @param type the type read
+     * @param jsonInclude the inclusion policy of the mapper
+     * @param ignorableFields the fields to leave out or none
+     * @return the shared reader of the type
+     */
+    public static ObjectReader getReader(Class<?> type, JsonInclude.Include jsonInclude, String... ignorableFields) {
+        MapperEntry mapperEntry = getMapperEntry(jsonInclude, ignorableFields);
+        ObjectReader objectReader = mapperEntry.readers.get(type);
+        if (objectReader == null) {
+            ObjectReader newReader = mapperEntry.objectMapper.readerFor(type);
+            objectReader = mapperEntry.readers.putIfAbsent(type, newReader);
+            if (objectReader == null) {
+                objectReader = newReader;
+            }
+        }
+        return objectReader;
+    }
+
+    private static MapperEntry getMapperEntry(JsonInclude.Include jsonInclude, String[] ignorableFields) {
+        MapperKey mapperKey = new MapperKey(jsonInclude, ignorableFields);
+        MapperEntry mapperEntry = MAPPERS.get(mapperKey);
+        if (mapperEntry == null) {
+            MapperEntry newEntry = new MapperEntry(CoreJacksonJsonProvider.newObjectMapper(jsonInclude,
+                    mapperKey.ignorableFields.isEmpty() ? null : mapperKey.ignorableFields.toArray(new String[0])));
+            mapperEntry = MAPPERS.putIfAbsent(mapperKey, newEntry);
+            if (mapperEntry == null) {
+                mapperEntry = newEntry;
+            }
+        }
+        return mapperEntry;
+    }
+
+    private static final class MapperEntry {
+
+        private final ObjectMapper objectMapper;
+        private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<Class<?>, ObjectWriter>();
+        private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<Class<?>, ObjectReader>();
+
+        private MapperEntry(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+    }
+
+    private static final class MapperKey {
+
+        private final JsonInclude.Include jsonInclude;
+        private final List<String> ignorableFields;
+
+        private MapperKey(JsonInclude.Include jsonInclude, String[] ignorableFields) {
+            this.jsonInclude = jsonInclude;
+            if (ignorableFields == null || ignorableFields.length == 0) {
+                this.ignorableFields = Collections.emptyList();
+            } else {
+                String[] sortedFields = ignorableFields.clone();
+                Arrays.sort(sortedFields);
+                this.ignorableFields = Arrays.asList(sortedFields);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof MapperKey)) {
+                return false;
+            }
+            MapperKey other = (MapperKey) obj;
+            return jsonInclude == other.jsonInclude && ignorableFields.equals(other.ignorableFields);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (jsonInclude == null ? 0 : jsonInclude.hashCode()) + ignorableFields.hashCode();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.rs.support;
+
+import java.io.Serializable;
+import javax.xml.bind.annotation.XmlTransient;
+import org.cdsframework.rs.exception.mapper.ErrorMessage;
+import org.cdsframework.rs.provider.GenericExceptionMapper;
+import org.cdsframework.rs.utils.CommonRsUtils;
+
+/**
+ * The outcome of one DTO of a bulk request (see CoreRsConstants.BULK_PATH).
+ *
+ * index is the position of the DTO in the request, status the http status its single save would have returned. A successful
+ * result carries the resource if RS_RETURN_RESOURCE was requested, a failed one the ErrorMessage of its exception.
+ *
+ * @author HLN Consulting, LLC
+ * @param <T> the DTO type of the bulk resource
+ */
+public class BulkResult<T> implements Serializable {
+
+    private static final long serialVersionUID = 4125843207716150952L;
+    private int index;
+    private Integer status;
+    private T resource;
+    private ErrorMessage errorMessage;
+
+    public BulkResult() {
+    }
+
+    /**
+     *
+     * @param <T>
+     * @param index position of the DTO in the request
+     * @param status http status of the save, CREATED for a new DTO, OK for an updated or deleted one
+     * @param resource the saved DTO or null
+     * @return
+     */
+    public static <T> BulkResult<T> success(int index, int status, T resource) {
+        BulkResult<T> bulkResult = new BulkResult<T>();
+        bulkResult.setIndex(index);
+        bulkResult.setStatus(status);
+        bulkResult.setResource(resource);
+        return bulkResult;
+    }
+
+    /**
+     *
+     * @param <T>
+     * @param index position of the DTO in the request
+     * @param throwable the exception the save of the DTO failed with
+     * @return a result with the error message and status the GenericExceptionMapper would have responded with
+     */
+    public static <T> BulkResult<T> failure(int index, Throwable throwable) {
+        BulkResult<T> bulkResult = new BulkResult<T>();
+        bulkResult.setIndex(index);
+        bulkResult.setErrorMessage(GenericExceptionMapper.getErrorMessage(throwable));
+        bulkResult.setStatus(bulkResult.getErrorMessage().getStatus());
+        return bulkResult;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public T getResource() {
+        return resource;
+    }
+
+    public void setResource(T resource) {
+        this.resource = resource;
+    }
+
+    public ErrorMessage getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(ErrorMessage errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    @XmlTransient
+    public boolean isSuccess() {
+        return errorMessage == null;
+    }
+
+    /**
+     *
+     * @return the exception of a failed result translated as CommonRsUtils.throwException does or null on success
+     */
+    @XmlTransient
+    public Exception getException() {
+        if (errorMessage == null) {
+            return null;
+        }
+        try {
+            CommonRsUtils.throwException(errorMessage);
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" + "index=" + index + ", status=" + status + ", resource=" + resource + ", errorMessage=" + errorMessage + '}';
+    }
+}
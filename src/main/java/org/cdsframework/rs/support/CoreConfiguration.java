@@ -49,6 +49,9 @@ public class CoreConfiguration {
     private static final boolean MTS_USE_REMOTE;
     private static final String ENVIRONMENT;
     private static final boolean GZIP_SUPPORT;
+    private static final int GZIP_MINIMUM_SIZE;
+    private static final int GZIP_LEVEL;
+    private static final int GZIP_BUFFER_SIZE;
     private static final boolean LOGGING_FILTER;
     private static final String BASE_RS_URI;
     private static final String RS_CONFIG_APP_CONTEXT;
@@ -77,6 +80,9 @@ public class CoreConfiguration {
         //JSON_INCLUDE = JsonInclude.Include.valueOf(INSTANCE_PROPERTIES.getProperty("JSON_INCLUDE", "NON_NULL"));
         JSON_INCLUDE = JsonInclude.Include.valueOf("NON_NULL");
         GZIP_SUPPORT = Boolean.parseBoolean(INSTANCE_PROPERTIES.getProperty("GZIP_SUPPORT", "true"));
+        GZIP_MINIMUM_SIZE = Integer.parseInt(INSTANCE_PROPERTIES.getProperty("GZIP_MINIMUM_SIZE", String.valueOf(CoreRsConstants.DEFAULT_GZIP_MINIMUM_SIZE)));
+        GZIP_LEVEL = Integer.parseInt(INSTANCE_PROPERTIES.getProperty("GZIP_LEVEL", String.valueOf(CoreRsConstants.DEFAULT_GZIP_LEVEL)));
+        GZIP_BUFFER_SIZE = Integer.parseInt(INSTANCE_PROPERTIES.getProperty("GZIP_BUFFER_SIZE", String.valueOf(CoreRsConstants.DEFAULT_GZIP_BUFFER_SIZE)));
         LOGGING_FILTER = Boolean.parseBoolean(INSTANCE_PROPERTIES.getProperty("LOGGING_FILTER", "true"));
         BASE_RS_URI = INSTANCE_PROPERTIES.getProperty("BASE_RS_URI", "");
         RS_CONFIG_APP_CONTEXT = INSTANCE_PROPERTIES.getProperty("RS_CONFIG_APP_CONTEXT", "");
@@ -92,6 +98,9 @@ public class CoreConfiguration {
         logger.info(METHODNAME, "ENVIRONMENT=", ENVIRONMENT);
         logger.info(METHODNAME, "LOGGING_FILTER=", LOGGING_FILTER);
         logger.info(METHODNAME, "GZIP_SUPPORT=", GZIP_SUPPORT);
+        logger.info(METHODNAME, "GZIP_MINIMUM_SIZE=", GZIP_MINIMUM_SIZE);
+        logger.info(METHODNAME, "GZIP_LEVEL=", GZIP_LEVEL);
+        logger.info(METHODNAME, "GZIP_BUFFER_SIZE=", GZIP_BUFFER_SIZE);
         logger.info(METHODNAME, "BASE_RS_URI=", BASE_RS_URI);
         logger.info(METHODNAME, "RS_CONFIG_APP_CONTEXT=", RS_CONFIG_APP_CONTEXT);
         logger.info(METHODNAME, "RS_CRUD_APP_CONTEXT=", RS_CRUD_APP_CONTEXT);
@@ -141,6 +150,18 @@ public class CoreConfiguration {
         return GZIP_SUPPORT;
     }
 
+    public static int getGzipMinimumSize() {
+        return GZIP_MINIMUM_SIZE;
+    }
+
+    public static int getGzipLevel() {
+        return GZIP_LEVEL;
+    }
+
+    public static int getGzipBufferSize() {
+        return GZIP_BUFFER_SIZE;
+    }
+
     public static boolean isLoggingFilter() {
         return LOGGING_FILTER;
     }
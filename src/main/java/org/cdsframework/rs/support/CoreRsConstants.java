@@ -26,6 +26,8 @@
  */
 package org.cdsframework.rs.support;
 
+import java.util.zip.Deflater;
+
 /**
  *
  * @author HLN Consulting, LLC
@@ -48,6 +50,22 @@ public class CoreRsConstants {
     public static final String QUERYPARMSESSION = "sessionId";
     public static final String QUERYPARMEXPAND = "expand";
     public static final String PATHPARMPRIMARYKEY = "primaryKey";
+    /*
+     * POST [resource/]bulk takes a json array of DTOs, saves each according to its DTOState and returns a json array of
+     * BulkResult in request order
+     */
+    public static final String BULK_PATH = "bulk";
+    /*
+     * POST [resource/]primaryKeys takes a json array of primary keys in their path form and returns a json array of the DTOs found
+     */
+    public static final String PRIMARY_KEYS_PATH = "primaryKeys";
+    /*
+     * The response compression defaults of CoreConfiguration GZIP_MINIMUM_SIZE, GZIP_LEVEL and GZIP_BUFFER_SIZE. Below about one
+     * packet gzip saves no round trip and its header and trailer can make the response larger.
+     */
+    public static final int DEFAULT_GZIP_MINIMUM_SIZE = 1024;
+    public static final int DEFAULT_GZIP_LEVEL = Deflater.DEFAULT_COMPRESSION;
+    public static final int DEFAULT_GZIP_BUFFER_SIZE = 8192;
     
 
     
@@ -31,9 +31,7 @@ import java.net.URLEncoder;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import javax.ws.rs.InternalServerErrorException;
 import org.cdsframework.rs.exception.mapper.ErrorMessage;
 import javax.ws.rs.ClientErrorException;
@@ -54,7 +52,8 @@ import org.cdsframework.util.StringUtils;
 import org.glassfish.jersey.message.internal.MessageBodyProviderNotFoundException;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.cdsframework.rs.provider.ObjectMapperRegistry;
 import java.security.GeneralSecurityException;
 import java.security.cert.X509Certificate;
 import javax.net.ssl.SSLContext;
@@ -93,6 +92,8 @@ import javax.net.ssl.X509TrustManager;
  */
 public class CommonRsUtils { 
     private static final LogUtils logger = LogUtils.getLogger(CommonRsUtils.class.getName());
+    private static final ObjectReader JSON_ENCODED_MAP_READER = ObjectMapperRegistry.getPlainObjectMapper().readerFor(Map.class)
+            .with(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
     
     public static void logException(Exception exception) {
         logger.info("calling logException ");
@@ -245,35 +246,38 @@ public class CommonRsUtils {
     * There are issues with this as well.
     * Does not support ArrayLists of parameters
     * The token used to delimit the filter will need to be escaped
+    *
+    * A string in the TypedParameterEncoding is decoded with its types, see getMapAsTypedEncodedString
     */
     public static Map<String, Object> getMapFromEncodedString(String encodedString) {
         final String METHODNAME = "getMapFromEncodedString ";
         if (logger.isDebugEnabled()) {
             logger.debug(METHODNAME, "encodedString=", encodedString);
         }
+        if (TypedParameterEncoding.isTypedEncoding(encodedString)) {
+            return TypedParameterEncoding.decode(encodedString);
+        }
         Map<String, Object> parameterMap = new HashMap<String, Object>();
         if (!StringUtils.isEmpty(encodedString)) {
-            // Handles escaped comma's, split on each ", " that is not preceeded by a backslash. negative lookahead
-            final String commaRegEx = "(?<!\\\\),";
-            final String equalRegEx = "(?<!\\\\)=";
-            List<String> encodedStrings = Arrays.asList(encodedString.split(commaRegEx));
             long start = System.nanoTime();
-            for (String encString : encodedStrings) {
-                String[] nameValuePair = encString.split(equalRegEx, 2); // Just split at the first "=" and the rest must be the parameter.
-                if (logger.isDebugEnabled()) {
-                    logger.debug(METHODNAME, "nameValuePair=", Arrays.asList(nameValuePair));
-                }
-                String key = null;
-                String value = null;
-                if (nameValuePair.length > 0) {
-                    key = nameValuePair[0].trim();
-                }
-                if (nameValuePair.length > 1) {
-                    // Strip any escape charaters
-                    value = nameValuePair[1].replace("\\", "");
-                }
-                if (value != null) {
-                    parameterMap.put(key, value);
+            // Split on each "," and the first "=" of an entry that are not preceded by a backslash
+            int entryStart = 0;
+            int equalIndex = -1;
+            int length = encodedString.length();
+            for (int i = 0; i <= length; i++) {
+                char c = i < length ? encodedString.charAt(i) : ',';
+                boolean escaped = i > 0 && encodedString.charAt(i - 1) == '\\';
+                if (c == '=' && equalIndex < 0 && !escaped) {
+                    equalIndex = i;
+                } else if (c == ',' && (i == length || !escaped)) {
+                    if (equalIndex >= 0) {
+                        String key = encodedString.substring(entryStart, equalIndex).trim();
+                        // Strip any escape charaters
+                        String value = encodedString.substring(equalIndex + 1, i).replace("\\", "");
+                        parameterMap.put(key, value);
+                    }
+                    entryStart = i + 1;
+                    equalIndex = -1;
                 }
             }
             logger.logDuration(LogLevel.DEBUG, METHODNAME, start);                                                                            
@@ -285,29 +289,34 @@ public class CommonRsUtils {
         final String METHODNAME = "getMapAsEncodedString ";
         String encodedString = "";
         if (parameterMap != null && !parameterMap.isEmpty()) {
-            Set<Map.Entry<String, Object>> entrySet = parameterMap.entrySet();
-            for (Map.Entry<String, Object> entry : entrySet) {
+            StringBuilder builder = new StringBuilder(parameterMap.size() * 16);
+            for (Map.Entry<String, Object> entry : parameterMap.entrySet()) {
                 String key = entry.getKey();
                 Object oValue = entry.getValue();
                 if (oValue != null) {
                     if (urlEncode) {
                         key = URLEncoder.encode(key);
                     }
-                    encodedString += key;
-                    String sValue = "";
+                    String sValue;
                     if (oValue instanceof Date) {
                         sValue = DateUtils.getFormattedDate((Date) oValue, DateUtils.ISO8601_DATETIME_FORMAT);
                         //sValue = DateUtils.getFormattedDate((Date) oValue, DateUtils.ISO8601_UTC_DATETIME);
                     } else {
-                        sValue = oValue.toString().replaceAll("\\,", "\\\\,");
+                        sValue = oValue.toString();
+                        if (sValue.indexOf(',') >= 0) {
+                            sValue = sValue.replace(",", "\\,");
+                        }
                     }
                     if (urlEncode) {
                         sValue = URLEncoder.encode(sValue);
                     }
-                    encodedString += "=" + sValue + ",";
+                    if (builder.length() > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(key).append('=').append(sValue);
                 }
             }
-            encodedString = encodedString.substring(0, encodedString.length() - 1);
+            encodedString = builder.toString();
         }
         if (logger.isDebugEnabled()) {
             logger.debug(METHODNAME, "encodedString=", encodedString);
@@ -315,6 +324,17 @@ public class CommonRsUtils {
         return encodedString;
     }
 
+    /**
+     * Encodes the map in the TypedParameterEncoding so the values keep their types, i.e. a Long filter value is decoded as a
+     * Long rather than a String. Only send it to a service built with this version of getMapFromEncodedString.
+     *
+     * @param parameterMap
+     * @return the typed encoded string
+     */
+    public static String getMapAsTypedEncodedString(Map<String, Object> parameterMap) {
+        return TypedParameterEncoding.encode(parameterMap);
+    }
+
     //
     // FYI These are only used for a one off getReport call to support an Arrays
     // Eventually this will be corrected and rolled into a call that supports both
@@ -332,9 +352,8 @@ public class CommonRsUtils {
     
     public static String getMapAsJsonEncodedString(Map<String, Object> parameterMap, boolean base64Encode) {
         
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            byte[] json = mapper.writeValueAsBytes(parameterMap);
+            byte[] json = ObjectMapperRegistry.getPlainObjectMapper().writeValueAsBytes(parameterMap);
             if (base64Encode) {
                 return Base64.encodeBase64URLSafeString(json);
             } else {
@@ -347,9 +366,7 @@ public class CommonRsUtils {
 
     @SuppressWarnings("unchecked")
     public static Map<String, Object> getMapFromJsonEncodedString(String encoded) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.configure(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS, true);
-        Map<String, Object> parameters = mapper.readValue(Base64.decodeBase64(encoded), Map.class);
+        Map<String, Object> parameters = JSON_ENCODED_MAP_READER.readValue(Base64.decodeBase64(encoded));
         // Need to walk the map converting integer types to Longs because we're stuck with Jackson 2.5 due to Glassfish
         // Jackson 2.6 has an option to do it directly
         // TODO: put date conversion here as well
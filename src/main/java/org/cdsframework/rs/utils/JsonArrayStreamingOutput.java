@@ -0,0 +1,103 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.rs.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import org.cdsframework.enumeration.LogLevel;
+import org.cdsframework.util.LogUtils;
+
+/**
+ * Writes the elements of an iterator as a JSON array one element at a time.
+ *
+ * A resource that returns the output instead of a List never holds the serialized list in memory - the container sends the
+ * array with chunked transfer encoding as it is written. The array has the same shape as a serialized List so RSClient
+ * findByQueryList and findByQueryStream read either.
+ *
+ * @author HLN Consulting, LLC
+ */
+public class JsonArrayStreamingOutput implements StreamingOutput {
+
+    private static final LogUtils logger = LogUtils.getLogger(JsonArrayStreamingOutput.class);
+    private static final int DEFAULT_FLUSH_INTERVAL = 100;
+    private final ObjectWriter objectWriter;
+    private final Iterator<?> iterator;
+    private final int flushInterval;
+
+    /**
+     *
+     * @param objectMapper the object mapper of the resource, i.e. CoreJacksonJsonProvider.getContext
+     * @param iterator the elements to write
+     */
+    public JsonArrayStreamingOutput(ObjectMapper objectMapper, Iterator<?> iterator) {
+        this(objectMapper, iterator, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    /**
+     *
+     * @param objectMapper the object mapper of the resource, i.e. CoreJacksonJsonProvider.getContext
+     * @param iterator the elements to write
+     * @param flushInterval the number of elements written between flushes
+     */
+    public JsonArrayStreamingOutput(ObjectMapper objectMapper, Iterator<?> iterator, int flushInterval) {
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.iterator = iterator;
+        this.flushInterval = flushInterval > 0 ? flushInterval : DEFAULT_FLUSH_INTERVAL;
+    }
+
+    @Override
+    public void write(OutputStream outputStream) throws IOException, WebApplicationException {
+        final String METHODNAME = "write ";
+        long start = System.nanoTime();
+        JsonGenerator jsonGenerator = objectWriter.getFactory().createGenerator(outputStream);
+        jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        int count = 0;
+        try {
+            jsonGenerator.writeStartArray();
+            while (iterator.hasNext()) {
+                objectWriter.writeValue(jsonGenerator, iterator.next());
+                if (++count % flushInterval == 0) {
+                    jsonGenerator.flush();
+                }
+            }
+            jsonGenerator.writeEndArray();
+        } finally {
+            jsonGenerator.close();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(METHODNAME, "count=", count);
+            logger.logDuration(LogLevel.DEBUG, METHODNAME, start);
+        }
+    }
+}
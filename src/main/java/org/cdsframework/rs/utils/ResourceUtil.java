@@ -29,6 +29,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import javax.ws.rs.container.ContainerRequestContext;
 import org.cdsframework.rs.provider.BaseDTODeserializer;
 import org.cdsframework.rs.support.CoreRsConstants;
@@ -64,6 +65,17 @@ public class ResourceUtil {
         return resourceName;
     }
 
+    /**
+     * Adds the resource name to a json object.
+     *
+     * @param resourceName
+     * @param json
+     * @return the json with the resource name, an array is returned unchanged
+     * @throws JSONException
+     * @deprecated BaseDTODeserializer resolves the request body from the resource of the request path, the body no longer
+     * has to carry the resource name.
+     */
+    @Deprecated
     public static String addResourceName(String resourceName, String json) throws JSONException {
         final String METHODNAME = "addResourceName ";
         logger.debug(METHODNAME, "resourceName=", resourceName);
@@ -91,7 +103,7 @@ public class ResourceUtil {
             if (requestEntity.length == 0) {
                 b.append("").append("\n");
             } else {
-                b.append(new String(requestEntity)).append("\n");
+                b.append(new String(requestEntity, StandardCharsets.UTF_8)).append("\n");
             }
             requestContext.setEntityStream(new ByteArrayInputStream(requestEntity));
 
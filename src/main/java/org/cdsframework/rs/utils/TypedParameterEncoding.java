@@ -0,0 +1,293 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.rs.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.codec.binary.Base64;
+import org.cdsframework.rs.provider.ObjectMapperRegistry;
+
+/**
+ * The typed encoding of the filter and property query parameters.
+ *
+ * An encoded map is the VERSION_PREFIX followed by a base64url (no padding) json object. Strings, booleans, Longs and Doubles are
+ * plain json values, lists and arrays are json arrays. The other types are a one field object naming the type:
+ * {"$i":1} Integer, {"$s":1} Short, {"$b":1} Byte, {"$f":1.5} Float, {"$bi":"1"} BigInteger, {"$bd":"1.50"} BigDecimal,
+ * {"$d":1450000000000} Date in epoch milliseconds and {"$m":{...}} a nested map. Any other value is encoded as its toString,
+ * like the legacy encoding does.
+ *
+ * The legacy key=value encoding never starts with the prefix, so CommonRsUtils.getMapFromEncodedString tells the formats apart
+ * and the server accepts both. Decoding is a single pass over the json tokens.
+ *
+ * @author HLN Consulting, LLC
+ */
+public final class TypedParameterEncoding {
+
+    /**
+     * Marks version 1 of the typed encoding - the characters are unreserved in a query string.
+     */
+    public static final String VERSION_PREFIX = "~1.";
+    private static final String INTEGER = "$i";
+    private static final String SHORT = "$s";
+    private static final String BYTE = "$b";
+    private static final String FLOAT = "$f";
+    private static final String BIG_INTEGER = "$bi";
+    private static final String BIG_DECIMAL = "$bd";
+    private static final String DATE = "$d";
+    private static final String MAP = "$m";
+    private static final JsonFactory JSON_FACTORY = ObjectMapperRegistry.getPlainObjectMapper().getFactory();
+
+    private TypedParameterEncoding() {
+    }
+
+    /**
+     *
+     * @param encodedString
+     * @return whether the string is in the typed encoding
+     */
+    public static boolean isTypedEncoding(String encodedString) {
+        return encodedString != null && encodedString.startsWith(VERSION_PREFIX);
+    }
+
+    /**
+     * Encodes the map, null values are left out as in the legacy encoding.
+     *
+     * @param parameterMap
+     * @return the encoded map or an empty string if the map is null or empty
+     */
+    public static String encode(Map<String, Object> parameterMap) {
+        final String METHODNAME = "encode ";
+        if (parameterMap == null || parameterMap.isEmpty()) {
+            return "";
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(128);
+        try {
+            JsonGenerator generator = JSON_FACTORY.createGenerator(outputStream);
+            try {
+                writeMap(generator, parameterMap);
+            } finally {
+                generator.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(METHODNAME + "An IOException has occurred; Message: " + e.getMessage(), e);
+        }
+        return VERSION_PREFIX + Base64.encodeBase64URLSafeString(outputStream.toByteArray());
+    }
+
+    /**
+     *
+     * @param encodedString a string starting with the VERSION_PREFIX
+     * @return the decoded map
+     */
+    public static Map<String, Object> decode(String encodedString) {
+        final String METHODNAME = "decode ";
+        if (!isTypedEncoding(encodedString)) {
+            throw new IllegalArgumentException(METHODNAME + "the parameter string isn't in the typed encoding");
+        }
+        byte[] json = Base64.decodeBase64(encodedString.substring(VERSION_PREFIX.length()));
+        try {
+            JsonParser parser = JSON_FACTORY.createParser(json);
+            try {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException(METHODNAME + "the typed parameters aren't a json object");
+                }
+                Map<String, Object> parameterMap = new HashMap<String, Object>();
+                readFields(parser, parameterMap);
+                return parameterMap;
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(METHODNAME + "An IOException has occurred; Message: " + e.getMessage(), e);
+        }
+    }
+
+    private static void writeMap(JsonGenerator generator, Map<?, ?> map) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                generator.writeFieldName(entry.getKey().toString());
+                writeValue(generator, entry.getValue());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean((Boolean) value);
+        } else if (value instanceof Long) {
+            generator.writeNumber((Long) value);
+        } else if (value instanceof Double) {
+            generator.writeNumber((Double) value);
+        } else if (value instanceof Integer) {
+            writeTyped(generator, INTEGER).writeNumber((Integer) value);
+            generator.writeEndObject();
+        } else if (value instanceof Short) {
+            writeTyped(generator, SHORT).writeNumber((Short) value);
+            generator.writeEndObject();
+        } else if (value instanceof Byte) {
+            writeTyped(generator, BYTE).writeNumber((Byte) value);
+            generator.writeEndObject();
+        } else if (value instanceof Float) {
+            writeTyped(generator, FLOAT).writeNumber((Float) value);
+            generator.writeEndObject();
+        } else if (value instanceof BigInteger) {
+            writeTyped(generator, BIG_INTEGER).writeString(value.toString());
+            generator.writeEndObject();
+        } else if (value instanceof BigDecimal) {
+            writeTyped(generator, BIG_DECIMAL).writeString(value.toString());
+            generator.writeEndObject();
+        } else if (value instanceof Date) {
+            writeTyped(generator, DATE).writeNumber(((Date) value).getTime());
+            generator.writeEndObject();
+        } else if (value instanceof Map) {
+            writeTyped(generator, MAP);
+            writeMap(generator, (Map<?, ?>) value);
+            generator.writeEndObject();
+        } else if (value instanceof Collection) {
+            generator.writeStartArray();
+            for (Object item : (Collection<?>) value) {
+                writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof Object[]) {
+            generator.writeStartArray();
+            for (Object item : (Object[]) value) {
+                writeValue(generator, item);
+            }
+            generator.writeEndArray();
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+
+    private static JsonGenerator writeTyped(JsonGenerator generator, String type) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(type);
+        return generator;
+    }
+
+    /*
+     * Reads the fields of the current object up to and including its END_OBJECT.
+     */
+    private static void readFields(JsonParser parser, Map<String, Object> map) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            map.put(name, readValue(parser));
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new IllegalArgumentException("decode unexpected token " + parser.currentToken());
+        }
+    }
+
+    private static Object readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            throw new IllegalArgumentException("decode unexpected end of the typed parameters");
+        }
+        switch (token) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? parser.getBigIntegerValue() : parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case START_ARRAY:
+                List<Object> list = new ArrayList<Object>();
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    list.add(readValue(parser));
+                }
+                return list;
+            case START_OBJECT:
+                return readTyped(parser);
+            default:
+                throw new IllegalArgumentException("decode unexpected token " + token);
+        }
+    }
+
+    private static Object readTyped(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            throw new IllegalArgumentException("decode a typed value has no type");
+        }
+        String type = parser.getCurrentName();
+        parser.nextToken();
+        Object value;
+        if (INTEGER.equals(type)) {
+            value = parser.getIntValue();
+        } else if (SHORT.equals(type)) {
+            value = parser.getShortValue();
+        } else if (BYTE.equals(type)) {
+            value = parser.getByteValue();
+        } else if (FLOAT.equals(type)) {
+            value = parser.getFloatValue();
+        } else if (BIG_INTEGER.equals(type)) {
+            value = new BigInteger(parser.getText());
+        } else if (BIG_DECIMAL.equals(type)) {
+            value = new BigDecimal(parser.getText());
+        } else if (DATE.equals(type)) {
+            value = new Date(parser.getLongValue());
+        } else if (MAP.equals(type)) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("decode a typed map isn't a json object");
+            }
+            Map<String, Object> map = new LinkedHashMap<String, Object>();
+            readFields(parser, map);
+            value = map;
+        } else {
+            throw new IllegalArgumentException("decode unknown type " + type);
+        }
+        if (parser.nextToken() != JsonToken.END_OBJECT) {
+            throw new IllegalArgumentException("decode a typed value has more than one field");
+        }
+        return value;
+    }
+}
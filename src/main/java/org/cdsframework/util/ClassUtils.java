@@ -38,10 +38,12 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import javax.xml.bind.annotation.XmlRootElement;
@@ -60,7 +62,7 @@ public class ClassUtils {
     private final static String sep = System.getProperty("file.separator");
     private final static List<String> DECLARED_FIELD_IGNORE_PATTERNS = Arrays.asList(new String[]{"ajc$tjp", "$switch_table", "serialversionuid"});
 
-    private static Map<String, Class<? extends BaseDTO>> dtoClassMap = null;
+    private static volatile Map<String, Class<? extends BaseDTO>> dtoClassMap = null;
     
     /**
      * Returns a class from a string.
@@ -87,7 +89,7 @@ public class ClassUtils {
         }
     }
     
-    private static final Map<String, Class> dtoQueryClassMap = new HashMap<String, Class>();
+    private static final Map<String, Class> dtoQueryClassMap = new ConcurrentHashMap<String, Class>();
     
 
     /**
@@ -453,21 +455,22 @@ public class ClassUtils {
         final String METHODNAME = "getDtoClassMap ";
         
         if (dtoClassMap == null) {
-            dtoClassMap = new HashMap<String, Class<? extends BaseDTO>>();
+            // build the map locally and publish it once it is complete
+            Map<String, Class<? extends BaseDTO>> classMap = new HashMap<String, Class<? extends BaseDTO>>();
             Class[] classes = getClassesFromClasspath("org.cdsframework.dto");
             for (Class cls : classes) {
                 if (BaseDTO.class.isAssignableFrom(cls)) {
                     logger.info(METHODNAME, "cls.getSimpleName()=", cls.getSimpleName(), " cls.getCanonicalName()=", cls.getCanonicalName());
                     String key = cls.getSimpleName();
-                    if (!dtoClassMap.containsKey(key)) {
-                        dtoClassMap.put(key, cls);
+                    if (!classMap.containsKey(key)) {
+                        classMap.put(key, cls);
                     }
                     else {
                         logger.error(METHODNAME, "The class SimpleName " + key + " already exists");
                     }
                     key = cls.getCanonicalName();
-                    if (!dtoClassMap.containsKey(key)) {
-                        dtoClassMap.put(key, cls);
+                    if (!classMap.containsKey(key)) {
+                        classMap.put(key, cls);
                     }
                     else {
                         logger.error(METHODNAME, "The class CanonicalName " + key + " already exists");
@@ -476,8 +479,8 @@ public class ClassUtils {
                     // Get XmlRootElement
                     key = getXmlRootElementName(cls);
                     if (key != null) {
-                        if (!dtoClassMap.containsKey(key)) {
-                            dtoClassMap.put(key, cls);
+                        if (!classMap.containsKey(key)) {
+                            classMap.put(key, cls);
                         }
                         else {
                             logger.error(METHODNAME, "The class xmlRootElement name " + key + " already exists");
@@ -486,8 +489,8 @@ public class ClassUtils {
 
                     // Pluralized resource
                     key = ClassUtils.getResourceName(cls);
-                    if (!dtoClassMap.containsKey(key)) {
-                        dtoClassMap.put(key, cls);
+                    if (!classMap.containsKey(key)) {
+                        classMap.put(key, cls);
                     }
                     else {
                         logger.error(METHODNAME, "The class resource name " + key + " already exists");
@@ -497,6 +500,7 @@ public class ClassUtils {
                     logger.warn("Found a class in the org.cdsframework.dto package that does not extend BaseDTO: ", cls.getSimpleName());
                 }
             }
+            dtoClassMap = Collections.unmodifiableMap(classMap);
         }
         return dtoClassMap;
     }
@@ -0,0 +1,157 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.util;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Provides the immutable value of a multi field primary key.
+ *
+ * A CompositeKey is a read only Map of primary key field name to value so existing callers that treat a composite primary key as a
+ * Map keep working. Equality and the hash code follow the Map contract - a CompositeKey equals a HashMap with the same entries. The
+ * hash code is computed once. The values are captured when the key is extracted from the DTO.
+ *
+ * @author HLN Consulting, LLC
+ */
+public final class CompositeKey extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = -3325190178734211834L;
+    private final String[] names;
+    private final Object[] values;
+    private transient int hash;
+    private transient Set<Map.Entry<String, Object>> entrySet;
+
+    /**
+     * Creates a key from parallel arrays of field names and values. The arrays are not copied and must not be modified afterwards.
+     *
+     * @param names
+     * @param values
+     */
+    CompositeKey(String[] names, Object[] values) {
+        if (names.length != values.length) {
+            throw new IllegalArgumentException("names and values size mismatch: " + names.length + " - " + values.length);
+        }
+        this.names = names;
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) != -1;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        return index != -1 ? values[index] : null;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        Set<Map.Entry<String, Object>> result = entrySet;
+        if (result == null) {
+            result = new AbstractSet<Map.Entry<String, Object>>() {
+                @Override
+                public Iterator<Map.Entry<String, Object>> iterator() {
+                    return new Iterator<Map.Entry<String, Object>>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < names.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Object> next() {
+                            if (index >= names.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<String, Object>(names[index], values[index]);
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return names.length;
+                }
+            };
+            entrySet = result;
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            // same as AbstractMap - the sum of the entry hash codes
+            for (int i = 0; i < names.length; i++) {
+                result += names[i].hashCode() ^ (values[i] != null ? values[i].hashCode() : 0);
+            }
+            hash = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o instanceof CompositeKey) {
+            CompositeKey other = (CompositeKey) o;
+            if (Arrays.equals(names, other.names)) {
+                return Arrays.equals(values, other.values);
+            }
+        }
+        return super.equals(o);
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.enumeration.DatabaseType;
+import org.cdsframework.enumeration.LogLevel;
+import org.cdsframework.enumeration.Operation;
+import org.cdsframework.exceptions.MtsException;
+
+/**
+ * Binds the insert, update or delete DML of a DTOTable to JDBC statements.
+ *
+ * The plan is compiled once per DTOTable and operation - see DTOTable.getBindPlan. The named parameters of the DML are replaced by
+ * positional parameters and each one is resolved to the DTOProperty and Column that supply its value, so binding a DTO needs no
+ * name lookups. Values are converted through DTOProperty.getDataValue and original_ parameters are bound to the original value of
+ * the property. executeBatch binds a list of DTOs into JDBC batches so many rows are written per round trip.
+ *
+ * A plan of a multi-row statement - see DTOTable.getMultiRowInsertBindPlan - binds rowCount DTOs per statement. The FIND plan of
+ * DTOTable.getSelectByPrimaryKeysBindPlan binds the primary keys of up to rowCount DTOs the same way - the last DTO is bound again
+ * for the remaining keys, which doesn't change the rows selected.
+ *
+ * @author HLN Consulting, LLC
+ */
+public final class DTOBindPlan {
+
+    private static final LogUtils logger = LogUtils.getLogger(DTOBindPlan.class);
+    private final Operation operation;
+    private final int rowCount;
+    private final String namedSql;
+    private final String sql;
+    private final List<String> parameterNames;
+    private final BindParameter[] parameters;
+
+    DTOBindPlan(DTOTable dtoTable, Operation operation, String namedSql, int rowCount) {
+        final String METHODNAME = "DTOBindPlan ";
+        this.operation = operation;
+        this.rowCount = rowCount;
+        this.namedSql = namedSql;
+        List<String> names = new ArrayList<String>();
+        List<BindParameter> bindParameters = new ArrayList<BindParameter>();
+        StringBuilder sqlBuilder = new StringBuilder(namedSql.length());
+        int position = 0;
+        while (position < namedSql.length()) {
+            char c = namedSql.charAt(position);
+            if (c == ':' && position + 1 < namedSql.length() && isNameChar(namedSql.charAt(position + 1))) {
+                int end = position + 1;
+                while (end < namedSql.length() && isNameChar(namedSql.charAt(end))) {
+                    end++;
+                }
+                String parameterName = namedSql.substring(position + 1, end);
+                names.add(parameterName);
+                bindParameters.add(new BindParameter(dtoTable, parameterName));
+                sqlBuilder.append('?');
+                position = end;
+            } else {
+                sqlBuilder.append(c);
+                position++;
+            }
+        }
+        this.sql = sqlBuilder.toString();
+        this.parameterNames = Collections.unmodifiableList(names);
+        this.parameters = bindParameters.toArray(new BindParameter[bindParameters.size()]);
+        if (parameters.length % rowCount != 0) {
+            throw new IllegalStateException("The parameter count " + parameters.length + " isn't a multiple of the row count " + rowCount);
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(METHODNAME, dtoTable.getDtoClass().getSimpleName(), " ", operation, " sql=", sql, " parameterNames=", parameterNames);
+        }
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the number of DTOs bound per statement.
+     *
+     * @return the row count.
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the DML with named parameters as DTOTable builds it.
+     *
+     * @return the named DML.
+     */
+    public String getNamedSql() {
+        return namedSql;
+    }
+
+    /**
+     * Returns the DML with positional parameters.
+     *
+     * @return the positional DML.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the parameter names in positional order.
+     *
+     * @return the parameter names.
+     */
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    /**
+     * Returns the database values of the DTO in positional order.
+     *
+     * @param dto
+     * @param databaseType
+     * @return the parameter values.
+     * @throws MtsException
+     */
+    public Object[] getParameterValues(BaseDTO dto, DatabaseType databaseType) throws MtsException {
+        return getParameterValues(Collections.singletonList(dto), databaseType);
+    }
+
+    /**
+     * Returns the database values of rowCount DTOs - up to rowCount for a FIND plan - in positional order.
+     *
+     * @param dtos
+     * @param databaseType
+     * @return the parameter values.
+     * @throws MtsException
+     */
+    public Object[] getParameterValues(List<? extends BaseDTO> dtos, DatabaseType databaseType) throws MtsException {
+        checkRowCount(dtos.size());
+        int rowParameterCount = parameters.length / rowCount;
+        Object[] values = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            values[i] = parameters[i].getValue(dtos.get(Math.min(i / rowParameterCount, dtos.size() - 1)), databaseType);
+        }
+        return values;
+    }
+
+    private void checkRowCount(int dtoCount) {
+        if (dtoCount != rowCount && (operation != Operation.FIND || dtoCount < 1 || dtoCount > rowCount)) {
+            throw new IllegalArgumentException("The plan binds " + rowCount + " DTOs per statement - received " + dtoCount);
+        }
+    }
+
+    /**
+     * Binds the DTO to the positional parameters of the statement.
+     *
+     * @param statement a statement prepared from getSql.
+     * @param dto
+     * @param databaseType
+     * @throws SQLException
+     * @throws MtsException
+     */
+    public void bind(PreparedStatement statement, BaseDTO dto, DatabaseType databaseType) throws SQLException, MtsException {
+        bind(statement, Collections.singletonList(dto), 0, databaseType);
+    }
+
+    /**
+     * Binds rowCount DTOs - up to rowCount for a FIND plan - to the positional parameters of the statement.
+     *
+     * @param statement a statement prepared from getSql.
+     * @param dtos
+     * @param databaseType
+     * @throws SQLException
+     * @throws MtsException
+     */
+    public void bind(PreparedStatement statement, List<? extends BaseDTO> dtos, DatabaseType databaseType)
+            throws SQLException, MtsException {
+        checkRowCount(dtos.size());
+        bind(statement, dtos, 0, databaseType);
+    }
+
+    private void bind(PreparedStatement statement, List<? extends BaseDTO> dtos, int fromIndex, DatabaseType databaseType)
+            throws SQLException, MtsException {
+        int rowParameterCount = parameters.length / rowCount;
+        for (int i = 0; i < parameters.length; i++) {
+            BindParameter parameter = parameters[i];
+            Object value = parameter.getValue(dtos.get(Math.min(fromIndex + i / rowParameterCount, dtos.size() - 1)), databaseType);
+            if (value == null) {
+                statement.setNull(i + 1, parameter.getSqlType(databaseType));
+            } else {
+                statement.setObject(i + 1, value);
+            }
+        }
+    }
+
+    /**
+     * Binds the DTOs into JDBC batches and executes them. Each batch entry binds rowCount DTOs so the number of DTOs must be a
+     * multiple of rowCount.
+     *
+     * @param connection
+     * @param dtos
+     * @param databaseType
+     * @param batchSize the number of batch entries per batch - all DTOs are sent in one batch if less than 1.
+     * @return the update counts of the batch entries.
+     * @throws SQLException
+     * @throws MtsException
+     */
+    public int[] executeBatch(Connection connection, List<? extends BaseDTO> dtos, DatabaseType databaseType, int batchSize)
+            throws SQLException, MtsException {
+        final String METHODNAME = "executeBatch ";
+        long start = System.nanoTime();
+        if (dtos.size() % rowCount != 0) {
+            throw new IllegalArgumentException("The plan binds " + rowCount + " DTOs per statement - received " + dtos.size());
+        }
+        int[] updateCounts = new int[dtos.size() / rowCount];
+        int executed = 0;
+        PreparedStatement statement = connection.prepareStatement(sql);
+        try {
+            int batched = 0;
+            for (int fromIndex = 0; fromIndex < dtos.size(); fromIndex += rowCount) {
+                bind(statement, dtos, fromIndex, databaseType);
+                statement.addBatch();
+                batched++;
+                if (batched == batchSize) {
+                    executed = copyUpdateCounts(statement.executeBatch(), updateCounts, executed);
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                executed = copyUpdateCounts(statement.executeBatch(), updateCounts, executed);
+            }
+        } finally {
+            statement.close();
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(METHODNAME, operation, " dtos=", dtos.size(), " batchSize=", batchSize);
+            logger.logDuration(LogLevel.DEBUG, METHODNAME, start);
+        }
+        return executed == updateCounts.length ? updateCounts : Arrays.copyOf(updateCounts, executed);
+    }
+
+    private static int copyUpdateCounts(int[] batchUpdateCounts, int[] updateCounts, int executed) {
+        int length = Math.min(batchUpdateCounts.length, updateCounts.length - executed);
+        System.arraycopy(batchUpdateCounts, 0, updateCounts, executed, length);
+        return executed + length;
+    }
+
+    @Override
+    public String toString() {
+        return "DTOBindPlan{" + "operation=" + operation + ", rowCount=" + rowCount + ", sql=" + sql + ", parameterNames=" + parameterNames + '}';
+    }
+
+    /*
+     * A positional parameter - original_ parameters read the original value of the column.
+     */
+    private static final class BindParameter {
+
+        private final boolean original;
+        private final DTOColumnValue columnValue;
+
+        BindParameter(DTOTable dtoTable, String name) {
+            this.original = name.startsWith(DTOTable.ORIGINAL_PREFIX);
+            this.columnValue = new DTOColumnValue(dtoTable, original ? name.substring(DTOTable.ORIGINAL_PREFIX.length()) : name);
+        }
+
+        Object getValue(BaseDTO dto, DatabaseType databaseType) throws MtsException {
+            return columnValue.getValue(dto, databaseType, original);
+        }
+
+        int getSqlType(DatabaseType databaseType) {
+            return columnValue.getSqlType(databaseType);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.cdsframework.annotation.Column;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.enumeration.DatabaseType;
+import org.cdsframework.enumeration.FieldType;
+import org.cdsframework.exceptions.MtsException;
+import org.cdsframework.util.support.CorePropertyChangeEvent;
+
+/**
+ * Reads the database value of a DTOTable column from a DTO.
+ *
+ * A column can be mapped by more than one property - a reference DTO that is also a foreign key - in which case the first non
+ * null value is returned, starting with the property whose column the DML was built from.
+ *
+ * @author HLN Consulting, LLC
+ */
+final class DTOColumnValue {
+
+    private final String columnName;
+    private final DTOProperty[] properties;
+    private final Column[] columns;
+    private final FieldType fieldType;
+
+    DTOColumnValue(DTOTable dtoTable, String columnName) {
+        this.columnName = columnName;
+        Column dmlColumn = dtoTable.getColumnMap().get(columnName);
+        List<DTOProperty> propertyList = new ArrayList<DTOProperty>();
+        List<Column> columnList = new ArrayList<Column>();
+        for (DTOProperty dtoProperty : dtoTable.getDtoPropertyMap().values()) {
+            for (Column column : dtoProperty.getColumns()) {
+                if (column.name().equals(columnName)) {
+                    int index = column == dmlColumn ? 0 : propertyList.size();
+                    propertyList.add(index, dtoProperty);
+                    columnList.add(index, column);
+                    break;
+                }
+            }
+        }
+        if (propertyList.isEmpty()) {
+            throw new IllegalArgumentException("The column " + columnName + " does not map to a property of "
+                    + dtoTable.getDtoClass().getCanonicalName());
+        }
+        this.properties = propertyList.toArray(new DTOProperty[propertyList.size()]);
+        this.columns = columnList.toArray(new Column[columnList.size()]);
+        this.fieldType = getLeafFieldType(properties[0], columnName);
+    }
+
+    private static FieldType getLeafFieldType(DTOProperty dtoProperty, String columnName) {
+        if (dtoProperty.getFieldType() == FieldType.BaseDTO) {
+            for (DTOProperty baseDTOProperty : dtoProperty.getBaseDTOProperties()) {
+                for (Column baseDTOColumn : baseDTOProperty.getColumns()) {
+                    if (baseDTOColumn.name().equals(columnName)) {
+                        return getLeafFieldType(baseDTOProperty, columnName);
+                    }
+                }
+            }
+        }
+        return dtoProperty.getFieldType();
+    }
+
+    String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * Returns the database value of the column converted through DTOProperty.getDataValue. A java.util.Date is returned as a
+     * Timestamp.
+     *
+     * @param dto
+     * @param databaseType
+     * @param original whether to read the original value of a changed property.
+     * @return the database value.
+     * @throws MtsException
+     */
+    Object getValue(BaseDTO dto, DatabaseType databaseType, boolean original) throws MtsException {
+        try {
+            for (int i = 0; i < properties.length; i++) {
+                Field field = properties[i].getField();
+                Object dtoValue = original ? getOriginalValue(dto, field) : field.get(dto);
+                Object dbValue = properties[i].getDataValue(columns[i], databaseType, dtoValue);
+                // a reference DTO without a property for the column has no database value
+                if (dbValue != null && !(dbValue instanceof BaseDTO)) {
+                    if (dbValue instanceof Date && !(dbValue instanceof java.sql.Date) && !(dbValue instanceof Timestamp)) {
+                        dbValue = new Timestamp(((Date) dbValue).getTime());
+                    }
+                    return dbValue;
+                }
+            }
+            return null;
+        } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            throw new MtsException("An " + e.getClass().getSimpleName() + " has occurred reading " + columnName + "; Message: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private static Object getOriginalValue(BaseDTO dto, Field field) throws IllegalAccessException {
+        CorePropertyChangeEvent propertyChangeEvent = dto.getPropertyChangeEvent(field.getName());
+        if (propertyChangeEvent != null) {
+            return propertyChangeEvent.getOldValue();
+        }
+        return field.get(dto);
+    }
+
+    /**
+     * Returns the java.sql.Types type used to bind a null value.
+     *
+     * @param databaseType
+     * @return the SQL type.
+     */
+    int getSqlType(DatabaseType databaseType) {
+        if (fieldType == null) {
+            return Types.NULL;
+        }
+        switch (fieldType) {
+            case Boolean:
+                return databaseType == DatabaseType.ORACLE || columns[0].resultSetClass() == String.class ? Types.VARCHAR : Types.BOOLEAN;
+            case String:
+            case Class:
+            case Enumeration:
+                return Types.VARCHAR;
+            case Date:
+            case Timestamp:
+                return Types.TIMESTAMP;
+            case Long:
+                return Types.BIGINT;
+            case Integer:
+                return Types.INTEGER;
+            case Float:
+                return Types.REAL;
+            case Double:
+                return Types.DOUBLE;
+            case BigDecimal:
+                return Types.NUMERIC;
+            case Byte:
+                return Types.TINYINT;
+            case ByteArray:
+                return Types.VARBINARY;
+            default:
+                return Types.NULL;
+        }
+    }
+}
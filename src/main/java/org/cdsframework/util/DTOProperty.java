@@ -31,12 +31,13 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.cdsframework.annotation.Column;
 import org.cdsframework.annotation.EnumAccess;
 import org.cdsframework.base.BaseDTO;
+import org.cdsframework.base.ChildDTOList;
 import org.cdsframework.enumeration.DatabaseType;
 import org.cdsframework.enumeration.FieldType;
 import org.cdsframework.enumeration.LogLevel;
@@ -51,6 +52,8 @@ import org.cdsframework.group.DateTime;
 public class DTOProperty {
 
     private final static LogUtils logger = LogUtils.getLogger(DTOProperty.class);
+    private final static Map<Field, Method> enumSetterMap = new ConcurrentHashMap<Field, Method>();
+    private final static Map<Field, Method> enumGetterMap = new ConcurrentHashMap<Field, Method>();
     private Field field;
     private Field parentField;
     private FieldType fieldType;
@@ -59,7 +62,8 @@ public class DTOProperty {
     private Column[] columns;
     private Method enumGetter;
     private Method enumSetter;
-    private Map<Object, Object> dtoValueMap = new HashMap<Object, Object>();
+    private final Map<Object, Object> dtoValueMap = new ConcurrentHashMap<Object, Object>();
+    private final Map<Object, Object> dbValueMap = new ConcurrentHashMap<Object, Object>();
     private int dtoValueMatchCount = 0;
 
     public DTOProperty(Field field, Column[] columns) {
@@ -232,19 +236,52 @@ public class DTOProperty {
                     break;
                 */
                 default:
-                    dtoValue = getDataValue(field, fieldType, enumSetter, dbValue, dto);
+                    dtoValue = getDtoValue(dbValue);
             }
         }
         if (dtoValue != null) {
             field.set(dto, dtoValue);
+            ChildDTOList.primaryKeyChanged(dto, field.getName());
         }
 
     }
-    
+
+    /**
+     * Converts a non null database value of a property that isn't a BaseDTO to its DTO value. Used by setDataValue and
+     * DTORowMapper.
+     *
+     * @param dbValue
+     * @return the DTO value.
+     */
+    Object getDtoValue(Object dbValue)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException, MtsException, NotFoundException {
+        Object dtoValue;
+        if (fieldType == FieldType.Enumeration) {
+            // Save the invoke call if the dbValue is cached
+            dtoValue = dbValueMap.get(dbValue);
+            if (dtoValue == null) {
+                dtoValue = convertDataValue(field, fieldType, enumSetter, dbValue);
+                if (dtoValue != null) {
+                    dbValueMap.put(dbValue, dtoValue);
+                }
+            }
+        } else {
+            dtoValue = convertDataValue(field, fieldType, enumSetter, dbValue);
+        }
+        return dtoValue;
+    }
+
     public static Object getDataValue(Field field, FieldType fieldType, Method enumSetter, Object value, BaseDTO dto)
             throws IllegalAccessException, IllegalArgumentException, InvocationTargetException, InstantiationException, MtsException, NotFoundException {
         final String METHODNAME = "getDataValue ";
-        logger.debug(METHODNAME, "field=", field, " value=", value, " value.getClass().getCanonicalName()=", value.getClass().getCanonicalName(), " FieldType=", fieldType);
+        if (logger.isDebugEnabled()) {
+            logger.debug(METHODNAME, "field=", field, " value=", value, " value.getClass().getCanonicalName()=", value != null ? value.getClass().getCanonicalName() : null, " FieldType=", fieldType);
+        }
+        return convertDataValue(field, fieldType, enumSetter, value);
+    }
+
+    private static Object convertDataValue(Field field, FieldType fieldType, Method enumSetter, Object value)
+            throws IllegalAccessException, IllegalArgumentException, InvocationTargetException, MtsException, NotFoundException {
         Object dtoValue = value;
         if (value != null) {
             switch (fieldType) {
@@ -300,9 +337,12 @@ public class DTOProperty {
 
     public static Method getEnumSetter(Field field) {
         final String METHODNAME = "getEnumSetter ";
+        Method enumSetter = enumSetterMap.get(field);
+        if (enumSetter != null) {
+            return enumSetter;
+        }
         EnumAccess enumAccess = field.getAnnotation(EnumAccess.class);
         String setter = "valueOf";
-        Method enumSetter = null;
         if (enumAccess != null) {
             setter = enumAccess.setter();
         }
@@ -318,14 +358,20 @@ public class DTOProperty {
         } catch (SecurityException ex) {
             logger.error(METHODNAME, "A ", ex.getClass().getSimpleName(), " has occurred; Message: ", ex.getMessage(), ex);
         }
+        if (enumSetter != null) {
+            enumSetterMap.put(field, enumSetter);
+        }
         return enumSetter;
     }
     
     public static Method getEnumGetter(Field field) {
         final String METHODNAME = "getEnumGetter ";
+        Method enumGetter = enumGetterMap.get(field);
+        if (enumGetter != null) {
+            return enumGetter;
+        }
         EnumAccess enumAccess = field.getAnnotation(EnumAccess.class);
         String getter = "toString";
-        Method enumGetter = null;
         if (enumAccess != null) {
             getter = enumAccess.getter();
         }
@@ -341,6 +387,9 @@ public class DTOProperty {
         } catch (SecurityException ex) {
             logger.error(METHODNAME, "A ", ex.getClass().getSimpleName(), " has occurred; Message: ", ex.getMessage(), ex);
         }
+        if (enumGetter != null) {
+            enumGetterMap.put(field, enumGetter);
+        }
         return enumGetter;
     }
     
@@ -381,7 +430,9 @@ public class DTOProperty {
                     dbValue = dtoValueMap.get(dtoValue);
                     if (dbValue == null) {
                         dbValue = getEnumGetter().invoke(dtoValue);
-                        dtoValueMap.put(dtoValue, dbValue);
+                        if (dbValue != null) {
+                            dtoValueMap.put(dtoValue, dbValue);
+                        }
                     }
                     break;
                 case Date:
@@ -406,6 +457,8 @@ public class DTOProperty {
                 .append(fieldType != null ? fieldType : "")
                 .append("; dtoValueMap=")
                 .append(dtoValueMap.toString())
+                .append("; dbValueMap=")
+                .append(dbValueMap.toString())
                 .append("}")).toString();
     }
     
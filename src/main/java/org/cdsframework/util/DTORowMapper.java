@@ -0,0 +1,313 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.util;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import org.cdsframework.annotation.Column;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.base.ChildDTOList;
+import org.cdsframework.enumeration.FieldType;
+import org.cdsframework.exceptions.MtsException;
+import org.cdsframework.exceptions.NotFoundException;
+
+/**
+ * Maps the rows of a result set to DTOs.
+ *
+ * The mapper is compiled once per DTOTable and result set column order - see DTOTable.getRowMapper. Each result set column is
+ * resolved to the DTOProperty path it sets, including the primary key property of a reference DTO, so mapping a row reads the
+ * columns by index and sets the fields without name lookups. The values are converted and set as DTOProperty.setDataValue does:
+ * null values leave the field untouched and the DTOState is left to the caller.
+ *
+ * @param <T> the DTO type.
+ * @author HLN Consulting, LLC
+ */
+public final class DTORowMapper<T extends BaseDTO> {
+
+    private static final LogUtils logger = LogUtils.getLogger(DTORowMapper.class);
+    private final Class<T> dtoClass;
+    private final Constructor<T> constructor;
+    // one step per mapped column/property pair ordered by column index
+    private final int[] columnIndexes;
+    private final DTOProperty[][] propertyPaths;
+    private final Constructor<? extends BaseDTO>[][] referenceConstructors;
+    private final List<String> unmappedColumns;
+
+    DTORowMapper(DTOTable dtoTable, ResultSetMetaData metaData) throws SQLException {
+        final String METHODNAME = "DTORowMapper ";
+        this.dtoClass = (Class<T>) dtoTable.getDtoClass();
+        this.constructor = getConstructor(dtoClass);
+
+        Map<String, List<DTOProperty[]>> columnPathMap = new TreeMap<String, List<DTOProperty[]>>(String.CASE_INSENSITIVE_ORDER);
+        for (DTOProperty dtoProperty : dtoTable.getDtoPropertyMap().values()) {
+            for (Column column : dtoProperty.getColumns()) {
+                List<DTOProperty[]> paths = columnPathMap.get(column.name());
+                if (paths == null) {
+                    paths = new ArrayList<DTOProperty[]>();
+                    columnPathMap.put(column.name(), paths);
+                }
+                paths.add(getPropertyPath(dtoProperty, column.name()));
+            }
+        }
+
+        List<Integer> indexes = new ArrayList<Integer>();
+        List<DTOProperty[]> paths = new ArrayList<DTOProperty[]>();
+        List<String> unmapped = new ArrayList<String>();
+        int columnCount = metaData.getColumnCount();
+        for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
+            String columnLabel = getColumnLabel(metaData, columnIndex);
+            List<DTOProperty[]> columnPaths = columnPathMap.get(columnLabel);
+            if (columnPaths == null) {
+                unmapped.add(columnLabel);
+            } else {
+                for (DTOProperty[] columnPath : columnPaths) {
+                    indexes.add(columnIndex);
+                    paths.add(columnPath);
+                }
+            }
+        }
+        this.unmappedColumns = Collections.unmodifiableList(unmapped);
+        this.columnIndexes = new int[indexes.size()];
+        this.propertyPaths = paths.toArray(new DTOProperty[paths.size()][]);
+        this.referenceConstructors = new Constructor[paths.size()][];
+        for (int step = 0; step < columnIndexes.length; step++) {
+            columnIndexes[step] = indexes.get(step);
+            DTOProperty[] propertyPath = propertyPaths[step];
+            referenceConstructors[step] = new Constructor[propertyPath.length];
+            for (int level = 0; level < propertyPath.length; level++) {
+                if (propertyPath[level].getFieldType() == FieldType.BaseDTO) {
+                    referenceConstructors[step][level] = getConstructor(
+                            (Class<? extends BaseDTO>) propertyPath[level].getField().getType());
+                }
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug(METHODNAME, dtoClass.getSimpleName(), " mapped steps=", columnIndexes.length, " unmappedColumns=", unmappedColumns);
+        }
+    }
+
+    /*
+     * Follows a reference DTO property down to the property of the reference DTO that owns the column - the path ends with the
+     * reference DTO property if none does, in which case only the reference DTO is instantiated as setDataValue does.
+     */
+    private static DTOProperty[] getPropertyPath(DTOProperty dtoProperty, String columnName) {
+        List<DTOProperty> path = new ArrayList<DTOProperty>();
+        DTOProperty current = dtoProperty;
+        while (current != null) {
+            path.add(current);
+            DTOProperty next = null;
+            if (current.getFieldType() == FieldType.BaseDTO) {
+                for (DTOProperty baseDTOProperty : current.getBaseDTOProperties()) {
+                    for (Column baseDTOColumn : baseDTOProperty.getColumns()) {
+                        if (baseDTOColumn.name().equals(columnName)) {
+                            next = baseDTOProperty;
+                            break;
+                        }
+                    }
+                    if (next != null) {
+                        break;
+                    }
+                }
+            }
+            current = next;
+        }
+        return path.toArray(new DTOProperty[path.size()]);
+    }
+
+    private static String getColumnLabel(ResultSetMetaData metaData, int columnIndex) throws SQLException {
+        String columnLabel = metaData.getColumnLabel(columnIndex);
+        if (StringUtils.isEmpty(columnLabel)) {
+            columnLabel = metaData.getColumnName(columnIndex);
+        }
+        return columnLabel;
+    }
+
+    private static <S extends BaseDTO> Constructor<S> getConstructor(Class<S> dtoClass) {
+        try {
+            Constructor<S> dtoConstructor = dtoClass.getDeclaredConstructor();
+            dtoConstructor.setAccessible(true);
+            return dtoConstructor;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(dtoClass.getCanonicalName() + " does not have a no argument constructor", e);
+        }
+    }
+
+    /**
+     * Maps the current row of the result set to a new DTO.
+     *
+     * @param resultSet positioned on the row.
+     * @return the DTO.
+     * @throws SQLException
+     * @throws MtsException
+     */
+    public T mapRow(ResultSet resultSet) throws SQLException, MtsException {
+        T dto = newInstance(constructor);
+        setValues(resultSet, dto, false);
+        return dto;
+    }
+
+    /**
+     * Maps the current row of the result set onto an existing DTO.
+     *
+     * @param resultSet positioned on the row.
+     * @param dto
+     * @throws SQLException
+     * @throws MtsException
+     */
+    public void mapRow(ResultSet resultSet, T dto) throws SQLException, MtsException {
+        setValues(resultSet, dto, true);
+    }
+
+    /**
+     * Maps the remaining rows of the result set.
+     *
+     * @param resultSet
+     * @return the DTOs.
+     * @throws SQLException
+     * @throws MtsException
+     */
+    public List<T> mapRows(ResultSet resultSet) throws SQLException, MtsException {
+        List<T> dtos = new ArrayList<T>();
+        while (resultSet.next()) {
+            dtos.add(mapRow(resultSet));
+        }
+        return dtos;
+    }
+
+    /**
+     * Maps the remaining rows of the result set one at a time and passes each DTO to the consumer so a large result set is never
+     * held in memory.
+     *
+     * @param resultSet
+     * @param consumer
+     * @return the number of rows mapped.
+     * @throws SQLException
+     * @throws MtsException
+     */
+    public long forEachRow(ResultSet resultSet, Consumer<? super T> consumer) throws SQLException, MtsException {
+        long rowCount = 0;
+        while (resultSet.next()) {
+            consumer.accept(mapRow(resultSet));
+            rowCount++;
+        }
+        return rowCount;
+    }
+
+    public Class<T> getDtoClass() {
+        return dtoClass;
+    }
+
+    /**
+     * Returns the result set columns that don't map to a property of the DTO.
+     *
+     * @return the column labels.
+     */
+    public List<String> getUnmappedColumns() {
+        return unmappedColumns;
+    }
+
+    private void setValues(ResultSet resultSet, T dto, boolean existingDTO) throws SQLException, MtsException {
+        int readColumnIndex = 0;
+        Object dbValue = null;
+        try {
+            for (int step = 0; step < columnIndexes.length; step++) {
+                if (columnIndexes[step] != readColumnIndex) {
+                    readColumnIndex = columnIndexes[step];
+                    dbValue = resultSet.getObject(readColumnIndex);
+                }
+                if (dbValue != null) {
+                    setValue(propertyPaths[step], referenceConstructors[step], dbValue, dto, existingDTO);
+                }
+            }
+        } catch (IllegalAccessException | InstantiationException | InvocationTargetException | NotFoundException e) {
+            throw new MtsException("An " + e.getClass().getSimpleName() + " has occurred mapping "
+                    + dtoClass.getSimpleName() + "; Message: " + e.getMessage(), e);
+        }
+    }
+
+    private static void setValue(DTOProperty[] propertyPath, Constructor<? extends BaseDTO>[] constructors, Object dbValue,
+            BaseDTO dto, boolean existingDTO)
+            throws IllegalAccessException, InstantiationException, InvocationTargetException, MtsException, NotFoundException {
+        BaseDTO target = dto;
+        boolean existingTarget = existingDTO;
+        for (int level = 0; level < propertyPath.length; level++) {
+            DTOProperty dtoProperty = propertyPath[level];
+            Field field = dtoProperty.getField();
+            if (constructors[level] != null) {
+                BaseDTO referenceDTO = (BaseDTO) field.get(target);
+                boolean existingReference = referenceDTO != null;
+                if (!existingReference) {
+                    referenceDTO = constructors[level].newInstance();
+                }
+                field.set(target, referenceDTO);
+                reportPrimaryKeyChange(target, field, existingTarget);
+                target = referenceDTO;
+                existingTarget = existingReference;
+            } else {
+                Object dtoValue = dtoProperty.getDtoValue(dbValue);
+                if (dtoValue != null) {
+                    field.set(target, dtoValue);
+                    reportPrimaryKeyChange(target, field, existingTarget);
+                }
+            }
+        }
+    }
+
+    /*
+     * A DTO instantiated by the mapper can't be indexed by a ChildDTOList yet.
+     */
+    private static void reportPrimaryKeyChange(BaseDTO dto, Field field, boolean existingDTO) {
+        if (existingDTO) {
+            ChildDTOList.primaryKeyChanged(dto, field.getName());
+        }
+    }
+
+    private static <S extends BaseDTO> S newInstance(Constructor<S> dtoConstructor) throws MtsException {
+        try {
+            return dtoConstructor.newInstance();
+        } catch (IllegalAccessException | InstantiationException | InvocationTargetException e) {
+            throw new MtsException("An " + e.getClass().getSimpleName() + " has occurred instantiating "
+                    + dtoConstructor.getDeclaringClass().getSimpleName() + "; Message: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "DTORowMapper{" + "dtoClass=" + dtoClass.getCanonicalName() + ", steps=" + columnIndexes.length
+                + ", unmappedColumns=" + unmappedColumns + '}';
+    }
+}
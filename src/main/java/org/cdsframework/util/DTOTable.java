@@ -28,11 +28,14 @@ package org.cdsframework.util;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import org.cdsframework.annotation.Audit;
 import org.cdsframework.annotation.Column;
 import org.cdsframework.annotation.ColumnSubstitutions;
@@ -44,8 +47,10 @@ import org.cdsframework.annotation.Table;
 import org.cdsframework.base.BaseDTO;
 import org.cdsframework.dto.AuditLogDTO;
 import org.cdsframework.dto.AuditTransactionDTO;
+import org.cdsframework.enumeration.DatabaseType;
 import org.cdsframework.enumeration.GenerationSource;
 import org.cdsframework.enumeration.LogLevel;
+import org.cdsframework.enumeration.Operation;
 import org.cdsframework.group.None;
 
 /**
@@ -62,6 +67,18 @@ public class DTOTable {
     private List<Field> primaryKeyFields = null;
     private boolean primaryKeyExists;
     public static final String ORIGINAL_PREFIX = "original_";
+    /**
+     * The most primary keys a select by primary keys binds - the Oracle IN list limit.
+     */
+    public static final int MAX_SELECT_PRIMARY_KEYS = 1000;
+    /**
+     * The most rows a multi-row insert binds - the SQL Server VALUES list limit.
+     */
+    public static final int MAX_MULTI_ROW_INSERT_ROWS = 1000;
+    /**
+     * The most parameters - columns times rows - a multi-row insert binds, below the 2100 parameters of SQL Server.
+     */
+    public static final int MAX_MULTI_ROW_INSERT_PARAMETERS = 2000;
     private final Map<Class, List<DTOProperty>> parentForeignKeyMap = new HashMap<Class, List<DTOProperty>>();
     private final Map<Class, String> parentForeignKeyDmlMap = new HashMap<Class, String>();
     private boolean parentForeignKeysExists;
@@ -74,6 +91,12 @@ public class DTOTable {
     private String selectByPrimaryKeyDML;
     private String orderBy;
     private String tableAlias;
+    private List<String> insertColumnNames;
+    private List<String> updateColumnNames;
+    private List<String> primaryKeyColumnNames;
+    private final Map<String, DTOBindPlan> bindPlanMap = new ConcurrentHashMap<String, DTOBindPlan>();
+    private final Map<String, KeysetPagination> keysetPaginationMap = new ConcurrentHashMap<String, KeysetPagination>();
+    private final Map<String, DTORowMapper> rowMapperMap = new ConcurrentHashMap<String, DTORowMapper>();
 
     public DTOTable(Class<? extends BaseDTO> dtoClass) {
         this.dtoClass = dtoClass;
@@ -196,6 +219,9 @@ public class DTOTable {
 
         insertDML = "INSERT INTO " + table.name() + " ( " + insertColumns + " ) values ( " + insertBindColumns + " )";
         logger.debug(METHODNAME, "insertDML=" + insertDML);
+        insertColumnNames = insertableColumns;
+        updateColumnNames = updateableColumns;
+        primaryKeyColumnNames = primaryKeyColumns;
 
         // Update, Delete, SelectByPrimaryKey DML
         if (primaryKeyExists) {
@@ -659,4 +685,340 @@ public class DTOTable {
         return parentForeignKeyDmlMap;
     }
 
+    Map<String, Column> getColumnMap() {
+        return columnMap;
+    }
+
+    List<String> getPrimaryKeyColumnNames() {
+        return primaryKeyColumnNames;
+    }
+
+    /**
+     * Returns the keyset pagination of the sort field. The pagination is compiled on first use.
+     *
+     * @param sortField a key of the sort field order by map or null to sort by the primary key.
+     * @param descending
+     * @param databaseType
+     * @return the keyset pagination.
+     */
+    public KeysetPagination getKeysetPagination(String sortField, boolean descending, DatabaseType databaseType) {
+        String key = sortField + "." + descending + "." + databaseType;
+        KeysetPagination keysetPagination = keysetPaginationMap.get(key);
+        if (keysetPagination == null) {
+            keysetPagination = new KeysetPagination(this, sortField, descending, databaseType);
+            KeysetPagination existing = keysetPaginationMap.putIfAbsent(key, keysetPagination);
+            if (existing != null) {
+                keysetPagination = existing;
+            }
+        }
+        return keysetPagination;
+    }
+
+    /**
+     * Returns the bind plan of the insert, update or delete DML. The plan is compiled on first use.
+     *
+     * @param operation ADD, UPDATE or DELETE.
+     * @return the bind plan.
+     */
+    public DTOBindPlan getBindPlan(Operation operation) {
+        DTOBindPlan bindPlan = bindPlanMap.get(operation.toString());
+        if (bindPlan == null) {
+            String dml;
+            switch (operation) {
+                case ADD:
+                    dml = insertDML;
+                    break;
+                case UPDATE:
+                    dml = updateDML;
+                    break;
+                case DELETE:
+                    dml = deleteDML;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported bind plan operation: " + operation);
+            }
+            if (dml == null) {
+                throw new IllegalStateException(dtoClass.getCanonicalName() + " has no " + operation + " DML - the primary key is missing");
+            }
+            bindPlan = putBindPlan(operation.toString(), new DTOBindPlan(this, operation, dml, 1));
+        }
+        return bindPlan;
+    }
+
+    /**
+     * Returns the bind plan of the multi-row insert DML. An insert can't repeat a row, so the plan binds exactly rowCount DTOs. The
+     * plans of a power of two rows and of getMaxMultiRowInsertRows rows are compiled on first use and kept, so a DTOTable keeps a
+     * handful of plans per DatabaseType. Any other row count is compiled per call - split larger batches into those sizes.
+     *
+     * @param databaseType
+     * @param rowCount
+     * @return the bind plan.
+     * @throws IllegalArgumentException if rowCount is less than 1 or more than getMaxMultiRowInsertRows.
+     */
+    public DTOBindPlan getMultiRowInsertBindPlan(DatabaseType databaseType, int rowCount) {
+        checkMultiRowInsertRowCount(rowCount);
+        if (Integer.bitCount(rowCount) != 1 && rowCount != getMaxMultiRowInsertRows()) {
+            return new DTOBindPlan(this, Operation.ADD, getMultiRowInsertDML(databaseType, rowCount), rowCount);
+        }
+        String key = Operation.ADD + "." + databaseType + "." + rowCount;
+        DTOBindPlan bindPlan = bindPlanMap.get(key);
+        if (bindPlan == null) {
+            bindPlan = putBindPlan(key, new DTOBindPlan(this, Operation.ADD, getMultiRowInsertDML(databaseType, rowCount), rowCount));
+        }
+        return bindPlan;
+    }
+
+    /**
+     * Returns the most rows a multi-row insert of this table binds - MAX_MULTI_ROW_INSERT_PARAMETERS divided by the insert columns,
+     * at most MAX_MULTI_ROW_INSERT_ROWS.
+     *
+     * @return the most rows of a multi-row insert.
+     */
+    public int getMaxMultiRowInsertRows() {
+        int columnCount = Math.max(1, insertColumnNames.size());
+        return Math.max(1, Math.min(MAX_MULTI_ROW_INSERT_ROWS, MAX_MULTI_ROW_INSERT_PARAMETERS / columnCount));
+    }
+
+    private void checkMultiRowInsertRowCount(int rowCount) {
+        int maxRows = getMaxMultiRowInsertRows();
+        if (rowCount < 1 || rowCount > maxRows) {
+            throw new IllegalArgumentException("rowCount must be between 1 and " + maxRows + " for " + insertColumnNames.size()
+                    + " insert columns: " + rowCount);
+        }
+    }
+
+    /**
+     * Returns the bind plan of the upsert DML. The plan is compiled on first use and its operation is CUSTOM_SAVE.
+     *
+     * @param databaseType
+     * @return the bind plan.
+     */
+    public DTOBindPlan getUpsertBindPlan(DatabaseType databaseType) {
+        String key = Operation.CUSTOM_SAVE + "." + databaseType;
+        DTOBindPlan bindPlan = bindPlanMap.get(key);
+        if (bindPlan == null) {
+            bindPlan = putBindPlan(key, new DTOBindPlan(this, Operation.CUSTOM_SAVE, getUpsertDML(databaseType), 1));
+        }
+        return bindPlan;
+    }
+
+    /**
+     * Returns the bind plan of the select by primary keys DML for up to keyCount keys. The plan is compiled on first use and its
+     * operation is FIND. The key count is rounded up to a power of two - at most MAX_SELECT_PRIMARY_KEYS - so a DTOTable keeps a
+     * handful of plans. The plan binds up to getRowCount DTOs and binds the last one again for the rest of the keys.
+     *
+     * @param keyCount
+     * @return the bind plan.
+     * @throws IllegalArgumentException if keyCount is less than 1 or more than MAX_SELECT_PRIMARY_KEYS.
+     */
+    public DTOBindPlan getSelectByPrimaryKeysBindPlan(int keyCount) {
+        checkSelectKeyCount(keyCount);
+        int rowCount = keyCount == 1 ? 1 : Math.min(Integer.highestOneBit(keyCount - 1) << 1, MAX_SELECT_PRIMARY_KEYS);
+        String key = Operation.FIND + "." + rowCount;
+        DTOBindPlan bindPlan = bindPlanMap.get(key);
+        if (bindPlan == null) {
+            bindPlan = putBindPlan(key, new DTOBindPlan(this, Operation.FIND, getSelectByPrimaryKeysDML(rowCount), rowCount));
+        }
+        return bindPlan;
+    }
+
+    private static void checkSelectKeyCount(int keyCount) {
+        if (keyCount < 1 || keyCount > MAX_SELECT_PRIMARY_KEYS) {
+            throw new IllegalArgumentException("keyCount must be between 1 and " + MAX_SELECT_PRIMARY_KEYS + ": " + keyCount);
+        }
+    }
+
+    private DTOBindPlan putBindPlan(String key, DTOBindPlan bindPlan) {
+        DTOBindPlan existing = bindPlanMap.putIfAbsent(key, bindPlan);
+        return existing != null ? existing : bindPlan;
+    }
+
+    /**
+     * Returns a select of the rows of keyCount primary keys in one statement. A single column primary key gets an IN list, a
+     * composite one an OR of the selectByPrimaryKeyDML conditions. The named parameters repeat per key. Oracle limits an IN list
+     * to 1000 values so larger key sets have to be split by the caller into MAX_SELECT_PRIMARY_KEYS keys per select.
+     *
+     * @param keyCount
+     * @return the select by primary keys DML.
+     * @throws IllegalArgumentException if keyCount is less than 1 or more than MAX_SELECT_PRIMARY_KEYS.
+     */
+    public String getSelectByPrimaryKeysDML(int keyCount) {
+        checkSelectKeyCount(keyCount);
+        if (selectByPrimaryKeyDML == null) {
+            throw new IllegalStateException(dtoClass.getCanonicalName() + " has no select by primary key DML - the primary key is missing");
+        }
+        String columnPrefix = StringUtils.isEmpty(tableAlias) ? "" : tableAlias + ".";
+        StringBuilder dml = new StringBuilder(selectDML).append(" WHERE ");
+        if (primaryKeyColumnNames.size() == 1) {
+            String column = primaryKeyColumnNames.get(0);
+            dml.append(columnPrefix).append(column).append(" IN ( ");
+            for (int key = 0; key < keyCount; key++) {
+                if (key > 0) {
+                    dml.append(", ");
+                }
+                dml.append(':').append(column);
+            }
+            dml.append(" )");
+        } else {
+            String wherePrimaryKeyColumns = StringUtils.isEmpty(tableAlias)
+                    ? getPartialDML(primaryKeyColumnNames, "", SuffixType.And)
+                    : getPartialDML(primaryKeyColumnNames, columnPrefix, SuffixType.AndAlias);
+            for (int key = 0; key < keyCount; key++) {
+                if (key > 0) {
+                    dml.append(" OR ");
+                }
+                dml.append("( ").append(wherePrimaryKeyColumns).append(" )");
+            }
+        }
+        return dml.toString();
+    }
+
+    /**
+     * Returns an insert of rowCount rows with the named parameters of insertDML repeated for each row. Oracle gets an INSERT ALL,
+     * the other databases a multi-row VALUES list.
+     *
+     * @param databaseType
+     * @param rowCount
+     * @return the multi-row insert DML.
+     * @throws IllegalArgumentException if rowCount is less than 1 or more than getMaxMultiRowInsertRows.
+     */
+    public String getMultiRowInsertDML(DatabaseType databaseType, int rowCount) {
+        checkMultiRowInsertRowCount(rowCount);
+        String columns = getPartialDML(insertColumnNames, "", SuffixType.Comma);
+        String bindColumns = getPartialDML(insertColumnNames, ":", SuffixType.Comma);
+        StringBuilder dml = new StringBuilder();
+        if (databaseType == DatabaseType.ORACLE) {
+            dml.append("INSERT ALL");
+            for (int row = 0; row < rowCount; row++) {
+                dml.append(" INTO ").append(table.name()).append(" ( ").append(columns).append(" ) values ( ").append(bindColumns)
+                        .append(" )");
+            }
+            dml.append(" SELECT 1 FROM DUAL");
+        } else {
+            dml.append("INSERT INTO ").append(table.name()).append(" ( ").append(columns).append(" ) values ");
+            for (int row = 0; row < rowCount; row++) {
+                if (row > 0) {
+                    dml.append(", ");
+                }
+                dml.append("( ").append(bindColumns).append(" )");
+            }
+        }
+        return dml.toString();
+    }
+
+    /**
+     * Returns an insert that updates the row instead if the primary key exists - MERGE for Oracle and SQL Server, ON CONFLICT for
+     * PostgreSQL and ON DUPLICATE KEY for MySQL. The updateable columns other than the primary key are updated. The
+     * addToWhereUpdate columns of updateDML are not checked.
+     *
+     * @param databaseType
+     * @return the upsert DML.
+     */
+    public String getUpsertDML(DatabaseType databaseType) {
+        if (!primaryKeyExists) {
+            throw new IllegalStateException(dtoClass.getCanonicalName() + " has no upsert DML - the primary key is missing");
+        }
+        List<String> setColumns = new ArrayList<String>(updateColumnNames);
+        setColumns.removeAll(primaryKeyColumnNames);
+        String columns = getPartialDML(insertColumnNames, "", SuffixType.Comma);
+        String bindColumns = getPartialDML(insertColumnNames, ":", SuffixType.Comma);
+        StringBuilder dml = new StringBuilder();
+        switch (databaseType) {
+            case POSTGRESQL:
+                dml.append("INSERT INTO ").append(table.name()).append(" ( ").append(columns).append(" ) values ( ").append(bindColumns)
+                        .append(" ) ON CONFLICT ( ").append(getPartialDML(primaryKeyColumnNames, "", SuffixType.Comma)).append(" ) DO ");
+                if (setColumns.isEmpty()) {
+                    dml.append("NOTHING");
+                } else {
+                    dml.append("UPDATE SET ");
+                    appendAssignments(dml, setColumns, "", "EXCLUDED.", "");
+                }
+                break;
+            case MYSQL:
+                dml.append("INSERT INTO ").append(table.name()).append(" ( ").append(columns).append(" ) values ( ").append(bindColumns)
+                        .append(" ) ON DUPLICATE KEY UPDATE ");
+                appendAssignments(dml, setColumns.isEmpty() ? primaryKeyColumnNames.subList(0, 1) : setColumns, "", "VALUES(", ")");
+                break;
+            case ORACLE:
+            case SQLSERVER:
+                dml.append("MERGE INTO ").append(table.name());
+                if (databaseType == DatabaseType.ORACLE) {
+                    dml.append(" t USING ( SELECT ");
+                    for (int i = 0; i < insertColumnNames.size(); i++) {
+                        if (i > 0) {
+                            dml.append(", ");
+                        }
+                        dml.append(':').append(insertColumnNames.get(i)).append(' ').append(insertColumnNames.get(i));
+                    }
+                    dml.append(" FROM DUAL ) s");
+                } else {
+                    dml.append(" WITH (HOLDLOCK) AS t USING ( VALUES ( ").append(bindColumns).append(" ) ) AS s ( ").append(columns)
+                            .append(" )");
+                }
+                dml.append(" ON ( ");
+                for (int i = 0; i < primaryKeyColumnNames.size(); i++) {
+                    if (i > 0) {
+                        dml.append(" AND ");
+                    }
+                    dml.append("t.").append(primaryKeyColumnNames.get(i)).append(" = s.").append(primaryKeyColumnNames.get(i));
+                }
+                dml.append(" )");
+                if (!setColumns.isEmpty()) {
+                    dml.append(" WHEN MATCHED THEN UPDATE SET ");
+                    appendAssignments(dml, setColumns, "t.", "s.", "");
+                }
+                dml.append(" WHEN NOT MATCHED THEN INSERT ( ").append(columns).append(" ) VALUES ( ")
+                        .append(getPartialDML(insertColumnNames, "s.", SuffixType.Comma)).append(" )");
+                if (databaseType == DatabaseType.SQLSERVER) {
+                    dml.append(';');
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Upsert DML is not supported for " + databaseType);
+        }
+        return dml.toString();
+    }
+
+    private static void appendAssignments(StringBuilder dml, List<String> columns, String targetPrefix, String valuePrefix,
+            String valueSuffix) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                dml.append(", ");
+            }
+            String column = columns.get(i);
+            dml.append(targetPrefix).append(column).append(" = ").append(valuePrefix).append(column).append(valueSuffix);
+        }
+    }
+
+    public Class<? extends BaseDTO> getDtoClass() {
+        return dtoClass;
+    }
+
+    /**
+     * Returns the row mapper for the column order of the result set. The mapper is compiled on first use and cached by the column
+     * labels.
+     *
+     * @param <T>
+     * @param metaData
+     * @return the row mapper.
+     * @throws SQLException
+     */
+    public <T extends BaseDTO> DTORowMapper<T> getRowMapper(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        StringBuilder key = new StringBuilder();
+        for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
+            key.append(metaData.getColumnLabel(columnIndex)).append(',');
+        }
+        String rowMapperKey = key.toString();
+        DTORowMapper rowMapper = rowMapperMap.get(rowMapperKey);
+        if (rowMapper == null) {
+            rowMapper = new DTORowMapper(this, metaData);
+            DTORowMapper existing = rowMapperMap.putIfAbsent(rowMapperKey, rowMapper);
+            if (existing != null) {
+                rowMapper = existing;
+            }
+        }
+        return rowMapper;
+    }
+
 }
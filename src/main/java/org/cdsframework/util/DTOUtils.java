@@ -26,12 +26,10 @@
  */
 package org.cdsframework.util;
 
-import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -40,26 +38,20 @@ import java.util.Map.Entry;
 import org.cdsframework.annotation.Audit;
 import org.cdsframework.annotation.SortColumn;
 import org.cdsframework.annotation.ColumnSubstitutions;
-import org.cdsframework.annotation.DTOWrapper;
 import org.cdsframework.annotation.SortColumns;
 import org.cdsframework.annotation.Entity;
 import org.cdsframework.annotation.GeneratedValue;
-import org.cdsframework.annotation.Id;
 import org.cdsframework.annotation.JndiReference;
-import org.cdsframework.annotation.NoId;
-import org.cdsframework.annotation.OrderBy;
 import org.cdsframework.annotation.OrderByMapEntries;
 import org.cdsframework.annotation.OrderByMapEntry;
 import org.cdsframework.annotation.ParentBehavior;
 import org.cdsframework.annotation.ParentChildRelationship;
-import org.cdsframework.annotation.ParentChildRelationships;
 import org.cdsframework.annotation.Permission;
-import org.cdsframework.annotation.ReadOnly;
 import org.cdsframework.annotation.ReferenceDTO;
-import org.cdsframework.annotation.RefreshOnAddOrUpdate;
 import org.cdsframework.annotation.RowsReturnCountBehavior;
 import org.cdsframework.annotation.Table;
 import org.cdsframework.base.BaseDTO;
+import org.cdsframework.base.ChildDTOList;
 import org.cdsframework.dto.PropertyBagDTO;
 import org.cdsframework.enumeration.DTOState;
 import org.cdsframework.enumeration.DatabaseType;
@@ -67,9 +59,7 @@ import org.cdsframework.enumeration.GenerationSource;
 import org.cdsframework.enumeration.LogLevel;
 import org.cdsframework.exceptions.AnnotationException;
 import org.cdsframework.exceptions.ValidationException;
-import org.cdsframework.util.comparator.IdFieldComparator;
 import org.cdsframework.util.support.CoreConstants;
-import org.cdsframework.annotation.NoDAO;
 import org.cdsframework.util.support.CorePropertyChangeEvent;
 
 /**
@@ -79,7 +69,17 @@ import org.cdsframework.util.support.CorePropertyChangeEvent;
 public class DTOUtils {
 
     private static final LogUtils logger = LogUtils.getLogger(DTOUtils.class);
-    private static Method dtoStateSetter = null;
+    private static final Method dtoStateSetter = getDtoStateSetter();
+
+    private static Method getDtoStateSetter() {
+        try {
+            Method setter = BaseDTO.class.getDeclaredMethod("setDTOState", new Class[]{DTOState.class});
+            setter.setAccessible(true);
+            return setter;
+        } catch (NoSuchMethodException ex) {
+            throw new IllegalStateException("getDtoStateSetter An unexpected exception has occurred; Message: " + ex.getMessage(), ex);
+        }
+    }
 
     public static boolean isQueryLazy(BaseDTO baseDTO) {
         final String METHODNAME = "isQueryLazy ";
@@ -100,10 +100,6 @@ public class DTOUtils {
         final String METHODNAME = "setDTOState ";
         //long timeNow = System.nanoTime();
         try {
-            if (dtoStateSetter == null) {
-                dtoStateSetter = BaseDTO.class.getDeclaredMethod("setDTOState", new Class[]{DTOState.class});
-                dtoStateSetter.setAccessible(true);
-            }
             dtoStateSetter.invoke(baseDTO, new Object[]{dtoState});
         } catch (Exception ex) {
             String errorMessage = METHODNAME + "An unexpected exception has occurred; Message: " + ex.getMessage();
@@ -119,11 +115,7 @@ public class DTOUtils {
         setDTOState(baseDTO, DTOState.UNSET);
         // Clears the PropertyChangeEventMap
         if (baseDTO != null) {
-            if (baseDTO.getPropertyChangeEventMap() != null) {
-                baseDTO.getPropertyChangeEventMap().clear();
-            } else {
-                logger.info(METHODNAME, "baseDTO.getPropertyChangeEventMap is null!");
-            }
+            baseDTO.clearPropertyChangeEventMap();
         } else {
             logger.info(METHODNAME, "baseDTO is null!");
         }
@@ -209,164 +201,46 @@ public class DTOUtils {
             }
         }
     }
-    private static final Map<Class, RowsReturnCountBehavior> dtoRowsReturnCountBehaviorValueMap = new HashMap<Class, RowsReturnCountBehavior>();
+    /**
+     * Returns the metadata snapshot of the DTO class from the DtoMetadataRegistry.
+     *
+     * @param dtoClass
+     * @return the DtoMetadata of the dtoClass.
+     */
+    public static DtoMetadata getDtoMetadata(Class<? extends BaseDTO> dtoClass) {
+        return DtoMetadataRegistry.getDtoMetadata(dtoClass);
+    }
 
     public static RowsReturnCountBehavior getRowsReturnCountBehaviorValue(Class<? extends BaseDTO> dtoClass) {
-        // Cache these - no need to compute every time...
-        RowsReturnCountBehavior rowsReturnCountBehavior = dtoRowsReturnCountBehaviorValueMap.get(dtoClass);
-        if (rowsReturnCountBehavior != null) {
-//            logger.info("getRowsReturnCountBehaviorValue cache hit");
-            return rowsReturnCountBehavior;
-        }
-        rowsReturnCountBehavior = dtoClass.getAnnotation(RowsReturnCountBehavior.class);
-
-        // cache result
-        dtoRowsReturnCountBehaviorValueMap.put(dtoClass, rowsReturnCountBehavior);
-
-        return rowsReturnCountBehavior;
+        return getDtoMetadata(dtoClass).getRowsReturnCountBehavior();
     }
-    private static final Map<Class, Map<Class, ParentChildRelationship>> dtoParentChildRelationshipMapByQueryClass = new HashMap<Class, Map<Class, ParentChildRelationship>>();
 
     public static Map<Class, ParentChildRelationship> getParentChildRelationshipMapByQueryClass(Class<? extends BaseDTO> dtoClass) {
-
-        // Cache these - no need to compute every time...
-        Map<Class, ParentChildRelationship> dtoQueryMap = dtoParentChildRelationshipMapByQueryClass.get(dtoClass);
-        if (dtoQueryMap != null) {
-//            logger.info("getParentChildRelationshipMapByQueryClass cache hit");
-            return dtoQueryMap;
-        }
-
-        dtoQueryMap = new HashMap<Class, ParentChildRelationship>();
-
-        ParentChildRelationships parentChildRelationships = dtoClass.getAnnotation(ParentChildRelationships.class);
-        if (parentChildRelationships != null) {
-            for (ParentChildRelationship parentChildRelationship : parentChildRelationships.value()) {
-                dtoQueryMap.put(parentChildRelationship.childQueryClass(), parentChildRelationship);
-            }
-        }
-
-        // cache result
-        dtoParentChildRelationshipMapByQueryClass.put(dtoClass, dtoQueryMap);
-
-        return dtoQueryMap;
+        return getDtoMetadata(dtoClass).getParentChildRelationshipMapByQueryClass();
     }
 
-    private static final Map<Class, ColumnSubstitutions> dtoColumnSubstitutionMap = new HashMap<Class, ColumnSubstitutions>();
-
     public static ColumnSubstitutions getColumnSubstitutions(Class<? extends BaseDTO> dtoClass) {
-
-        // Cache these - no need to compute every time...
-        ColumnSubstitutions columnSubstitutions = dtoColumnSubstitutionMap.get(dtoClass);
-        if (columnSubstitutions == null) {
-            columnSubstitutions = dtoClass.getAnnotation(ColumnSubstitutions.class);
-            if (columnSubstitutions != null) {
-                dtoColumnSubstitutionMap.put(dtoClass, columnSubstitutions);
-            }
-        }
-
-        return columnSubstitutions;
+        return getDtoMetadata(dtoClass).getColumnSubstitutions();
     }
 
-    private static final Map<Class, Map<Class<? extends BaseDTO>, ParentChildRelationship>> dtoParentChildRelationshipMapByDTO = new HashMap<Class, Map<Class<? extends BaseDTO>, ParentChildRelationship>>();
-
     public static Map<Class<? extends BaseDTO>, ParentChildRelationship> getParentChildRelationshipMapByDTO(Class<? extends BaseDTO> dtoClass) {
-
-        // Cache these - no need to compute every time...
-        Map<Class<? extends BaseDTO>, ParentChildRelationship> dtoQueryMap = dtoParentChildRelationshipMapByDTO.get(dtoClass);
-        if (dtoQueryMap != null) {
-//            logger.info("getParentChildRelationshipMapByDTO cache hit");
-            return dtoQueryMap;
-        }
-
-        dtoQueryMap = new HashMap<Class<? extends BaseDTO>, ParentChildRelationship>();
-
-        ParentChildRelationships parentChildRelationships = dtoClass.getAnnotation(ParentChildRelationships.class);
-        if (parentChildRelationships != null) {
-            for (ParentChildRelationship parentChildRelationship : parentChildRelationships.value()) {
-                dtoQueryMap.put(parentChildRelationship.childDtoClass(), parentChildRelationship);
-            }
-        }
-
-        // cache result
-        dtoParentChildRelationshipMapByDTO.put(dtoClass, dtoQueryMap);
-
-        return dtoQueryMap;
+        return getDtoMetadata(dtoClass).getParentChildRelationshipMapByDTO();
     }
-    private static final Map<Class, Map<Class<? extends BaseDTO>, Class>> dtoDtoQueryMap = new HashMap<Class, Map<Class<? extends BaseDTO>, Class>>();
 
     public static Map<Class<? extends BaseDTO>, Class> getDtoQueryMap(Class<? extends BaseDTO> dtoClass) {
-
-        // Cache these - no need to compute every time...
-        Map<Class<? extends BaseDTO>, Class> dtoQueryMap = dtoDtoQueryMap.get(dtoClass);
-        if (dtoQueryMap != null) {
-            return dtoQueryMap;
-        }
-
-        dtoQueryMap = new HashMap<Class<? extends BaseDTO>, Class>();
-
-        ParentChildRelationships parentChildRelationships = dtoClass.getAnnotation(ParentChildRelationships.class);
-        if (parentChildRelationships != null) {
-            for (ParentChildRelationship parentChildRelationship : parentChildRelationships.value()) {
-                dtoQueryMap.put(parentChildRelationship.childDtoClass(), parentChildRelationship.childQueryClass());
-            }
-        }
-
-        // cache result
-        dtoDtoQueryMap.put(dtoClass, dtoQueryMap);
-
-        return dtoQueryMap;
+        return getDtoMetadata(dtoClass).getDtoQueryMap();
     }
-    private static final Map<Class, Map<Class, Class>> dtoQueryClassFromDtoQueryMap = new HashMap<Class, Map<Class, Class>>();
 
-    // TODO: cache this
     public static Class getQueryClassFromDtoQueryMap(Class<? extends BaseDTO> dtoClass, Class<? extends BaseDTO> childDtoClass) {
-
-        // Cache these - no need to compute every time...
-        Map<Class, Class> dtoQueryClassMap = dtoQueryClassFromDtoQueryMap.get(dtoClass);
-        if (dtoQueryClassMap == null) {
-            dtoQueryClassMap = new HashMap<Class, Class>();
-            dtoQueryClassFromDtoQueryMap.put(dtoClass, dtoQueryClassMap);
-        }
-
-        Class result = dtoQueryClassMap.get(childDtoClass);
-        if (result != null) {
-            return result;
-        }
-
-        ParentChildRelationships parentChildRelationships = dtoClass.getAnnotation(ParentChildRelationships.class);
-        if (parentChildRelationships != null) {
-            for (ParentChildRelationship parentChildRelationship : parentChildRelationships.value()) {
-                if (parentChildRelationship.childDtoClass() == childDtoClass) {
-                    result = parentChildRelationship.childQueryClass();
-                }
-            }
-        }
-
-        // cache result
-        dtoQueryClassMap.put(childDtoClass, result);
-
-        return result;
+        return getDtoMetadata(dtoClass).getDtoQueryMap().get(childDtoClass);
     }
 
-    // TODO: cache this?
     public static boolean isReadOnly(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.isAnnotationPresent(ReadOnly.class);
+        return getDtoMetadata(dtoClass).isReadOnly();
     }
-    private static final Map<Class, ParentBehavior> dtoParentBehaviorMap = new HashMap<Class, ParentBehavior>();
 
     public static ParentBehavior getParentBehavior(Class<? extends BaseDTO> dtoClass) {
-
-        // Cache these - no need to compute every time...
-        if (dtoParentBehaviorMap.containsKey(dtoClass)) {
-            return dtoParentBehaviorMap.get(dtoClass);
-        }
-
-        ParentBehavior parentBehavior = dtoClass.getAnnotation(ParentBehavior.class);
-
-        // cache result
-        dtoParentBehaviorMap.put(dtoClass, parentBehavior);
-
-        return parentBehavior;
+        return getDtoMetadata(dtoClass).getParentBehavior();
     }
 
     public static DTOState getReferenceDTOState(Field referenceField, BaseDTO baseDTO) {
@@ -394,84 +268,29 @@ public class DTOUtils {
         return dtoState;
     }
 
-    // TODO: cache this?
     public static boolean addsChild(Class<? extends BaseDTO> dtoClass) {
-        if (isReadOnly(dtoClass)) {
-            return false;
-        }
-        ParentBehavior parentBehavior = getParentBehavior(dtoClass);
-        if (parentBehavior == null) {
-            return CoreConstants.ADDS_CHILD_DEFAULT;
-        } else {
-            return parentBehavior.addsChild();
-        }
+        return getDtoMetadata(dtoClass).isAddsChild();
     }
 
-    // TODO: cache this?
     public static boolean deletesChild(Class<? extends BaseDTO> dtoClass) {
-        if (isReadOnly(dtoClass)) {
-            return false;
-        }
-        ParentBehavior parentBehavior = getParentBehavior(dtoClass);
-        if (parentBehavior == null) {
-            return CoreConstants.DELETES_CHILD_DEFAULT;
-        } else {
-            return parentBehavior.deletesChild();
-        }
+        return getDtoMetadata(dtoClass).isDeletesChild();
     }
 
-    // TODO: cache this?
     public static boolean updatesChild(Class<? extends BaseDTO> dtoClass) {
-        if (isReadOnly(dtoClass)) {
-            return false;
-        }
-        ParentBehavior parentBehavior = getParentBehavior(dtoClass);
-        if (parentBehavior == null) {
-            return CoreConstants.UPDATES_CHILD_DEFAULT;
-        } else {
-            return parentBehavior.updatesChild();
-        }
+        return getDtoMetadata(dtoClass).isUpdatesChild();
     }
 
-    // TODO: cache this?
     public static boolean isDeleteAllowed(Class<? extends BaseDTO> dtoClass) {
-        if (isReadOnly(dtoClass)) {
-            return false;
-        }
-        ParentBehavior parentBehavior = getParentBehavior(dtoClass);
-        if (parentBehavior == null) {
-            return CoreConstants.DELETE_ALLOWED_DEFAULT;
-        } else {
-            return parentBehavior.deleteAllowed();
-        }
+        return getDtoMetadata(dtoClass).isDeleteAllowed();
     }
 
-    // TODO: cache this
     public static boolean isAddAllowed(Class<? extends BaseDTO> dtoClass) {
-        if (isReadOnly(dtoClass)) {
-            return false;
-        }
-        ParentBehavior parentBehavior = getParentBehavior(dtoClass);
-        if (parentBehavior == null) {
-            return CoreConstants.ADD_ALLOWED_DEFAULT;
-        } else {
-            return parentBehavior.addAllowed();
-        }
+        return getDtoMetadata(dtoClass).isAddAllowed();
     }
 
-    // TODO: cache this
     public static boolean isUpdateAllowed(Class<? extends BaseDTO> dtoClass) {
-        if (isReadOnly(dtoClass)) {
-            return false;
-        }
-        ParentBehavior parentBehavior = getParentBehavior(dtoClass);
-        if (parentBehavior == null) {
-            return CoreConstants.UPDATE_ALLOWED_DEFAULT;
-        } else {
-            return parentBehavior.updateAllowed();
-        }
+        return getDtoMetadata(dtoClass).isUpdateAllowed();
     }
-    private final static Map<Class, Map<Class, Map<String, List<Field>>>> dtoForeignKeyFieldsMap = new HashMap<Class, Map<Class, Map<String, List<Field>>>>();
 
     /**
      * Returns the fields which have a GeneratedValue annotation with their source = FOREIGN_CONSTRAINT and the sourceClass = the
@@ -483,52 +302,8 @@ public class DTOUtils {
      * @return the Field instance for the foreign key requested otherwise null.
      */
     public static List<Field> getForeignKeyFields(Class<? extends BaseDTO> dtoClass, Class<? extends BaseDTO> foreignKeyClass, String fieldName) {
-
-        // maintain cache of these - no need to compute every call...
-        Map<Class, Map<String, List<Field>>> dtoForeignKeyClassMap = dtoForeignKeyFieldsMap.get(dtoClass);
-        if (dtoForeignKeyClassMap == null) {
-            dtoForeignKeyClassMap = new HashMap<Class, Map<String, List<Field>>>();
-            dtoForeignKeyFieldsMap.put(dtoClass, dtoForeignKeyClassMap);
-        }
-
-        Map<String, List<Field>> foreignKeyFieldMap = dtoForeignKeyClassMap.get(foreignKeyClass);
-        if (foreignKeyFieldMap == null) {
-            foreignKeyFieldMap = new HashMap<String, List<Field>>();
-            dtoForeignKeyClassMap.put(foreignKeyClass, foreignKeyFieldMap);
-        }
-
-        String key = fieldName == null ? "nullfield" : fieldName;
-        List<Field> results = foreignKeyFieldMap.get(key);
-        if (results != null) {
-//            logger.info("getForeignKeyFields cache hit");
-            return results;
-        }
-
-        results = new ArrayList<Field>();
-
-        for (Field field : ClassUtils.getNonBaseDTODeclaredFields(dtoClass)) {
-            GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
-            if (generatedValue != null) {
-                if (generatedValue.source() == GenerationSource.FOREIGN_CONSTRAINT) {
-                    for (Class klass : generatedValue.sourceClass()) {
-                        if (klass == foreignKeyClass) {
-                            if (fieldName == null) {
-                                results.add(field);
-                            } else if (fieldName.equalsIgnoreCase(generatedValue.fieldName())) {
-                                results.add(field);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-
-        // cache results
-        foreignKeyFieldMap.put(key, results);
-
-        return results;
+        return getDtoMetadata(dtoClass).getForeignKeyFields(foreignKeyClass, fieldName);
     }
-    private final static Map<Class, List<Class<? extends BaseDTO>>> dtoForeignKeySourceClassesMap = new HashMap<Class, List<Class<? extends BaseDTO>>>();
 
     /**
      * Returns the source classes for the fields which have a GeneratedValue annotation with their source = FOREIGN_CONSTRAINT.
@@ -537,33 +312,7 @@ public class DTOUtils {
      * @return the Field instance for the foreign key requested otherwise null.
      */
     public static List<Class<? extends BaseDTO>> getForeignKeySourceClasses(Class<? extends BaseDTO> dtoClass) {
-
-        // maintain cache of these - no need to compute every call...
-        List<Class<? extends BaseDTO>> results = dtoForeignKeySourceClassesMap.get(dtoClass);
-        if (results != null) {
-//            logger.info("getForeignKeySourceClasses cache hit");
-            return results;
-        }
-
-        results = new ArrayList<Class<? extends BaseDTO>>();
-
-        for (Field field : ClassUtils.getNonBaseDTODeclaredFields(dtoClass)) {
-            GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
-            if (generatedValue != null) {
-                if (generatedValue.source() == GenerationSource.FOREIGN_CONSTRAINT) {
-                    for (Class klass : generatedValue.sourceClass()) {
-                        if (BaseDTO.class.isAssignableFrom(klass)) {
-                            results.add(klass);
-                        }
-                    }
-                }
-            }
-        }
-
-        // cache results
-        dtoForeignKeySourceClassesMap.put(dtoClass, results);
-
-        return results;
+        return getDtoMetadata(dtoClass).getForeignKeySourceClasses();
     }
 
     /**
@@ -593,52 +342,8 @@ public class DTOUtils {
         Field foreignKeyField = getForeignKeyField(dtoClass, foreignKeyClass, null);
         return foreignKeyField;
     }
-    private final static Map<Class, Map<Class, Map<String, List<GeneratedValue>>>> dtoPKGeneratedValuesMap = new HashMap<Class, Map<Class, Map<String, List<GeneratedValue>>>>();
-
     public static List<GeneratedValue> getGeneratedValues(Class<? extends BaseDTO> dtoClass, Class<? extends BaseDTO> foreignKeyClass, String fieldName) {
-        final String METHODNAME = "getGeneratedValues ";
-        final boolean debug = false;
-
-        // maintain cache of these - no need to compute every call...
-        Map<Class, Map<String, List<GeneratedValue>>> pkGeneratedValuesMap = dtoPKGeneratedValuesMap.get(dtoClass);
-        if (pkGeneratedValuesMap == null) {
-            pkGeneratedValuesMap = new HashMap<Class, Map<String, List<GeneratedValue>>>();
-            dtoPKGeneratedValuesMap.put(dtoClass, pkGeneratedValuesMap);
-        }
-
-        Map<String, List<GeneratedValue>> fieldGeneratedValuesMap = pkGeneratedValuesMap.get(foreignKeyClass);
-        if (fieldGeneratedValuesMap == null) {
-            fieldGeneratedValuesMap = new HashMap<String, List<GeneratedValue>>();
-            pkGeneratedValuesMap.put(foreignKeyClass, fieldGeneratedValuesMap);
-        }
-
-        String key = fieldName == null ? "nullfield" : fieldName;
-        List<GeneratedValue> generatedValues = fieldGeneratedValuesMap.get(key);
-        if (generatedValues != null) {
-//            logger.info("getGeneratedValues cache hit");
-            return generatedValues;
-        }
-
-        generatedValues = new ArrayList<GeneratedValue>();
-
-        List<Field> foreignKeyFields = getForeignKeyFields(dtoClass, foreignKeyClass, fieldName);
-        if (!foreignKeyFields.isEmpty()) {
-            for (Field foreignKeyField : foreignKeyFields) {
-                GeneratedValue generatedValue = foreignKeyField.getAnnotation(GeneratedValue.class);
-                if (generatedValue != null) {
-                    generatedValues.add(generatedValue);
-                } else if (logger.isDebugEnabled() || debug) {
-                    logger.info(METHODNAME, "generatedValue is null");
-                }
-            }
-        } else if (logger.isDebugEnabled() || debug) {
-            logger.info(METHODNAME, "foreignKeyFields is empty");
-        }
-
-        // cache results
-        fieldGeneratedValuesMap.put(key, generatedValues);
-
-        return generatedValues;
+        return getDtoMetadata(dtoClass).getGeneratedValues(foreignKeyClass, fieldName);
     }
 
     public static List<GeneratedValue> getGeneratedValues(Class<? extends BaseDTO> dtoClass, Class<? extends BaseDTO> foreignKeyClass) {
@@ -715,10 +420,9 @@ public class DTOUtils {
     }
 
     public static boolean isAudit(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.isAnnotationPresent(Audit.class);
+        return getDtoMetadata(dtoClass).isAudit();
     }
 
-    // TODO: cache this?
     /**
      * Returns the the NoId dtoState. If this DTO doesn't have a primary key this mechanism lets the developer explicitly express
      * that that dtoState.
@@ -727,15 +431,13 @@ public class DTOUtils {
      * @return the dtoState of the presence of the NoId annotation.
      */
     public static boolean isNoId(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.isAnnotationPresent(NoId.class);
+        return getDtoMetadata(dtoClass).isNoId();
     }
     
     public static boolean isNoDAO(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.isAnnotationPresent(NoDAO.class);
+        return getDtoMetadata(dtoClass).isNoDAO();
     }
-    
-    
-    private final static Map<Class, List<Field>> dtoPrimaryKeyMap = new HashMap<Class, List<Field>>();
+
 
     /**
      * Returns the primary key Field(s).
@@ -746,37 +448,7 @@ public class DTOUtils {
      * @throws IllegalStateException
      */
     public static List<Field> getPrimaryKeyFields(Class<? extends BaseDTO> dtoClass) {
-        final String METHODNAME = "getPrimaryKeyFields ";
-
-        // maintain cache of these - no need to compute every call...
-        List<Field> pkFields = dtoPrimaryKeyMap.get(dtoClass);
-        if (pkFields != null) {
-//            logger.info("getPrimaryKeyFields cache hit");
-            return pkFields;
-        }
-
-        pkFields = new ArrayList<Field>();
-
-        for (Field field : ClassUtils.getNonBaseDTODeclaredFields(dtoClass)) {
-            Id id = field.getAnnotation(Id.class);
-            if (id != null) {
-                field.setAccessible(true);
-                pkFields.add(field);
-            }
-        }
-
-        if (pkFields.isEmpty() && !isNoId(dtoClass)) {
-            throw new IllegalStateException("pkFields.isEmpty() && !isNoId()",
-                    new AnnotationException("There is no Id or NoId annotation set. "
-                            + "Annotate the appropriate field(s) in the DTO with Id or NoId annotation: " + dtoClass.getSimpleName(),
-                            Id.class));
-        }
-        Collections.sort(pkFields, new IdFieldComparator());
-
-        // cache result
-        dtoPrimaryKeyMap.put(dtoClass, pkFields);
-
-        return pkFields;
+        return getDtoMetadata(dtoClass).getPrimaryKeyFields();
     }
 
     /**
@@ -812,8 +484,6 @@ public class DTOUtils {
         return primaryKeys;
     }
 
-    private final static Map<Class, List<GeneratedValue>> dtoPKFullGeneratedValuesMap = new HashMap<Class, List<GeneratedValue>>();
-
     /**
      * Returns the generated values of the primary key.
      *
@@ -821,27 +491,7 @@ public class DTOUtils {
      * @return the generated value of the primary key.
      */
     public static List<GeneratedValue> getPKGeneratedValues(Class<? extends BaseDTO> dtoClass) {
-
-        // maintain cache of these - no need to compute every call...
-        List<GeneratedValue> generatedValues = dtoPKFullGeneratedValuesMap.get(dtoClass);
-        if (generatedValues != null) {
-//            logger.info("getPKGeneratedValues cache hit");
-            return generatedValues;
-        }
-
-        generatedValues = new ArrayList<GeneratedValue>();
-
-        for (Field field : getPrimaryKeyFields(dtoClass)) {
-            GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
-            if (generatedValue != null && !generatedValues.contains(generatedValue)) {
-                generatedValues.add(generatedValue);
-            }
-        }
-
-        // cache results
-        dtoPKFullGeneratedValuesMap.put(dtoClass, generatedValues);
-
-        return generatedValues;
+        return getDtoMetadata(dtoClass).getPKGeneratedValues();
     }
 
     /**
@@ -875,7 +525,6 @@ public class DTOUtils {
         return getPKGeneratedValue(dtoClass).dataSource();
     }
 
-    // TODO: cache this
     /**
      * Returns the derived AUTO dtoState of the primary key for this DTO. If it is AUTO then the validation of the add operation
      * won't fail based on a null value in the primary key. Also, provides a means to auto-generate the primary key on an add
@@ -889,18 +538,9 @@ public class DTOUtils {
      * @see getSinglePrimaryKeyField()
      */
     public static boolean isPKGeneratedSourceAuto(Class<? extends BaseDTO> dtoClass) {
-        boolean containsAuto = false;
-        List<GeneratedValue> pKGeneratedValues = getPKGeneratedValues(dtoClass);
-        for (GeneratedValue generatedValue : pKGeneratedValues) {
-            if (generatedValue.source() == GenerationSource.AUTO) {
-                containsAuto = true;
-                break;
-            }
-        }
-        return containsAuto;
+        return getDtoMetadata(dtoClass).isPKGeneratedSourceAuto();
     }
 
-    // TODO: cache this?
     /**
      * Returns the derived SEQUENCE dtoState of the primary key for this DTO. If it is SEQUENCE then the validation of the add
      * operation won't fail based on a null value in the primary key. Also, provides a means to set the primary key on an add
@@ -912,56 +552,24 @@ public class DTOUtils {
      * @throws IllegalStateException
      */
     public static boolean isPKGeneratedSourceSequence(Class<? extends BaseDTO> dtoClass) {
-        boolean containsSequence = false;
-        List<GeneratedValue> pKGeneratedValues = getPKGeneratedValues(dtoClass);
-        for (GeneratedValue generatedValue : pKGeneratedValues) {
-            if (generatedValue.source() == GenerationSource.SEQUENCE) {
-                containsSequence = true;
-                break;
-            }
-        }
-        return containsSequence;
+        return getDtoMetadata(dtoClass).isPKGeneratedSourceSequence();
     }
-    private final static Map<Class, List<Field>> dtoPKGeneratedSourceSequenceFieldsMap = new HashMap<Class, List<Field>>();
 
     public static List<Field> getPKGeneratedSourceSequenceFields(Class<? extends BaseDTO> dtoClass) {
-
-        // maintain cache of these - no need to compute every call...
-        List<Field> sourceSequenceFields = dtoPKGeneratedSourceSequenceFieldsMap.get(dtoClass);
-        if (sourceSequenceFields != null) {
-//            logger.info("getPKGeneratedSourceSequenceFields cache hit");
-            return sourceSequenceFields;
-        }
-
-        sourceSequenceFields = new ArrayList<Field>();
-
-        for (Field field : getPrimaryKeyFields(dtoClass)) {
-            GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
-            if (generatedValue.source() == GenerationSource.SEQUENCE) {
-                sourceSequenceFields.add(field);
-            }
-        }
-
-        // cache results
-        dtoPKGeneratedSourceSequenceFieldsMap.put(dtoClass, sourceSequenceFields);
-
-        return sourceSequenceFields;
+        return getDtoMetadata(dtoClass).getPKGeneratedSourceSequenceFields();
     }
 
-    // cache this?
     public static boolean isEntity(Class<? extends BaseDTO> dtoClass) {
         if (dtoClass == null) {
             logger.warn("isEntity - dtoClass is null!");
             return false;
         }
-        return dtoClass.isAnnotationPresent(Entity.class);
+        return getDtoMetadata(dtoClass).isEntity();
     }
 
-    // cache this?
     public static boolean isRefreshOnAddOrUpdate(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.isAnnotationPresent(RefreshOnAddOrUpdate.class);
+        return getDtoMetadata(dtoClass).isRefreshOnAddOrUpdate();
     }
-    private final static Map<Class, Boolean> dtoReferenceDTOsExistMap = new HashMap<Class, Boolean>();
 
     /**
      * Returns whether or not the DTO has properties annotated with ReferenceDTO.
@@ -970,24 +578,9 @@ public class DTOUtils {
      * @return the presence of ReferenceDTO annotations.
      */
     public static boolean isReferenceDTOsExist(Class<? extends BaseDTO> dtoClass) {
-
-        // maintain cache of these - no need to compute every call...
-        Boolean referenceDTOsExist = dtoReferenceDTOsExistMap.get(dtoClass);
-        if (referenceDTOsExist != null) {
-//            logger.info("isReferenceDTOsExist cache hit");
-            return referenceDTOsExist;
-        }
-
-        referenceDTOsExist = !getReferenceDTOs(dtoClass).isEmpty();
-
-        // cache result
-        dtoReferenceDTOsExistMap.put(dtoClass, referenceDTOsExist);
-
-        return referenceDTOsExist;
+        return getDtoMetadata(dtoClass).isReferenceDTOsExist();
     }
 
-    private final static Map<Class, List<Field>> dtoReferenceDTOMap = new HashMap<Class, List<Field>>();
-
     /**
      * Returns whether or not the DTO has properties annotated with ReferenceDTO.
      *
@@ -995,31 +588,9 @@ public class DTOUtils {
      * @return the presence of ReferenceDTO annotations.
      */
     public static List<Field> getReferenceDTOs(Class<? extends BaseDTO> dtoClass) {
-
-        List<Field> fields = dtoReferenceDTOMap.get(dtoClass);
-        if (fields != null) {
-//            logger.info("getReferenceDTOs cache hit");
-            return fields;
-        }
-
-        fields = new ArrayList<Field>();
-
-        for (Field field : ClassUtils.getNonBaseDTODeclaredFields(dtoClass)) {
-            ReferenceDTO referenceDTO = field.getAnnotation(ReferenceDTO.class);
-            if (referenceDTO != null) {
-                field.setAccessible(true);
-                fields.add(field);
-            }
-        }
-
-        // cache results
-        dtoReferenceDTOMap.put(dtoClass, fields);
-
-        return fields;
+        return getDtoMetadata(dtoClass).getReferenceDTOs();
     }
 
-    private final static Map<Class, List<Class>> dtoPrimaryKeyClassesMap = new HashMap<Class, List<Class>>();
-
     /**
      * The primary key Classes of the DTO instance.
      *
@@ -1028,24 +599,8 @@ public class DTOUtils {
      * @throws IllegalStateException
      */
     public static List<Class> getPrimaryKeyClasses(Class<? extends BaseDTO> dtoClass) {
-
-        // maintain cache of these - no need to compute every call...
-        List<Class> classes = dtoPrimaryKeyClassesMap.get(dtoClass);
-        if (classes != null) {
-            return classes;
-        }
-
-        classes = new ArrayList<Class>();
-        for (Field field : getPrimaryKeyFields(dtoClass)) {
-            classes.add(field.getType());
-        }
-
-        // cache result
-        dtoPrimaryKeyClassesMap.put(dtoClass, classes);
-
-        return classes;
+        return getDtoMetadata(dtoClass).getPrimaryKeyClasses();
     }
-    private static final Map<Class, Map<String, Method>> primaryKeySetterMethodMap = new HashMap<Class, Map<String, Method>>();
 
     /**
      * Set the primary key of the DTO instance. Supports the following primary key types: - Long/long - Integer/int - String -
@@ -1058,11 +613,7 @@ public class DTOUtils {
      */
     public static void setPrimaryKey(BaseDTO instance, Object key) {
         if (key != null) {
-            Map<String, Method> setterMap = primaryKeySetterMethodMap.get(instance.getClass());
-            if (setterMap == null) {
-                setterMap = new HashMap<String, Method>();
-                primaryKeySetterMethodMap.put(instance.getClass(), setterMap);
-            }
+            DtoMetadata dtoMetadata = getDtoMetadata(instance.getClass());
             Class keyClass = key.getClass();
             if (key instanceof Map) {
                 Map<String, Object> primaryKeyMap = (Map<String, Object>) key;
@@ -1071,15 +622,11 @@ public class DTOUtils {
                     throw new IllegalStateException("PK field size mismatch: " + thisFields.size() + " - " + primaryKeyMap.size());
                 }
                 for (Field field : thisFields) {
-                    Method setterMethod = setterMap.get(field.getName());
-                    if (setterMethod == null) {
-                        try {
-                            PropertyDescriptor propertyDescriptor = new PropertyDescriptor(field.getName(), instance.getClass());
-                            setterMethod = propertyDescriptor.getWriteMethod();
-                            setterMap.put(field.getName(), setterMethod);
-                        } catch (Exception e) {
-                            throw new IllegalStateException("An error occurred getting setter method for: " + field.getName() + " - msg: " + e.getMessage(), e);
-                        }
+                    Method setterMethod;
+                    try {
+                        setterMethod = dtoMetadata.getWriteMethod(field.getName());
+                    } catch (Exception e) {
+                        throw new IllegalStateException("An error occurred getting setter method for: " + field.getName() + " - msg: " + e.getMessage(), e);
                     }
                     boolean fieldSet = false;
                     String fieldName = field.getName();
@@ -1092,8 +639,8 @@ public class DTOUtils {
                             if (primaryKeyMap.get(keyFieldName).getClass() == field.getType()) {
                                 fieldSet = true;
                                 try {
-                                    setterMethod.setAccessible(true);
                                     setterMethod.invoke(instance, primaryKeyMap.get(keyFieldName));
+                                    ChildDTOList.primaryKeyChanged(instance, field.getName());
                                 } catch (Exception e) {
                                     throw new IllegalStateException("An error occurred setting: " + field.getName() + " - msg: " + e.getMessage(), e);
                                 }
@@ -1113,18 +660,15 @@ public class DTOUtils {
                 List<Field> primaryKeyFields = getPrimaryKeyFields(instance.getClass());
                 if (primaryKeyFields.size() == 1) {
                     Field pkField = primaryKeyFields.get(0);
-                    Method setterMethod = setterMap.get(pkField.getName());
-                    if (setterMethod == null) {
-                        try {
-                            PropertyDescriptor propertyDescriptor = new PropertyDescriptor(pkField.getName(), instance.getClass());
-                            setterMethod = propertyDescriptor.getWriteMethod();
-                            setterMap.put(pkField.getName(), setterMethod);
-                        } catch (Exception e) {
-                            throw new IllegalStateException("An error occurred getting setter method for: " + pkField.getName() + " - msg: " + e.getMessage(), e);
-                        }
+                    Method setterMethod;
+                    try {
+                        setterMethod = dtoMetadata.getWriteMethod(pkField.getName());
+                    } catch (Exception e) {
+                        throw new IllegalStateException("An error occurred getting setter method for: " + pkField.getName() + " - msg: " + e.getMessage(), e);
                     }
                     try {
                         setterMethod.invoke(instance, key);
+                        ChildDTOList.primaryKeyChanged(instance, pkField.getName());
                     } catch (Exception e) {
                         throw new IllegalStateException("An error occurred setting: " + pkField.getName() + " - msg: " + e.getMessage(), e);
                     }
@@ -1143,70 +687,13 @@ public class DTOUtils {
      * Returns the primary key of the DTO instance.
      *
      * @param instance
-     * @return the primary key of the DTO instance via reflection determined by which field(s) have the PrimaryKey annotation.
+     * @return the primary key of the DTO instance via reflection determined by which field(s) have the PrimaryKey annotation. A
+     * multi field primary key is returned as an immutable CompositeKey map.
      * @throws IllegalStateException invocation error on field value retrieval or primary key class not supported.
      * @see #getSinglePrimaryKeyField()
      */
     public static Object getPrimaryKey(BaseDTO instance) {
-        Object primaryKey = null;
-        Field pkField = null;
-        try {
-            List<Field> fields = getPrimaryKeyFields(instance.getClass());
-            if (fields.size() == 1) {
-                pkField = fields.get(0);
-                Class<?> pkType = pkField.getType();
-                primaryKey = pkField.get(instance);
-                if (pkType == Long.class || pkType == long.class) {
-                    if (primaryKey != null) {
-                        primaryKey = (Long) primaryKey;
-                    }
-                } else if (pkType == Integer.class || pkType == int.class) {
-                    if (primaryKey != null) {
-                        primaryKey = (Integer) primaryKey;
-                    }
-                } else if (pkType == String.class) {
-                    if (primaryKey == null) {
-                        primaryKey = new String();
-                    } else {
-                        primaryKey = "" + (String) primaryKey;
-                    }
-                } else if (primaryKey == null) {
-                    primaryKey = pkType.newInstance();
-                } // throw new MtsException("Primary key class not supported: " + pkType.getSimpleName());
-            } else if (fields.size() > 1) {
-                Map<String, Object> pkMap = new HashMap<String, Object>();
-                for (Field field : fields) {
-                    String fieldName = field.getName();
-                    Object value = field.get(instance);
-                    Class<?> pkType = field.getType();
-                    if (pkType == Long.class || pkType == long.class
-                            || pkType == Integer.class || pkType == int.class
-                            || pkType == String.class
-                            || pkType.getSuperclass() == BaseDTO.class
-                            || pkType.getSuperclass().getSuperclass() == BaseDTO.class
-                            || pkType.getSuperclass() == Enum.class) {
-                        pkMap.put(fieldName, value);
-                    } else {
-                        throw new IllegalStateException("Primary key class not supported: " + pkType.getSimpleName());
-                    }
-                }
-                primaryKey = pkMap;
-            } else if (fields.isEmpty() && !isNoId(instance.getClass())) {
-                //zero or negative condition...
-                throw new IllegalStateException("No primary Key found...");
-            }
-        } catch (IllegalStateException e) {
-            throw e;
-        } catch (Exception e) {
-            String msg;
-            if (pkField != null) {
-                msg = "An error occurred invoking: " + pkField.getName() + " - msg: " + e.getMessage() + " - type: " + pkField.getType().getSimpleName();
-            } else {
-                msg = e.getMessage();
-            }
-            throw new IllegalStateException(msg, e);
-        }
-        return primaryKey;
+        return getDtoMetadata(instance.getClass()).getPrimaryKeyExtractor().getPrimaryKey(instance);
     }
 
     /**
@@ -1244,6 +731,7 @@ public class DTOUtils {
                             if (wasIdSet) {
                                 try {
                                     field.set(instance, key);
+                                    ChildDTOList.primaryKeyChanged(instance, field.getName());
                                 } catch (IllegalAccessException e) {
                                     logger.error(e);
                                     throw new IllegalStateException(e.getMessage());
@@ -1266,41 +754,9 @@ public class DTOUtils {
     }
 
     public static boolean hasPrimaryKey(BaseDTO instance, boolean acceptZeroAsValidKey) {
-        boolean hasKey = false;
-        Object primaryKey = getPrimaryKey(instance);
-        if (primaryKey instanceof Map) {
-            boolean valueMissing = false;
-            for (Object value : ((Map<String, Object>) primaryKey).values()) {
-                if (value == null) {
-                    valueMissing = true;
-                    continue;
-                }
-                String tmpValue = value.toString().trim();
-                if (tmpValue.isEmpty() || "null".equals(tmpValue)) {
-                    valueMissing = true;
-                    continue;
-                }
-                // Handle case where zero is not acceptable
-                if (!acceptZeroAsValidKey && "0".equals(tmpValue)) {
-                    valueMissing = true;
-                }
-            }
-            hasKey = !valueMissing;
-        } else if (primaryKey != null) {
-            String value = primaryKey.toString().trim();
-            if (acceptZeroAsValidKey) {
-                if (!value.isEmpty() && !value.equals("null")) {
-                    hasKey = true;
-                }
-            } else if (!value.equals("0") && !value.isEmpty() && !value.equals("null")) {
-                hasKey = true;
-            }
-        }
-        return hasKey;
+        return getDtoMetadata(instance.getClass()).getPrimaryKeyExtractor().hasPrimaryKey(instance, acceptZeroAsValidKey);
     }
 
-    private static final Map<Class, Map<Class, Map<String, Method>>> foreignKeySetterMethodMap = new HashMap<Class, Map<Class, Map<String, Method>>>();
-
     /**
      * Sets a foreign key on the DTO.
      *
@@ -1312,34 +768,20 @@ public class DTOUtils {
      */
     public static void setForeignKey(BaseDTO instance, Class<? extends BaseDTO> foreignClass, Object key, String fieldName) {
         final String METHODNAME = "setForeignKey ";
-        Map<Class, Map<String, Method>> foreignKeyClassMethodMap = foreignKeySetterMethodMap.get(instance.getClass());
-        if (foreignKeyClassMethodMap == null) {
-            foreignKeyClassMethodMap = new HashMap<Class, Map<String, Method>>();
-            foreignKeySetterMethodMap.put(instance.getClass(), foreignKeyClassMethodMap);
-        }
-        Map<String, Method> setterMethodMap = foreignKeyClassMethodMap.get(foreignClass);
-        if (setterMethodMap == null) {
-            setterMethodMap = new HashMap<String, Method>();
-            foreignKeyClassMethodMap.put(foreignClass, setterMethodMap);
-        }
-        Method setterMethod = setterMethodMap.get(fieldName);
-        if (setterMethod == null) {
-            Field fkField = getForeignKeyField(instance.getClass(), foreignClass, fieldName);
-            if (fkField != null) {
-                try {
-                    PropertyDescriptor propertyDescriptor = new PropertyDescriptor(fkField.getName(), instance.getClass());
-                    setterMethod = propertyDescriptor.getWriteMethod();
-                    setterMethodMap.put(fieldName, setterMethod);
-                } catch (Exception e) {
-                    throw new IllegalStateException("An error occurred setting: " + fkField.getName() + " - msg: " + e.getMessage(), e);
-                }
-            } else {
-                throw new IllegalStateException(""
-                        + "fkField is null - There is no field annotated with GeneratedValue "
-                        + "corresponding to the supplied foreign key class: " + foreignClass.getSimpleName()
-                        + " - instance type: " + instance.getClass().getCanonicalName() + " - field value: "
-                        + key);
+        Method setterMethod;
+        Field fkField = getForeignKeyField(instance.getClass(), foreignClass, fieldName);
+        if (fkField != null) {
+            try {
+                setterMethod = getDtoMetadata(instance.getClass()).getWriteMethod(fkField.getName());
+            } catch (Exception e) {
+                throw new IllegalStateException("An error occurred setting: " + fkField.getName() + " - msg: " + e.getMessage(), e);
             }
+        } else {
+            throw new IllegalStateException(""
+                    + "fkField is null - There is no field annotated with GeneratedValue "
+                    + "corresponding to the supplied foreign key class: " + foreignClass.getSimpleName()
+                    + " - instance type: " + instance.getClass().getCanonicalName() + " - field value: "
+                    + key);
         }
         if (setterMethod != null) {
             try {
@@ -1352,8 +794,8 @@ public class DTOUtils {
                     newInstance.setPrimaryKey(key);
                     key = newInstance;
                 }
-                setterMethod.setAccessible(true);
                 setterMethod.invoke(instance, key);
+                ChildDTOList.primaryKeyChanged(instance, fkField.getName());
             } catch (Exception e) {
                 throw new IllegalStateException("An error occurred setting: " + foreignClass
                         + " - msg: " + e.getMessage()
@@ -1428,41 +870,15 @@ public class DTOUtils {
     }
 
     public static String getDtoMgrReference(Class<? extends BaseDTO> dtoClass) {
-        String result;
-        String className = dtoClass.getSimpleName();
-        int pos = className.toLowerCase().indexOf("dto");
-        if (pos > 0) {
-            result = className.substring(0, pos) + "MGR";
-        } else {
-            result = className + "MGR";
-        }
-        return result;
+        return getDtoMetadata(dtoClass).getDtoMgrReference();
     }
 
-    // TODO: cache this
     public static String getDtoDaoReference(Class<? extends BaseDTO> dtoClass) {
-        String result;
-        String className = dtoClass.getSimpleName();
-        int pos = className.toLowerCase().indexOf("dto");
-        if (pos > 0) {
-            result = className.substring(0, pos) + "DAO";
-        } else {
-            result = className + "DAO";
-        }
-        return result;
+        return getDtoMetadata(dtoClass).getDtoDaoReference();
     }
 
-    // TODO: cache this
     public static String getDtoBoReference(Class<? extends BaseDTO> dtoClass) {
-        String result;
-        String className = dtoClass.getSimpleName();
-        int pos = className.toLowerCase().indexOf("dto");
-        if (pos > 0) {
-            result = className.substring(0, pos) + "BO";
-        } else {
-            result = className + "BO";
-        }
-        return result;
+        return getDtoMetadata(dtoClass).getDtoBoReference();
     }
 
     public static boolean dtoEquals(Object sourceObj, Object targetObj) {
@@ -1478,10 +894,12 @@ public class DTOUtils {
             if (sourceDTO.isNew() && targetDTO.isNew()) {
                 return sourceDTO.getUuid().equals(targetDTO.getUuid());
             }
-            if (sourceDTO.getPrimaryKey() == null || targetDTO.getPrimaryKey() == null) {
+            Object sourcePrimaryKey = sourceDTO.getPrimaryKey();
+            Object targetPrimaryKey = targetDTO.getPrimaryKey();
+            if (sourcePrimaryKey == null || targetPrimaryKey == null) {
                 return false;
             }
-            if (!sourceDTO.getPrimaryKey().equals(targetDTO.getPrimaryKey())) {
+            if (!sourcePrimaryKey.equals(targetPrimaryKey)) {
                 return false;
             }
         } catch (IllegalStateException e) {
@@ -1494,7 +912,8 @@ public class DTOUtils {
     public static int dtoHashCode(BaseDTO baseDTO) {
         int hash = 7;
         try {
-            hash = 37 * hash + (baseDTO.getPrimaryKey() != null ? baseDTO.getPrimaryKey().hashCode() : 0);
+            Object primaryKey = baseDTO.getPrimaryKey();
+            hash = 37 * hash + (primaryKey != null ? primaryKey.hashCode() : 0);
         } catch (IllegalStateException e) {
             logger.error("An MtsException has occurred; Message:" + e.getMessage(), e);
             throw e;
@@ -1502,7 +921,6 @@ public class DTOUtils {
         return hash;
     }
 
-    // TODO: cache this
     public static boolean isVanity(Class<? extends BaseDTO> dtoClass, Class<? extends BaseDTO> foreignKeyClass) {
         final String METHODNAME = "isVanity ";
         boolean result = CoreConstants.VANITY_DEFAULT;
@@ -1539,8 +957,23 @@ public class DTOUtils {
         return StringUtils.unCamelize(fieldName, "_").toLowerCase();
     }
 
+    /**
+     * Returns a copy of the cached sort field to order by clause map of the DTO class.
+     *
+     * @param dtoClass
+     * @param databaseType
+     * @return the sort field order by map.
+     */
     public static Map<String, String> getSortFieldOrderByMap(Class<? extends BaseDTO> dtoClass, DatabaseType databaseType) {
-        final String METHODNAME = "getSortFieldOrderByMap ";
+        return new HashMap<String, String>(getSortMetadata(dtoClass, databaseType).getSortFieldOrderByMap());
+    }
+
+    public static SortMetadata getSortMetadata(Class<? extends BaseDTO> dtoClass, DatabaseType databaseType) {
+        return getDtoMetadata(dtoClass).getSortMetadata(databaseType);
+    }
+
+    static Map<String, String> createSortFieldOrderByMap(Class<? extends BaseDTO> dtoClass, DatabaseType databaseType) {
+        final String METHODNAME = "createSortFieldOrderByMap ";
         Map<String, String> sortFieldOrderByMap = new HashMap<String, String>();
         sortFieldOrderByMap.put("lastModId", " order by last_mod_id ");
         sortFieldOrderByMap.put("createId", " order by create_id ");
@@ -1591,51 +1024,12 @@ public class DTOUtils {
         return sortFieldOrderByMap;
     }
 
-    private static final Map<Class, Comparator> dtoComparatorMap = new HashMap<Class, Comparator>();
-
-    // TODO: cache this
     public static <S extends Comparator> S getDtoComparator(Class<? extends BaseDTO> dtoClass) {
-
-        S result = null;
-        if (!dtoComparatorMap.containsKey(dtoClass)) {
-            OrderBy orderBy = dtoClass.getAnnotation(OrderBy.class);
-            if (orderBy != null) {
-                Class<? extends Comparator> comparator = orderBy.comparator();
-                if (comparator != null && comparator != Comparator.class) {
-                    try {
-                        result = (S) comparator.newInstance();
-                    } catch (InstantiationException e) {
-                        logger.error(e);
-                    } catch (IllegalAccessException e) {
-                        logger.error(e);
-                    }
-                }
-            }
-            dtoComparatorMap.put(dtoClass, result);
-        } else {
-            result = (S) dtoComparatorMap.get(dtoClass);
-        }
-        return result;
+        return (S) getDtoMetadata(dtoClass).getDtoComparator();
     }
 
-    private static final Map<Class, String> dtoOrderbyMap = new HashMap<Class, String>();
-
     public static String getDtoOrderBy(Class<? extends BaseDTO> dtoClass) {
-
-        String result = "";
-        if (!dtoOrderbyMap.containsKey(dtoClass)) {
-            OrderBy orderBy = dtoClass.getAnnotation(OrderBy.class);
-            if (orderBy != null) {
-                String fields = orderBy.fields();
-                if (!StringUtils.isEmpty(fields)) {
-                    result = "order by " + fields;
-                }
-            }
-            dtoOrderbyMap.put(dtoClass, result);
-        } else {
-            result = dtoOrderbyMap.get(dtoClass);
-        }
-        return result;
+        return getDtoMetadata(dtoClass).getDtoOrderBy();
     }
 
     public static <S extends BaseDTO> void logDTOProperties(S dto) {
@@ -1667,95 +1061,52 @@ public class DTOUtils {
     }
 
     public static Entity getEntity(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.getAnnotation(Entity.class);
+        return getDtoMetadata(dtoClass).getEntity();
     }
 
-    private static final Map<Class, DTOTable> dtoClassDTOTableMap = new HashMap<Class, DTOTable>();
-
     public static DTOTable getDTOTable(Class<? extends BaseDTO> dtoClass) {
-        final String METHODNAME = "getDTOTable ";
-        if (dtoClassDTOTableMap.containsKey(dtoClass)) {
-            return dtoClassDTOTableMap.get(dtoClass);
-        } else {
-            DTOTable dtoTable = null;
-            if (getEntity(dtoClass) != null) {
-                dtoTable = new DTOTable(dtoClass);
-            }
-            dtoClassDTOTableMap.put(dtoClass, dtoTable);
-            return dtoTable;
-        }
+        return getDtoMetadata(dtoClass).getDTOTable();
     }
 
-    // TODO: cache this
     public static Table getDtoTable(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.getAnnotation(Table.class);
+        return getDtoMetadata(dtoClass).getTable();
     }
 
-    // TODO: cache this
     public static JndiReference getJndiReference(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.getAnnotation(JndiReference.class);
+        return getDtoMetadata(dtoClass).getJndiReference();
     }
 
     // DTOWrapper is a object that does not have a BO/DAO and do not exist on a parentDTO
     // They are used and constructed solely in CAT and are used as presentation objects
     public static boolean isDTOWrapper(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.isAnnotationPresent(DTOWrapper.class);
+        return getDtoMetadata(dtoClass).isDTOWrapper();
     }
 
     public static Audit getAudit(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.getAnnotation(Audit.class);
+        return getDtoMetadata(dtoClass).getAudit();
     }
 
-    // TODO: cache this
     public static String getJndiReferenceURI(Class<? extends BaseDTO> dtoClass) {
-        String uri = null;
-        JndiReference jndiReference = getJndiReference(dtoClass);
-        if (jndiReference != null) {
-            String mgrReference = jndiReference.remote();
-            if (mgrReference == null || mgrReference.isEmpty()) {
-                mgrReference = getDtoMgrReference(dtoClass);
-            }
-            uri = String.format("%s/%s", jndiReference.root(), mgrReference);
-        }
-        return uri;
+        return getDtoMetadata(dtoClass).getJndiReferenceURI();
     }
 
-    // TODO: cache this
     public static String getJndiBoReferenceURI(Class<? extends BaseDTO> dtoClass) {
-        String uri = null;
-        JndiReference jndiReference = getJndiReference(dtoClass);
-        if (jndiReference != null) {
-            String boReference = jndiReference.bo();
-            if (boReference == null || boReference.isEmpty()) {
-                boReference = getDtoBoReference(dtoClass);
-            }
-            uri = String.format("java:app/%s/%s", jndiReference.root(), boReference);
-        }
-        return uri;
+        return getDtoMetadata(dtoClass).getJndiBoReferenceURI();
     }
 
-    // TODO: cache this
     public static String getJndiDaoReferenceURI(Class<? extends BaseDTO> dtoClass) {
-        String uri = null;
-        JndiReference jndiReference = getJndiReference(dtoClass);
-        if (jndiReference != null) {
-            String daoReference = jndiReference.dao();
-            if (daoReference == null || daoReference.isEmpty()) {
-                daoReference = getDtoDaoReference(dtoClass);
-            }
-            uri = String.format("java:app/%s/%s", jndiReference.root(), daoReference);
-        }
-        return uri;
+        return getDtoMetadata(dtoClass).getJndiDaoReferenceURI();
     }
 
     public static void performDTOClassValidation(Class dtoClass, String jndiRoot) {
-        System.out.println("Checking DTO: " + dtoClass.getCanonicalName());
+        final String METHODNAME = "performDTOClassValidation ";
+        logger.debug(METHODNAME, "Checking DTO: ", dtoClass.getCanonicalName());
         if (!isDTOWrapper(dtoClass)) {
             JndiReference jndiReference = getJndiReference(dtoClass);
             if (jndiReference == null) {
                 throw new IllegalStateException(dtoClass.getSimpleName() + " does not have a JndiReference annotation on it!");
             }
-            if (!jndiReference.root().equals(jndiRoot)) {
+            if (jndiRoot != null && !jndiReference.root().equals(jndiRoot)) {
                 throw new IllegalStateException(dtoClass.getSimpleName() + " JNDI root mismatch: expected " + jndiRoot + " got " + jndiReference.root());
             }
             Permission permission = getPermission(dtoClass);
@@ -1779,9 +1130,8 @@ public class DTOUtils {
         }
     }
 
-    // TODO: cache this
     public static Permission getPermission(Class<? extends BaseDTO> dtoClass) {
-        return dtoClass.getAnnotation(Permission.class);
+        return getDtoMetadata(dtoClass).getPermission();
     }
 
     public static List<Class> getChildClassDTOs(BaseDTO baseDTO, List<Class> childClassDTOs) {
@@ -1813,8 +1163,6 @@ public class DTOUtils {
         }
     }
 
-    private static final Map<Class<? extends BaseDTO>, List<Class>> dtoChildClassMap = new HashMap<Class<? extends BaseDTO>, List<Class>>();
-
     /**
      * Get the derived child list for a DTO.
      *
@@ -1822,14 +1170,7 @@ public class DTOUtils {
      * @return
      */
     public static List<Class> getDtoChildClasses(Class<? extends BaseDTO> dtoClass) {
-        final String METHODNAME = "getDtoChildClasses ";
-        List<Class> result = dtoChildClassMap.get(dtoClass);
-        if (result == null) {
-            result = getDtoChildClasses(dtoClass, new ArrayList<Class>(), new ArrayList<Class>());
-            logger.debug(METHODNAME, "result for ", dtoClass, ": ", result);
-            dtoChildClassMap.put(dtoClass, result);
-        }
-        return result;
+        return getDtoMetadata(dtoClass).getDtoChildClasses();
     }
 
     /**
@@ -1841,7 +1182,7 @@ public class DTOUtils {
      * @param processedList
      * @return
      */
-    private static List<Class> getDtoChildClasses(Class<? extends BaseDTO> dtoClass, List<Class> childClassDTOs, List<Class> processedList) {
+    static List<Class> getDtoChildClasses(Class<? extends BaseDTO> dtoClass, List<Class> childClassDTOs, List<Class> processedList) {
         final String METHODNAME = "getDtoChildClasses ";
         if (!processedList.contains(dtoClass)) {
             processedList.add(dtoClass);
@@ -1998,6 +1339,7 @@ public class DTOUtils {
         for (Field field : declaredFields) {
             field.setAccessible(true);
             field.set(dest, field.get(source));
+            ChildDTOList.primaryKeyChanged(dest, field.getName());
         }
     }
 }
@@ -0,0 +1,710 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.util;
+
+import java.beans.IntrospectionException;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.cdsframework.annotation.Audit;
+import org.cdsframework.annotation.ColumnSubstitutions;
+import org.cdsframework.annotation.DTOWrapper;
+import org.cdsframework.annotation.Entity;
+import org.cdsframework.annotation.GeneratedValue;
+import org.cdsframework.annotation.Id;
+import org.cdsframework.annotation.JndiReference;
+import org.cdsframework.annotation.NoDAO;
+import org.cdsframework.annotation.NoId;
+import org.cdsframework.annotation.OrderBy;
+import org.cdsframework.annotation.ParentBehavior;
+import org.cdsframework.annotation.ParentChildRelationship;
+import org.cdsframework.annotation.ParentChildRelationships;
+import org.cdsframework.annotation.Permission;
+import org.cdsframework.annotation.ReadOnly;
+import org.cdsframework.annotation.ReferenceDTO;
+import org.cdsframework.annotation.RefreshOnAddOrUpdate;
+import org.cdsframework.annotation.RowsReturnCountBehavior;
+import org.cdsframework.annotation.Table;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.enumeration.DatabaseType;
+import org.cdsframework.enumeration.GenerationSource;
+import org.cdsframework.exceptions.AnnotationException;
+import org.cdsframework.util.comparator.IdFieldComparator;
+import org.cdsframework.util.support.CoreConstants;
+
+/**
+ * Provides an immutable snapshot of the annotation derived metadata of a DTO class.
+ *
+ * Instances are created and published by the DtoMetadataRegistry. Everything that only depends on the DTO class itself is
+ * computed in the constructor and held in final fields. The DTOTable, the comparator and the derived child class list depend on
+ * the metadata of other DTO classes and are built on first use. Lookups keyed by a second value (foreign key class, field name)
+ * are memoized in concurrent maps. None of the read paths take a lock.
+ *
+ * @author HLN Consulting, LLC
+ */
+public final class DtoMetadata {
+
+    private static final LogUtils logger = LogUtils.getLogger(DtoMetadata.class);
+    private static final String NULL_FIELD_KEY = "nullfield";
+
+    private final Class<? extends BaseDTO> dtoClass;
+
+    // class level annotations
+    private final RowsReturnCountBehavior rowsReturnCountBehavior;
+    private final ParentBehavior parentBehavior;
+    private final ColumnSubstitutions columnSubstitutions;
+    private final Table table;
+    private final Entity entity;
+    private final JndiReference jndiReference;
+    private final Permission permission;
+    private final Audit audit;
+    private final OrderBy orderBy;
+    private final boolean readOnly;
+    private final boolean noId;
+    private final boolean noDAO;
+    private final boolean refreshOnAddOrUpdate;
+    private final boolean dtoWrapper;
+
+    // derived parent behavior
+    private final boolean addsChild;
+    private final boolean deletesChild;
+    private final boolean updatesChild;
+    private final boolean deleteAllowed;
+    private final boolean addAllowed;
+    private final boolean updateAllowed;
+
+    // parent child relationships
+    private final Map<Class, ParentChildRelationship> parentChildRelationshipMapByQueryClass;
+    private final Map<Class<? extends BaseDTO>, ParentChildRelationship> parentChildRelationshipMapByDTO;
+    private final Map<Class<? extends BaseDTO>, Class> dtoQueryMap;
+
+    // primary key
+    private final List<Field> primaryKeyFields;
+    private final Set<String> primaryKeyFieldNames;
+    private final boolean primaryKeyMissing;
+    private final PrimaryKeyExtractor primaryKeyExtractor;
+    private final List<GeneratedValue> pkGeneratedValues;
+    private final List<Class> primaryKeyClasses;
+    private final List<Field> pkGeneratedSourceSequenceFields;
+    private final boolean pkGeneratedSourceAuto;
+    private final boolean pkGeneratedSourceSequence;
+
+    // foreign keys and reference DTOs
+    private final List<Class<? extends BaseDTO>> foreignKeySourceClasses;
+    private final List<Field> referenceDTOs;
+
+    // names
+    private final String dtoOrderBy;
+    private final String dtoMgrReference;
+    private final String dtoDaoReference;
+    private final String dtoBoReference;
+    private final String jndiReferenceURI;
+    private final String jndiBoReferenceURI;
+    private final String jndiDaoReferenceURI;
+
+    // memoized second level lookups
+    private final ConcurrentMap<Class, ConcurrentMap<String, List<Field>>> foreignKeyFieldsMap
+            = new ConcurrentHashMap<Class, ConcurrentMap<String, List<Field>>>();
+    private final ConcurrentMap<Class, ConcurrentMap<String, List<GeneratedValue>>> generatedValuesMap
+            = new ConcurrentHashMap<Class, ConcurrentMap<String, List<GeneratedValue>>>();
+    private final ConcurrentMap<String, Method> writeMethodMap = new ConcurrentHashMap<String, Method>();
+    // property change journal slots - assigned on the first recorded change of a property
+    private final ConcurrentMap<String, Integer> propertyIndexMap = new ConcurrentHashMap<String, Integer>();
+    private final AtomicInteger propertyIndexCount = new AtomicInteger();
+    private final ConcurrentMap<DatabaseType, SortMetadata> sortMetadataMap = new ConcurrentHashMap<DatabaseType, SortMetadata>();
+
+    // metadata that depends on other DTO classes - built on first use
+    private volatile DTOTable dtoTable;
+    private volatile boolean dtoTableInitialized;
+    private volatile Comparator dtoComparator;
+    private volatile boolean dtoComparatorInitialized;
+    private volatile List<Class> dtoChildClasses;
+
+    DtoMetadata(Class<? extends BaseDTO> dtoClass) {
+        this.dtoClass = dtoClass;
+
+        rowsReturnCountBehavior = dtoClass.getAnnotation(RowsReturnCountBehavior.class);
+        parentBehavior = dtoClass.getAnnotation(ParentBehavior.class);
+        columnSubstitutions = dtoClass.getAnnotation(ColumnSubstitutions.class);
+        table = dtoClass.getAnnotation(Table.class);
+        entity = dtoClass.getAnnotation(Entity.class);
+        jndiReference = dtoClass.getAnnotation(JndiReference.class);
+        permission = dtoClass.getAnnotation(Permission.class);
+        audit = dtoClass.getAnnotation(Audit.class);
+        orderBy = dtoClass.getAnnotation(OrderBy.class);
+        readOnly = dtoClass.isAnnotationPresent(ReadOnly.class);
+        noId = dtoClass.isAnnotationPresent(NoId.class);
+        noDAO = dtoClass.isAnnotationPresent(NoDAO.class);
+        refreshOnAddOrUpdate = dtoClass.isAnnotationPresent(RefreshOnAddOrUpdate.class);
+        dtoWrapper = dtoClass.isAnnotationPresent(DTOWrapper.class);
+
+        if (readOnly) {
+            addsChild = false;
+            deletesChild = false;
+            updatesChild = false;
+            deleteAllowed = false;
+            addAllowed = false;
+            updateAllowed = false;
+        } else if (parentBehavior == null) {
+            addsChild = CoreConstants.ADDS_CHILD_DEFAULT;
+            deletesChild = CoreConstants.DELETES_CHILD_DEFAULT;
+            updatesChild = CoreConstants.UPDATES_CHILD_DEFAULT;
+            deleteAllowed = CoreConstants.DELETE_ALLOWED_DEFAULT;
+            addAllowed = CoreConstants.ADD_ALLOWED_DEFAULT;
+            updateAllowed = CoreConstants.UPDATE_ALLOWED_DEFAULT;
+        } else {
+            addsChild = parentBehavior.addsChild();
+            deletesChild = parentBehavior.deletesChild();
+            updatesChild = parentBehavior.updatesChild();
+            deleteAllowed = parentBehavior.deleteAllowed();
+            addAllowed = parentBehavior.addAllowed();
+            updateAllowed = parentBehavior.updateAllowed();
+        }
+
+        Map<Class, ParentChildRelationship> byQueryClass = new HashMap<Class, ParentChildRelationship>();
+        Map<Class<? extends BaseDTO>, ParentChildRelationship> byDTO = new HashMap<Class<? extends BaseDTO>, ParentChildRelationship>();
+        Map<Class<? extends BaseDTO>, Class> queryMap = new HashMap<Class<? extends BaseDTO>, Class>();
+        ParentChildRelationships parentChildRelationships = dtoClass.getAnnotation(ParentChildRelationships.class);
+        if (parentChildRelationships != null) {
+            for (ParentChildRelationship parentChildRelationship : parentChildRelationships.value()) {
+                byQueryClass.put(parentChildRelationship.childQueryClass(), parentChildRelationship);
+                byDTO.put(parentChildRelationship.childDtoClass(), parentChildRelationship);
+                queryMap.put(parentChildRelationship.childDtoClass(), parentChildRelationship.childQueryClass());
+            }
+        }
+        parentChildRelationshipMapByQueryClass = Collections.unmodifiableMap(byQueryClass);
+        parentChildRelationshipMapByDTO = Collections.unmodifiableMap(byDTO);
+        dtoQueryMap = Collections.unmodifiableMap(queryMap);
+
+        List<Field> pkFields = new ArrayList<Field>();
+        List<Field> references = new ArrayList<Field>();
+        List<Class<? extends BaseDTO>> sourceClasses = new ArrayList<Class<? extends BaseDTO>>();
+        for (Field field : ClassUtils.getNonBaseDTODeclaredFields(dtoClass)) {
+            if (field.getAnnotation(Id.class) != null) {
+                pkFields.add(field);
+            }
+            if (field.getAnnotation(ReferenceDTO.class) != null) {
+                references.add(field);
+            }
+            GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
+            if (generatedValue != null && generatedValue.source() == GenerationSource.FOREIGN_CONSTRAINT) {
+                for (Class klass : generatedValue.sourceClass()) {
+                    if (BaseDTO.class.isAssignableFrom(klass)) {
+                        sourceClasses.add(klass);
+                    }
+                }
+            }
+        }
+        Collections.sort(pkFields, new IdFieldComparator());
+        primaryKeyFields = Collections.unmodifiableList(pkFields);
+        Set<String> pkFieldNames = new HashSet<String>();
+        for (Field field : pkFields) {
+            pkFieldNames.add(field.getName());
+        }
+        primaryKeyFieldNames = Collections.unmodifiableSet(pkFieldNames);
+        primaryKeyMissing = pkFields.isEmpty() && !noId;
+        primaryKeyExtractor = primaryKeyMissing ? null : PrimaryKeyExtractor.newInstance(primaryKeyFields);
+        referenceDTOs = Collections.unmodifiableList(references);
+        foreignKeySourceClasses = Collections.unmodifiableList(sourceClasses);
+
+        List<GeneratedValue> generatedValues = new ArrayList<GeneratedValue>();
+        List<Class> pkClasses = new ArrayList<Class>();
+        List<Field> sequenceFields = new ArrayList<Field>();
+        boolean containsAuto = false;
+        boolean containsSequence = false;
+        for (Field field : pkFields) {
+            pkClasses.add(field.getType());
+            GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
+            if (generatedValue != null) {
+                if (!generatedValues.contains(generatedValue)) {
+                    generatedValues.add(generatedValue);
+                }
+                if (generatedValue.source() == GenerationSource.AUTO) {
+                    containsAuto = true;
+                } else if (generatedValue.source() == GenerationSource.SEQUENCE) {
+                    containsSequence = true;
+                    sequenceFields.add(field);
+                }
+            }
+        }
+        pkGeneratedValues = Collections.unmodifiableList(generatedValues);
+        primaryKeyClasses = Collections.unmodifiableList(pkClasses);
+        pkGeneratedSourceSequenceFields = Collections.unmodifiableList(sequenceFields);
+        pkGeneratedSourceAuto = containsAuto;
+        pkGeneratedSourceSequence = containsSequence;
+
+        String orderByFields = orderBy != null ? orderBy.fields() : null;
+        dtoOrderBy = StringUtils.isEmpty(orderByFields) ? "" : "order by " + orderByFields;
+
+        dtoMgrReference = getDtoReference(dtoClass, "MGR");
+        dtoDaoReference = getDtoReference(dtoClass, "DAO");
+        dtoBoReference = getDtoReference(dtoClass, "BO");
+        if (jndiReference != null) {
+            String mgrReference = jndiReference.remote();
+            if (mgrReference == null || mgrReference.isEmpty()) {
+                mgrReference = dtoMgrReference;
+            }
+            String boReference = jndiReference.bo();
+            if (boReference == null || boReference.isEmpty()) {
+                boReference = dtoBoReference;
+            }
+            String daoReference = jndiReference.dao();
+            if (daoReference == null || daoReference.isEmpty()) {
+                daoReference = dtoDaoReference;
+            }
+            jndiReferenceURI = String.format("%s/%s", jndiReference.root(), mgrReference);
+            jndiBoReferenceURI = String.format("java:app/%s/%s", jndiReference.root(), boReference);
+            jndiDaoReferenceURI = String.format("java:app/%s/%s", jndiReference.root(), daoReference);
+        } else {
+            jndiReferenceURI = null;
+            jndiBoReferenceURI = null;
+            jndiDaoReferenceURI = null;
+        }
+    }
+
+    private static String getDtoReference(Class<? extends BaseDTO> dtoClass, String suffix) {
+        String className = dtoClass.getSimpleName();
+        int pos = className.toLowerCase().indexOf("dto");
+        if (pos > 0) {
+            return className.substring(0, pos) + suffix;
+        } else {
+            return className + suffix;
+        }
+    }
+
+    public Class<? extends BaseDTO> getDtoClass() {
+        return dtoClass;
+    }
+
+    public RowsReturnCountBehavior getRowsReturnCountBehavior() {
+        return rowsReturnCountBehavior;
+    }
+
+    public ParentBehavior getParentBehavior() {
+        return parentBehavior;
+    }
+
+    public ColumnSubstitutions getColumnSubstitutions() {
+        return columnSubstitutions;
+    }
+
+    public Table getTable() {
+        return table;
+    }
+
+    public Entity getEntity() {
+        return entity;
+    }
+
+    public JndiReference getJndiReference() {
+        return jndiReference;
+    }
+
+    public Permission getPermission() {
+        return permission;
+    }
+
+    public Audit getAudit() {
+        return audit;
+    }
+
+    public boolean isAudit() {
+        return audit != null;
+    }
+
+    public boolean isEntity() {
+        return entity != null;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public boolean isNoId() {
+        return noId;
+    }
+
+    public boolean isNoDAO() {
+        return noDAO;
+    }
+
+    public boolean isRefreshOnAddOrUpdate() {
+        return refreshOnAddOrUpdate;
+    }
+
+    public boolean isDTOWrapper() {
+        return dtoWrapper;
+    }
+
+    public boolean isAddsChild() {
+        return addsChild;
+    }
+
+    public boolean isDeletesChild() {
+        return deletesChild;
+    }
+
+    public boolean isUpdatesChild() {
+        return updatesChild;
+    }
+
+    public boolean isDeleteAllowed() {
+        return deleteAllowed;
+    }
+
+    public boolean isAddAllowed() {
+        return addAllowed;
+    }
+
+    public boolean isUpdateAllowed() {
+        return updateAllowed;
+    }
+
+    public Map<Class, ParentChildRelationship> getParentChildRelationshipMapByQueryClass() {
+        return parentChildRelationshipMapByQueryClass;
+    }
+
+    public Map<Class<? extends BaseDTO>, ParentChildRelationship> getParentChildRelationshipMapByDTO() {
+        return parentChildRelationshipMapByDTO;
+    }
+
+    public Map<Class<? extends BaseDTO>, Class> getDtoQueryMap() {
+        return dtoQueryMap;
+    }
+
+    /**
+     * Returns the primary key Field(s) sorted by their Id order.
+     *
+     * @return the primary key Field(s).
+     * @throws IllegalStateException if there is no Id or NoId annotation on the DTO.
+     */
+    public List<Field> getPrimaryKeyFields() {
+        if (primaryKeyMissing) {
+            throw new IllegalStateException("pkFields.isEmpty() && !isNoId()",
+                    new AnnotationException("There is no Id or NoId annotation set. "
+                            + "Annotate the appropriate field(s) in the DTO with Id or NoId annotation: " + dtoClass.getSimpleName(),
+                            Id.class));
+        }
+        return primaryKeyFields;
+    }
+
+    /**
+     * Returns whether the named property is a primary key field of the DTO.
+     *
+     * @param fieldName
+     * @return true if the property has the Id annotation.
+     */
+    public boolean isPrimaryKeyField(String fieldName) {
+        return primaryKeyFieldNames.contains(fieldName);
+    }
+
+    /**
+     * Returns the primary key extraction strategy of the DTO.
+     *
+     * @return the PrimaryKeyExtractor.
+     * @throws IllegalStateException if there is no Id or NoId annotation on the DTO.
+     */
+    public PrimaryKeyExtractor getPrimaryKeyExtractor() {
+        getPrimaryKeyFields();
+        return primaryKeyExtractor;
+    }
+
+    public List<GeneratedValue> getPKGeneratedValues() {
+        getPrimaryKeyFields();
+        return pkGeneratedValues;
+    }
+
+    public List<Class> getPrimaryKeyClasses() {
+        getPrimaryKeyFields();
+        return primaryKeyClasses;
+    }
+
+    public List<Field> getPKGeneratedSourceSequenceFields() {
+        getPrimaryKeyFields();
+        return pkGeneratedSourceSequenceFields;
+    }
+
+    public boolean isPKGeneratedSourceAuto() {
+        getPrimaryKeyFields();
+        return pkGeneratedSourceAuto;
+    }
+
+    public boolean isPKGeneratedSourceSequence() {
+        getPrimaryKeyFields();
+        return pkGeneratedSourceSequence;
+    }
+
+    public List<Class<? extends BaseDTO>> getForeignKeySourceClasses() {
+        return foreignKeySourceClasses;
+    }
+
+    public List<Field> getReferenceDTOs() {
+        return referenceDTOs;
+    }
+
+    public boolean isReferenceDTOsExist() {
+        return !referenceDTOs.isEmpty();
+    }
+
+    public String getDtoOrderBy() {
+        return dtoOrderBy;
+    }
+
+    public String getDtoMgrReference() {
+        return dtoMgrReference;
+    }
+
+    public String getDtoDaoReference() {
+        return dtoDaoReference;
+    }
+
+    public String getDtoBoReference() {
+        return dtoBoReference;
+    }
+
+    public String getJndiReferenceURI() {
+        return jndiReferenceURI;
+    }
+
+    public String getJndiBoReferenceURI() {
+        return jndiBoReferenceURI;
+    }
+
+    public String getJndiDaoReferenceURI() {
+        return jndiDaoReferenceURI;
+    }
+
+    /**
+     * Returns the fields which have a GeneratedValue annotation with their source = FOREIGN_CONSTRAINT and the sourceClass = the
+     * supplied class.
+     *
+     * @param foreignKeyClass the supplied class
+     * @param fieldName the specific property when there is more than one property involved in a foreign key scenario
+     * @return the matching fields.
+     */
+    public List<Field> getForeignKeyFields(Class<? extends BaseDTO> foreignKeyClass, String fieldName) {
+        ConcurrentMap<String, List<Field>> fieldMap = getSecondLevelMap(foreignKeyFieldsMap, foreignKeyClass);
+        String key = fieldName == null ? NULL_FIELD_KEY : fieldName;
+        List<Field> results = fieldMap.get(key);
+        if (results == null) {
+            List<Field> fields = new ArrayList<Field>();
+            for (Field field : ClassUtils.getNonBaseDTODeclaredFields(dtoClass)) {
+                GeneratedValue generatedValue = field.getAnnotation(GeneratedValue.class);
+                if (generatedValue != null && generatedValue.source() == GenerationSource.FOREIGN_CONSTRAINT) {
+                    for (Class klass : generatedValue.sourceClass()) {
+                        if (klass == foreignKeyClass
+                                && (fieldName == null || fieldName.equalsIgnoreCase(generatedValue.fieldName()))) {
+                            fields.add(field);
+                        }
+                    }
+                }
+            }
+            results = putIfAbsent(fieldMap, key, Collections.unmodifiableList(fields));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the GeneratedValue annotations of the foreign key fields of the supplied class.
+     *
+     * @param foreignKeyClass the supplied class
+     * @param fieldName the specific property when there is more than one property involved in a foreign key scenario
+     * @return the GeneratedValue annotations.
+     */
+    public List<GeneratedValue> getGeneratedValues(Class<? extends BaseDTO> foreignKeyClass, String fieldName) {
+        ConcurrentMap<String, List<GeneratedValue>> fieldMap = getSecondLevelMap(generatedValuesMap, foreignKeyClass);
+        String key = fieldName == null ? NULL_FIELD_KEY : fieldName;
+        List<GeneratedValue> results = fieldMap.get(key);
+        if (results == null) {
+            List<GeneratedValue> generatedValues = new ArrayList<GeneratedValue>();
+            for (Field foreignKeyField : getForeignKeyFields(foreignKeyClass, fieldName)) {
+                GeneratedValue generatedValue = foreignKeyField.getAnnotation(GeneratedValue.class);
+                if (generatedValue != null) {
+                    generatedValues.add(generatedValue);
+                }
+            }
+            results = putIfAbsent(fieldMap, key, Collections.unmodifiableList(generatedValues));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the bean setter method of the named property.
+     *
+     * @param fieldName
+     * @return the setter method.
+     * @throws IntrospectionException
+     */
+    public Method getWriteMethod(String fieldName) throws IntrospectionException {
+        Method writeMethod = writeMethodMap.get(fieldName);
+        if (writeMethod == null) {
+            writeMethod = new PropertyDescriptor(fieldName, dtoClass).getWriteMethod();
+            if (writeMethod != null) {
+                writeMethod.setAccessible(true);
+                writeMethod = putIfAbsent(writeMethodMap, fieldName, writeMethod);
+            }
+        }
+        return writeMethod;
+    }
+
+    /**
+     * Returns the DTOTable of the DTO. Built once on first use. Returns null if the DTO is not an Entity.
+     *
+     * @return the DTOTable.
+     */
+    public DTOTable getDTOTable() {
+        if (!dtoTableInitialized) {
+            synchronized (this) {
+                if (!dtoTableInitialized) {
+                    if (entity != null) {
+                        dtoTable = new DTOTable(dtoClass);
+                    }
+                    dtoTableInitialized = true;
+                }
+            }
+        }
+        return dtoTable;
+    }
+
+    /**
+     * Returns the shared comparator instance registered with the OrderBy annotation.
+     *
+     * @return the comparator or null.
+     */
+    public Comparator getDtoComparator() {
+        if (!dtoComparatorInitialized) {
+            Comparator result = null;
+            if (orderBy != null) {
+                Class<? extends Comparator> comparator = orderBy.comparator();
+                if (comparator != null && comparator != Comparator.class) {
+                    try {
+                        result = comparator.newInstance();
+                    } catch (InstantiationException e) {
+                        logger.error(e);
+                    } catch (IllegalAccessException e) {
+                        logger.error(e);
+                    }
+                }
+            }
+            // a racing thread may build a second instance - only one of them will be published
+            synchronized (this) {
+                if (!dtoComparatorInitialized) {
+                    dtoComparator = result;
+                    dtoComparatorInitialized = true;
+                }
+            }
+        }
+        return dtoComparator;
+    }
+
+    /**
+     * Returns the derived child class list of the DTO. Built once on first use.
+     *
+     * @return the child and reference DTO classes.
+     */
+    public List<Class> getDtoChildClasses() {
+        List<Class> result = dtoChildClasses;
+        if (result == null) {
+            result = Collections.unmodifiableList(DTOUtils.getDtoChildClasses(dtoClass, new ArrayList<Class>(), new ArrayList<Class>()));
+            dtoChildClasses = result;
+        }
+        return result;
+    }
+
+    private static <T> ConcurrentMap<String, T> getSecondLevelMap(ConcurrentMap<Class, ConcurrentMap<String, T>> map, Class key) {
+        ConcurrentMap<String, T> result = map.get(key);
+        if (result == null) {
+            result = putIfAbsent(map, key, new ConcurrentHashMap<String, T>());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the property change journal slot of the property or -1 if no change of the property has been recorded yet.
+     *
+     * @param propertyName
+     * @return the slot.
+     */
+    public int getPropertyIndex(String propertyName) {
+        Integer propertyIndex = propertyIndexMap.get(propertyName == null ? NULL_FIELD_KEY : propertyName);
+        return propertyIndex != null ? propertyIndex : -1;
+    }
+
+    /**
+     * Returns the property change journal slot of the property, assigning the next free slot on first use.
+     *
+     * @param propertyName
+     * @return the slot.
+     */
+    public int addPropertyIndex(String propertyName) {
+        String key = propertyName == null ? NULL_FIELD_KEY : propertyName;
+        Integer propertyIndex = propertyIndexMap.get(key);
+        if (propertyIndex == null) {
+            propertyIndex = putIfAbsent(propertyIndexMap, key, propertyIndexCount.getAndIncrement());
+        }
+        return propertyIndex;
+    }
+
+    /**
+     * Returns the sort metadata of the DTO class for the database type. A null database type is treated as ANY.
+     *
+     * @param databaseType
+     * @return the sort metadata.
+     */
+    public SortMetadata getSortMetadata(DatabaseType databaseType) {
+        DatabaseType key = databaseType == null ? DatabaseType.ANY : databaseType;
+        SortMetadata result = sortMetadataMap.get(key);
+        if (result == null) {
+            result = putIfAbsent(sortMetadataMap, key, new SortMetadata(dtoClass, key, DTOUtils.createSortFieldOrderByMap(dtoClass, key)));
+        }
+        return result;
+    }
+
+    /*
+     * get/putIfAbsent rather than computeIfAbsent - on java 8 computeIfAbsent locks the bin even when the key is present.
+     */
+    private static <K, V> V putIfAbsent(ConcurrentMap<K, V> map, K key, V value) {
+        V existing = map.putIfAbsent(key, value);
+        return existing != null ? existing : value;
+    }
+
+    @Override
+    public String toString() {
+        return "DtoMetadata{" + "dtoClass=" + dtoClass.getCanonicalName() + '}';
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import org.cdsframework.base.BaseDTO;
+
+/**
+ * Provides the thread safe registry of DTO class metadata.
+ *
+ * The DtoMetadata of each DTO class is computed once and published through a ClassValue so reads never lock and the metadata
+ * is released together with the class when its class loader is unloaded.
+ *
+ * @author HLN Consulting, LLC
+ */
+public class DtoMetadataRegistry {
+
+    private static final LogUtils logger = LogUtils.getLogger(DtoMetadataRegistry.class);
+
+    private static final ClassValue<DtoMetadata> dtoMetadataClassValue = new ClassValue<DtoMetadata>() {
+        @Override
+        protected DtoMetadata computeValue(Class<?> type) {
+            return new DtoMetadata((Class<? extends BaseDTO>) type);
+        }
+    };
+
+    /**
+     * Returns the metadata snapshot of the DTO class.
+     *
+     * @param dtoClass
+     * @return the DtoMetadata of the dtoClass.
+     */
+    public static DtoMetadata getDtoMetadata(Class<? extends BaseDTO> dtoClass) {
+        if (dtoClass == null) {
+            throw new IllegalArgumentException("dtoClass is null!");
+        }
+        return dtoMetadataClassValue.get(dtoClass);
+    }
+
+    /**
+     * Builds and validates the metadata of every DTO class found in the packages so the reflection cost is paid at deployment
+     * time instead of on the first request. The JNDI root of the DTOs is not checked.
+     *
+     * @param packageNames
+     * @return the build duration in nanoseconds of each DTO class.
+     */
+    public static Map<Class<? extends BaseDTO>, Long> preload(String... packageNames) {
+        return preloadAndValidate(null, packageNames);
+    }
+
+    /**
+     * Builds the metadata of every DTO class found in the packages on a ForkJoinPool and validates each class with
+     * DTOUtils.performDTOClassValidation. The build time of each class is logged.
+     *
+     * @param jndiRoot the expected JNDI root of the DTOs or null to skip the check.
+     * @param packageNames
+     * @return the build duration in nanoseconds of each DTO class.
+     */
+    public static Map<Class<? extends BaseDTO>, Long> preloadAndValidate(final String jndiRoot, String... packageNames) {
+        final String METHODNAME = "preloadAndValidate ";
+        long start = System.nanoTime();
+        List<Class<? extends BaseDTO>> dtoClasses = new ArrayList<Class<? extends BaseDTO>>();
+        for (String packageName : packageNames) {
+            Class[] classes;
+            try {
+                classes = ClassUtils.getClassesFromClasspath(packageName);
+            } catch (Exception e) {
+                throw new IllegalStateException("Unable to scan package " + packageName + ": " + e.getMessage(), e);
+            }
+            for (Class cls : classes) {
+                if (BaseDTO.class.isAssignableFrom(cls) && !dtoClasses.contains(cls)) {
+                    dtoClasses.add(cls);
+                }
+            }
+        }
+
+        List<Callable<Long>> tasks = new ArrayList<Callable<Long>>(dtoClasses.size());
+        for (final Class<? extends BaseDTO> dtoClass : dtoClasses) {
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() throws Exception {
+                    long classStart = System.nanoTime();
+                    DtoMetadata dtoMetadata = getDtoMetadata(dtoClass);
+                    dtoMetadata.getDTOTable();
+                    dtoMetadata.getDtoComparator();
+                    dtoMetadata.getDtoChildClasses();
+                    DTOUtils.performDTOClassValidation(dtoClass, jndiRoot);
+                    return System.nanoTime() - classStart;
+                }
+            });
+        }
+
+        Map<Class<? extends BaseDTO>, Long> result = new LinkedHashMap<Class<? extends BaseDTO>, Long>();
+        List<String> errors = new ArrayList<String>();
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<Long>> futures = pool.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                Class<? extends BaseDTO> dtoClass = dtoClasses.get(i);
+                try {
+                    Long duration = futures.get(i).get();
+                    result.put(dtoClass, duration);
+                    logger.debug(METHODNAME, dtoClass.getSimpleName(), " duration(ms): ", duration / 1000000.0);
+                } catch (ExecutionException e) {
+                    logger.error(METHODNAME, dtoClass.getSimpleName(), " failed: ", e.getCause());
+                    errors.add(dtoClass.getSimpleName() + ": " + e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("DTO metadata preload was interrupted", e);
+        } finally {
+            pool.shutdown();
+        }
+        logger.info(METHODNAME, "preloaded ", result.size(), " DTO classes in ", (System.nanoTime() - start) / 1000000.0, "ms");
+        if (!errors.isEmpty()) {
+            throw new IllegalStateException("DTO metadata preload failed for " + errors);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -26,11 +26,11 @@
  */
 package org.cdsframework.util;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import org.cdsframework.base.BaseDTO;
+import org.cdsframework.rs.provider.ObjectMapperRegistry;
 
 /**
  *
@@ -39,14 +39,12 @@ import org.cdsframework.base.BaseDTO;
 public class JsonUtils {
  
     public static String getJsonFromPrimaryKey(BaseDTO baseDTO) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        String jsonPrimaryKey = mapper.writeValueAsString(getJsonPrimaryKeyMap(baseDTO));
+        String jsonPrimaryKey = ObjectMapperRegistry.getPlainObjectMapper().writeValueAsString(getJsonPrimaryKeyMap(baseDTO));
         return jsonPrimaryKey;
     }
 
     public static Map<String, Object> getPrimaryKeyFromJson(String jsonPrimaryKey) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
-        Map<String, Object> primaryKeyMap = mapper.readValue(jsonPrimaryKey, Map.class);
+        Map<String, Object> primaryKeyMap = ObjectMapperRegistry.getPlainObjectMapper().readValue(jsonPrimaryKey, Map.class);
         return primaryKeyMap;
     }
 
@@ -0,0 +1,271 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.enumeration.DatabaseType;
+import org.cdsframework.exceptions.MtsException;
+
+/**
+ * Generates keyset (seek) pagination clauses for a DTOTable.
+ *
+ * Instead of skipping offset rows the next page starts after the sort key of the last row of the previous page, so every page
+ * costs the same as the first one given an index on the sort columns. The sort columns are taken from the SortMetadata of the sort
+ * field followed by the primary key columns as a tie breaker. Each sort column must be a column of the table.
+ *
+ * The seek predicate uses the named parameters keyset_0, keyset_1... - their values are read from the last DTO of the previous
+ * page by getSeekParameters. A row value comparison is generated for PostgreSQL and MySQL when all columns sort in the same
+ * direction, the expanded OR form otherwise. Rows with a null sort value can't be seeked past.
+ *
+ * @author HLN Consulting, LLC
+ */
+public final class KeysetPagination {
+
+    public static final String PARAMETER_PREFIX = "keyset_";
+    private final DatabaseType databaseType;
+    private final String sortField;
+    private final boolean descending;
+    private final String selectDML;
+    private final List<String> sortColumns;
+    private final DTOColumnValue[] columnValues;
+    private final String seekPredicate;
+    private final String orderBy;
+
+    KeysetPagination(DTOTable dtoTable, String sortField, boolean descending, DatabaseType databaseType) {
+        this.databaseType = databaseType == null ? DatabaseType.ANY : databaseType;
+        this.sortField = sortField;
+        this.descending = descending;
+        this.selectDML = dtoTable.getSelectDML();
+
+        List<String> columns = new ArrayList<String>();
+        List<Boolean> directions = new ArrayList<Boolean>();
+        List<DTOColumnValue> values = new ArrayList<DTOColumnValue>();
+        if (sortField != null) {
+            String sortFieldValue = DTOUtils.getSortMetadata(dtoTable.getDtoClass(), this.databaseType).getSortFieldValue(sortField);
+            if (sortFieldValue == null) {
+                throw new IllegalArgumentException("Unknown sort field " + sortField + " for " + dtoTable.getDtoClass().getCanonicalName());
+            }
+            for (String sortExpression : sortFieldValue.split(",")) {
+                String sortColumn = sortExpression.trim();
+                boolean columnDescending = descending;
+                String lowerCase = sortColumn.toLowerCase();
+                if (lowerCase.endsWith(" desc")) {
+                    columnDescending = !descending;
+                    sortColumn = sortColumn.substring(0, sortColumn.length() - 5).trim();
+                } else if (lowerCase.endsWith(" asc")) {
+                    sortColumn = sortColumn.substring(0, sortColumn.length() - 4).trim();
+                }
+                addSortColumn(dtoTable, sortColumn, columnDescending, columns, directions, values);
+            }
+        }
+        String tableAlias = dtoTable.getTableAlias();
+        for (String primaryKeyColumn : dtoTable.getPrimaryKeyColumnNames()) {
+            String sortColumn = StringUtils.isEmpty(tableAlias) ? primaryKeyColumn : tableAlias + "." + primaryKeyColumn;
+            addSortColumn(dtoTable, sortColumn, descending, columns, directions, values);
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalStateException(dtoTable.getDtoClass().getCanonicalName() + " has no sort columns - the primary key is missing");
+        }
+        this.sortColumns = Collections.unmodifiableList(columns);
+        this.columnValues = values.toArray(new DTOColumnValue[values.size()]);
+
+        StringBuilder orderByBuilder = new StringBuilder(" order by ");
+        boolean uniformDirection = true;
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                orderByBuilder.append(", ");
+            }
+            orderByBuilder.append(columns.get(i));
+            if (directions.get(i)) {
+                orderByBuilder.append(" desc");
+            }
+            uniformDirection &= directions.get(i).equals(directions.get(0));
+        }
+        this.orderBy = orderByBuilder.toString();
+
+        StringBuilder predicate = new StringBuilder("( ");
+        if (uniformDirection && (this.databaseType == DatabaseType.POSTGRESQL || this.databaseType == DatabaseType.MYSQL)) {
+            predicate.append("( ");
+            appendList(predicate, columns, false);
+            predicate.append(directions.get(0) ? " ) < ( " : " ) > ( ");
+            appendList(predicate, columns, true);
+            predicate.append(" )");
+        } else {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    predicate.append(" OR ");
+                }
+                predicate.append("( ");
+                for (int j = 0; j < i; j++) {
+                    predicate.append(columns.get(j)).append(" = :").append(PARAMETER_PREFIX).append(j).append(" AND ");
+                }
+                predicate.append(columns.get(i)).append(directions.get(i) ? " < :" : " > :").append(PARAMETER_PREFIX).append(i);
+                predicate.append(" )");
+            }
+        }
+        this.seekPredicate = predicate.append(" )").toString();
+    }
+
+    private static void addSortColumn(DTOTable dtoTable, String sortColumn, boolean columnDescending, List<String> columns,
+            List<Boolean> directions, List<DTOColumnValue> values) {
+        String columnName = sortColumn.substring(sortColumn.lastIndexOf('.') + 1);
+        for (DTOColumnValue value : values) {
+            if (value.getColumnName().equalsIgnoreCase(columnName)) {
+                return;
+            }
+        }
+        for (String name : dtoTable.getColumnMap().keySet()) {
+            if (name.equalsIgnoreCase(columnName)) {
+                columns.add(sortColumn);
+                directions.add(columnDescending);
+                values.add(new DTOColumnValue(dtoTable, name));
+                return;
+            }
+        }
+        throw new IllegalArgumentException("The sort column " + sortColumn + " is not a column of "
+                + dtoTable.getDtoClass().getCanonicalName());
+    }
+
+    private static void appendList(StringBuilder builder, List<String> columns, boolean parameters) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            if (parameters) {
+                builder.append(':').append(PARAMETER_PREFIX).append(i);
+            } else {
+                builder.append(columns.get(i));
+            }
+        }
+    }
+
+    public DatabaseType getDatabaseType() {
+        return databaseType;
+    }
+
+    public String getSortField() {
+        return sortField;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Returns the sort columns including the primary key tie breaker.
+     *
+     * @return the sort columns.
+     */
+    public List<String> getSortColumns() {
+        return sortColumns;
+    }
+
+    /**
+     * Returns the predicate that selects the rows after the seek parameters.
+     *
+     * @return the seek predicate.
+     */
+    public String getSeekPredicate() {
+        return seekPredicate;
+    }
+
+    /**
+     * Returns the order by clause over all sort columns.
+     *
+     * @return the order by clause.
+     */
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    /**
+     * Returns the row limiting clause of the database type.
+     *
+     * @param pageSize
+     * @return the row limiting clause.
+     */
+    public String getLimitClause(int pageSize) {
+        switch (databaseType) {
+            case MYSQL:
+                return " LIMIT " + pageSize;
+            case SQLSERVER:
+                return " OFFSET 0 ROWS FETCH NEXT " + pageSize + " ROWS ONLY";
+            default:
+                return " FETCH FIRST " + pageSize + " ROWS ONLY";
+        }
+    }
+
+    /**
+     * Returns the select DML of the DTOTable limited to one page.
+     *
+     * @param whereClause an additional predicate without the WHERE keyword or null.
+     * @param firstPage whether to omit the seek predicate.
+     * @param pageSize
+     * @return the page DML.
+     */
+    public String getPageSql(String whereClause, boolean firstPage, int pageSize) {
+        StringBuilder sql = new StringBuilder(selectDML);
+        boolean hasWhereClause = !StringUtils.isEmpty(whereClause);
+        if (hasWhereClause) {
+            sql.append(" WHERE ( ").append(whereClause).append(" )");
+        }
+        if (!firstPage) {
+            sql.append(hasWhereClause ? " AND " : " WHERE ").append(seekPredicate);
+        }
+        return sql.append(orderBy).append(getLimitClause(pageSize)).toString();
+    }
+
+    /**
+     * Returns the seek parameter values read from the last DTO of the previous page.
+     *
+     * @param lastDTO
+     * @return the parameter name to database value map.
+     * @throws MtsException
+     */
+    public Map<String, Object> getSeekParameters(BaseDTO lastDTO) throws MtsException {
+        Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < columnValues.length; i++) {
+            Object value = columnValues[i].getValue(lastDTO, databaseType, false);
+            if (value == null) {
+                throw new IllegalArgumentException("The sort column " + sortColumns.get(i) + " is null - the page can't be seeked");
+            }
+            parameters.put(PARAMETER_PREFIX + i, value);
+        }
+        return parameters;
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetPagination{" + "databaseType=" + databaseType + ", sortField=" + sortField + ", descending=" + descending
+                + ", seekPredicate=" + seekPredicate + ", orderBy=" + orderBy + '}';
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.util;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import org.cdsframework.base.BaseDTO;
+
+/**
+ * Provides the primary key extraction strategy of a DTO class.
+ *
+ * The strategy is chosen once per DTO class from its primary key fields: no key, a single field key or a composite key. A single
+ * field key is returned as the field value. A composite key is returned as an immutable CompositeKey.
+ *
+ * @author HLN Consulting, LLC
+ */
+public abstract class PrimaryKeyExtractor {
+
+    /**
+     * Returns the extractor for the primary key fields of a DTO class.
+     *
+     * @param primaryKeyFields the accessible primary key fields sorted by their Id order.
+     * @return the extractor.
+     */
+    static PrimaryKeyExtractor newInstance(List<Field> primaryKeyFields) {
+        if (primaryKeyFields.isEmpty()) {
+            return new NoKeyExtractor();
+        } else if (primaryKeyFields.size() == 1) {
+            return new SingleFieldExtractor(primaryKeyFields.get(0));
+        } else {
+            return new CompositeKeyExtractor(primaryKeyFields);
+        }
+    }
+
+    /**
+     * Returns the primary key of the DTO instance.
+     *
+     * @param instance
+     * @return the field value of a single field key, a CompositeKey of a multi field key or null if the DTO has no key.
+     * @throws IllegalStateException on access errors or if the primary key class is not supported.
+     */
+    public abstract Object getPrimaryKey(BaseDTO instance);
+
+    /**
+     * Returns whether every primary key value of the DTO instance is set.
+     *
+     * @param instance
+     * @param acceptZeroAsValidKey
+     * @return true if the key is set.
+     * @throws IllegalStateException on access errors or if the primary key class is not supported.
+     */
+    public abstract boolean hasPrimaryKey(BaseDTO instance, boolean acceptZeroAsValidKey);
+
+    /**
+     * Returns whether a primary key value is set. A value is not set if it is null, blank or "null" or, unless zero is accepted,
+     * "0". Strings and integral numbers are checked without building a trimmed copy.
+     *
+     * @param value
+     * @param acceptZeroAsValidKey
+     * @return true if the value is set.
+     */
+    static boolean isKeyValuePresent(Object value, boolean acceptZeroAsValidKey) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return acceptZeroAsValidKey || ((Number) value).longValue() != 0;
+        }
+        String stringValue = value instanceof String ? (String) value : value.toString();
+        int start = 0;
+        int end = stringValue.length();
+        // the same whitespace as String.trim
+        while (start < end && stringValue.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && stringValue.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int length = end - start;
+        if (length == 0) {
+            return false;
+        }
+        if (length == 4 && stringValue.regionMatches(start, "null", 0, 4)) {
+            return false;
+        }
+        return acceptZeroAsValidKey || length != 1 || stringValue.charAt(start) != '0';
+    }
+
+    private static Object getValue(Field field, BaseDTO instance) {
+        try {
+            return field.get(instance);
+        } catch (Exception e) {
+            throw new IllegalStateException("An error occurred invoking: " + field.getName() + " - msg: " + e.getMessage()
+                    + " - type: " + field.getType().getSimpleName(), e);
+        }
+    }
+
+    private static final class NoKeyExtractor extends PrimaryKeyExtractor {
+
+        @Override
+        public Object getPrimaryKey(BaseDTO instance) {
+            return null;
+        }
+
+        @Override
+        public boolean hasPrimaryKey(BaseDTO instance, boolean acceptZeroAsValidKey) {
+            return false;
+        }
+    }
+
+    private static final class SingleFieldExtractor extends PrimaryKeyExtractor {
+
+        private final Field field;
+        private final Class<?> pkType;
+        private final boolean stringKey;
+        private final boolean numberKey;
+
+        private SingleFieldExtractor(Field field) {
+            this.field = field;
+            this.pkType = field.getType();
+            this.stringKey = pkType == String.class;
+            this.numberKey = pkType == Long.class || pkType == long.class || pkType == Integer.class || pkType == int.class;
+        }
+
+        @Override
+        public Object getPrimaryKey(BaseDTO instance) {
+            Object primaryKey = getValue(field, instance);
+            if (primaryKey == null) {
+                if (stringKey) {
+                    primaryKey = "";
+                } else if (!numberKey) {
+                    try {
+                        primaryKey = pkType.newInstance();
+                    } catch (Exception e) {
+                        throw new IllegalStateException("An error occurred invoking: " + field.getName() + " - msg: " + e.getMessage()
+                                + " - type: " + pkType.getSimpleName(), e);
+                    }
+                }
+            }
+            return primaryKey;
+        }
+
+        @Override
+        public boolean hasPrimaryKey(BaseDTO instance, boolean acceptZeroAsValidKey) {
+            if (stringKey || numberKey) {
+                return isKeyValuePresent(getValue(field, instance), acceptZeroAsValidKey);
+            }
+            return isKeyValuePresent(getPrimaryKey(instance), acceptZeroAsValidKey);
+        }
+    }
+
+    private static final class CompositeKeyExtractor extends PrimaryKeyExtractor {
+
+        private final Field[] fields;
+        private final String[] names;
+        private final Class<?> unsupportedType;
+
+        private CompositeKeyExtractor(List<Field> primaryKeyFields) {
+            fields = primaryKeyFields.toArray(new Field[primaryKeyFields.size()]);
+            names = new String[fields.length];
+            Class<?> unsupported = null;
+            for (int i = 0; i < fields.length; i++) {
+                names[i] = fields[i].getName();
+                if (unsupported == null && !isSupportedType(fields[i].getType())) {
+                    unsupported = fields[i].getType();
+                }
+            }
+            unsupportedType = unsupported;
+        }
+
+        private static boolean isSupportedType(Class<?> pkType) {
+            if (pkType == Long.class || pkType == long.class
+                    || pkType == Integer.class || pkType == int.class
+                    || pkType == String.class) {
+                return true;
+            }
+            Class<?> superclass = pkType.getSuperclass();
+            return superclass != null
+                    && (superclass == BaseDTO.class || superclass.getSuperclass() == BaseDTO.class || superclass == Enum.class);
+        }
+
+        private void checkSupportedType() {
+            if (unsupportedType != null) {
+                throw new IllegalStateException("Primary key class not supported: " + unsupportedType.getSimpleName());
+            }
+        }
+
+        @Override
+        public Object getPrimaryKey(BaseDTO instance) {
+            checkSupportedType();
+            Object[] values = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                values[i] = getValue(fields[i], instance);
+            }
+            return new CompositeKey(names, values);
+        }
+
+        @Override
+        public boolean hasPrimaryKey(BaseDTO instance, boolean acceptZeroAsValidKey) {
+            checkSupportedType();
+            for (Field field : fields) {
+                if (!isKeyValuePresent(getValue(field, instance), acceptZeroAsValidKey)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
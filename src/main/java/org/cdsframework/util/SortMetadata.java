@@ -0,0 +1,106 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.util;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.enumeration.DatabaseType;
+
+/**
+ * Provides the immutable sort metadata of a DTO class for a DatabaseType - the sort field to order by clause map derived from the
+ * SortColumn, SortColumns and OrderByMapEntries annotations. Instances are cached by DtoMetadata.getSortMetadata.
+ *
+ * @author HLN Consulting, LLC
+ */
+public final class SortMetadata {
+
+    private static final String ORDER_BY = "order by ";
+    private final Class<? extends BaseDTO> dtoClass;
+    private final DatabaseType databaseType;
+    private final Map<String, String> sortFieldOrderByMap;
+    private final Map<String, String> sortFieldValueMap;
+
+    SortMetadata(Class<? extends BaseDTO> dtoClass, DatabaseType databaseType, Map<String, String> sortFieldOrderByMap) {
+        this.dtoClass = dtoClass;
+        this.databaseType = databaseType;
+        this.sortFieldOrderByMap = Collections.unmodifiableMap(sortFieldOrderByMap);
+        Map<String, String> valueMap = new HashMap<String, String>();
+        for (Map.Entry<String, String> entry : sortFieldOrderByMap.entrySet()) {
+            String sortFieldValue = entry.getValue().trim();
+            if (sortFieldValue.startsWith(ORDER_BY)) {
+                sortFieldValue = sortFieldValue.substring(ORDER_BY.length()).trim();
+            }
+            valueMap.put(entry.getKey(), sortFieldValue);
+        }
+        this.sortFieldValueMap = Collections.unmodifiableMap(valueMap);
+    }
+
+    public Class<? extends BaseDTO> getDtoClass() {
+        return dtoClass;
+    }
+
+    public DatabaseType getDatabaseType() {
+        return databaseType;
+    }
+
+    /**
+     * Returns the order by clause of each sort field, e.g. " order by last_mod_id ".
+     *
+     * @return the unmodifiable sort field order by map.
+     */
+    public Map<String, String> getSortFieldOrderByMap() {
+        return sortFieldOrderByMap;
+    }
+
+    /**
+     * Returns the order by clause of the sort field.
+     *
+     * @param sortField
+     * @return the order by clause or null if the sort field is unknown.
+     */
+    public String getOrderBy(String sortField) {
+        return sortFieldOrderByMap.get(sortField);
+    }
+
+    /**
+     * Returns the sort expression of the sort field without the order by keywords, e.g. "a.last_name, a.first_name".
+     *
+     * @param sortField
+     * @return the sort expression or null if the sort field is unknown.
+     */
+    public String getSortFieldValue(String sortField) {
+        return sortFieldValueMap.get(sortField);
+    }
+
+    @Override
+    public String toString() {
+        return "SortMetadata{" + "dtoClass=" + dtoClass.getCanonicalName() + ", databaseType=" + databaseType
+                + ", sortFieldOrderByMap=" + sortFieldOrderByMap + '}';
+    }
+}
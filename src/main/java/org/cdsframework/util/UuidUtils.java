@@ -27,6 +27,7 @@
 package org.cdsframework.util;
 
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  *
@@ -34,6 +35,39 @@ import java.util.UUID;
  */
 public class UuidUtils {
 
+    private static volatile boolean fastRandomUuid = Boolean.getBoolean("org.cdsframework.util.fastRandomUuid");
+
+    /**
+     * Returns a new random (version 4) UUID. By default it is drawn from UUID.randomUUID - a SecureRandom shared by all threads.
+     * With setFastRandomUuid(true) or -Dorg.cdsframework.util.fastRandomUuid=true it is drawn from ThreadLocalRandom which doesn't
+     * contend but isn't cryptographically strong - only use it where the UUID just has to be unique, e.g. BaseDTO.getUuid.
+     *
+     * @return the UUID.
+     */
+    public static UUID randomUuid() {
+        return fastRandomUuid ? fastRandomUuid() : UUID.randomUUID();
+    }
+
+    /**
+     * Returns a new random (version 4) UUID drawn from ThreadLocalRandom.
+     *
+     * @return the UUID.
+     */
+    public static UUID fastRandomUuid() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSigBits = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;
+        long leastSigBits = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public static boolean isFastRandomUuid() {
+        return fastRandomUuid;
+    }
+
+    public static void setFastRandomUuid(boolean fastRandomUuid) {
+        UuidUtils.fastRandomUuid = fastRandomUuid;
+    }
+
     /**
      * Format a UUID with dashes.
      *
@@ -0,0 +1,319 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.tests.ant.core;
+
+import java.lang.reflect.Field;
+import org.cdsframework.annotation.Id;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.base.ChildDTOList;
+import org.cdsframework.util.DTOUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author HLN Consulting, LLC
+ */
+public class ChildDTOListTest {
+
+    public ChildDTOListTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testIndexOfByPrimaryKey() {
+        ChildDTOList childDTOList = newChildDTOList(100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, childDTOList.indexOf(newItem(i, null)));
+        }
+        assertEquals(-1, childDTOList.indexOf(newItem(100, null)));
+        assertTrue(childDTOList.contains(newItem(42, null)));
+    }
+
+    @Test
+    public void testAppendedElementsAreIndexed() {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        assertEquals(-1, childDTOList.indexOf(newItem(10, null)));
+        childDTOList.add(newItem(10, "ten"));
+        assertEquals(10, childDTOList.indexOf(newItem(10, null)));
+    }
+
+    @Test
+    public void testStructuralChanges() {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        assertEquals(5, childDTOList.indexOf(newItem(5, null)));
+        childDTOList.remove(0);
+        assertEquals(4, childDTOList.indexOf(newItem(5, null)));
+        assertEquals(-1, childDTOList.indexOf(newItem(0, null)));
+        childDTOList.add(0, newItem(0, "zero"));
+        assertEquals(5, childDTOList.indexOf(newItem(5, null)));
+        childDTOList.set(5, newItem(50, "fifty"));
+        assertEquals(-1, childDTOList.indexOf(newItem(5, null)));
+        assertEquals(5, childDTOList.indexOf(newItem(50, null)));
+        childDTOList.subList(0, 5).clear();
+        assertEquals(0, childDTOList.indexOf(newItem(50, null)));
+        childDTOList.clear();
+        assertEquals(-1, childDTOList.indexOf(newItem(50, null)));
+    }
+
+    @Test
+    public void testDuplicateKeysFindTheFirstOccurrence() {
+        ChildDTOList childDTOList = newChildDTOList(3);
+        childDTOList.add(newItem(1, "again"));
+        assertEquals(1, childDTOList.indexOf(newItem(1, null)));
+        childDTOList.remove(1);
+        assertEquals(2, childDTOList.indexOf(newItem(1, null)));
+    }
+
+    @Test
+    public void testNewDTOsAreFoundByEquals() {
+        ChildDTOList childDTOList = new ChildDTOList();
+        ItemDTO item = new ItemDTO();
+        childDTOList.add(item);
+        assertEquals(0, childDTOList.indexOf(item));
+        assertEquals(-1, childDTOList.indexOf(new ItemDTO()));
+    }
+
+    @Test
+    public void testPrimaryKeyChangeThroughSetter() {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        assertEquals(3, childDTOList.indexOf(newItem(3, null)));
+        ItemDTO item = (ItemDTO) childDTOList.get(3);
+        item.setItemId(30);
+        assertEquals(-1, childDTOList.indexOf(newItem(3, null)));
+        assertEquals(3, childDTOList.indexOf(newItem(30, null)));
+    }
+
+    @Test
+    public void testPrimaryKeyChangeOfAReferenceKey() {
+        ChildDTOList childDTOList = new ChildDTOList();
+        for (int i = 0; i < 10; i++) {
+            childDTOList.add(newItemRef(i));
+        }
+        assertEquals(3, childDTOList.indexOf(newItemRef(3)));
+        ((ItemRefDTO) childDTOList.get(3)).getItem().setItemId(30);
+        assertEquals(-1, childDTOList.indexOf(newItemRef(3)));
+        assertEquals(3, childDTOList.indexOf(newItemRef(30)));
+        assertTrue(childDTOList.contains(newItemRef(30)));
+    }
+
+    @Test
+    public void testPrimaryKeyChangeThroughDTOUtils() {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        assertEquals(3, childDTOList.indexOf(newItem(3, null)));
+        DTOUtils.setPrimaryKey(childDTOList.get(3), 30);
+        assertEquals(-1, childDTOList.indexOf(newItem(3, null)));
+        assertEquals(3, childDTOList.indexOf(newItem(30, null)));
+    }
+
+    @Test
+    public void testPrimaryKeySwap() {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        assertEquals(2, childDTOList.indexOf(newItem(2, null)));
+        ((ItemDTO) childDTOList.get(2)).setItemId(-1);
+        ((ItemDTO) childDTOList.get(7)).setItemId(2);
+        ((ItemDTO) childDTOList.get(2)).setItemId(7);
+        assertEquals(7, childDTOList.indexOf(newItem(2, null)));
+        assertEquals(2, childDTOList.indexOf(newItem(7, null)));
+    }
+
+    @Test
+    public void testAssignedPrimaryKeyOfNewDTO() {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        ItemDTO item = new ItemDTO();
+        childDTOList.add(item);
+        assertEquals(-1, childDTOList.indexOf(newItem(10, null)));
+        item.setItemId(10);
+        DTOUtils.unsetDTOState(item);
+        assertEquals(10, childDTOList.indexOf(newItem(10, null)));
+    }
+
+    @Test
+    public void testOtherPropertyChangesKeepTheIndex() throws Exception {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        assertEquals(3, childDTOList.indexOf(newItem(3, null)));
+        Object primaryKeyIndex = getPrimaryKeyIndex(childDTOList);
+        assertNotNull(primaryKeyIndex);
+        for (int i = 0; i < 10; i++) {
+            ((ItemDTO) childDTOList.get(i)).setName("renamed " + i);
+            ((ItemDTO) childDTOList.get(i)).setQuantity(i + 1);
+        }
+        assertEquals(3, childDTOList.indexOf(newItem(3, null)));
+        assertSame(primaryKeyIndex, getPrimaryKeyIndex(childDTOList));
+    }
+
+    @Test
+    public void testPrimaryKeyChangeInAnotherListKeepsTheIndex() throws Exception {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        ChildDTOList otherChildDTOList = newChildDTOList(10);
+        assertEquals(3, childDTOList.indexOf(newItem(3, null)));
+        assertEquals(3, otherChildDTOList.indexOf(newItem(3, null)));
+        Object primaryKeyIndex = getPrimaryKeyIndex(childDTOList);
+        ((ItemDTO) otherChildDTOList.get(3)).setItemId(30);
+        assertEquals(3, childDTOList.indexOf(newItem(3, null)));
+        assertSame(primaryKeyIndex, getPrimaryKeyIndex(childDTOList));
+        assertEquals(3, otherChildDTOList.indexOf(newItem(30, null)));
+    }
+
+    @Test
+    public void testSharedDTOIsTrackedByEachList() {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        ChildDTOList otherChildDTOList = new ChildDTOList();
+        ItemDTO item = (ItemDTO) childDTOList.get(4);
+        otherChildDTOList.add(item);
+        assertEquals(4, childDTOList.indexOf(newItem(4, null)));
+        assertEquals(0, otherChildDTOList.indexOf(newItem(4, null)));
+        item.setItemId(40);
+        assertEquals(0, otherChildDTOList.indexOf(newItem(40, null)));
+        item.setItemId(41);
+        assertEquals(0, otherChildDTOList.indexOf(newItem(41, null)));
+        assertEquals(-1, childDTOList.indexOf(newItem(4, null)));
+        assertEquals(-1, childDTOList.indexOf(newItem(40, null)));
+        assertEquals(4, childDTOList.indexOf(newItem(41, null)));
+    }
+
+    @Test
+    public void testRemovedDTOIsNoLongerTracked() {
+        ChildDTOList childDTOList = newChildDTOList(10);
+        assertEquals(4, childDTOList.indexOf(newItem(4, null)));
+        ItemDTO item = (ItemDTO) childDTOList.remove(4);
+        assertEquals(4, childDTOList.indexOf(newItem(5, null)));
+        item.setItemId(5);
+        assertFalse(childDTOList.contains(newItem(4, null)));
+        assertEquals(4, childDTOList.indexOf(newItem(5, null)));
+    }
+
+    private static Object getPrimaryKeyIndex(ChildDTOList childDTOList) throws Exception {
+        Field field = ChildDTOList.class.getDeclaredField("primaryKeyIndex");
+        field.setAccessible(true);
+        return field.get(childDTOList);
+    }
+
+    private static ChildDTOList newChildDTOList(int size) {
+        ChildDTOList childDTOList = new ChildDTOList();
+        for (int i = 0; i < size; i++) {
+            childDTOList.add(newItem(i, "item " + i));
+        }
+        return childDTOList;
+    }
+
+    private static ItemDTO newItem(int itemId, String name) {
+        ItemDTO item = new ItemDTO();
+        item.setItemId(itemId);
+        item.setName(name);
+        DTOUtils.unsetDTOState(item);
+        return item;
+    }
+
+    private static ItemRefDTO newItemRef(int itemId) {
+        ItemRefDTO itemRef = new ItemRefDTO();
+        itemRef.setItem(newItem(itemId, null));
+        DTOUtils.unsetDTOState(itemRef);
+        return itemRef;
+    }
+
+    /**
+     * A DTO whose primary key is a reference to another DTO.
+     */
+    public static class ItemRefDTO extends BaseDTO {
+
+        private static final long serialVersionUID = -2466437180307934412L;
+        @Id
+        private ItemDTO item;
+
+        public ItemDTO getItem() {
+            return item;
+        }
+
+        public void setItem(ItemDTO item) {
+            isChanged(this.item, item);
+            this.item = item;
+        }
+    }
+
+    /**
+     * A DTO whose setters report their changes the way the woven setters do.
+     */
+    public static class ItemDTO extends BaseDTO {
+
+        private static final long serialVersionUID = 6402563816624370519L;
+        @Id
+        private Integer itemId;
+        private String name;
+        private int quantity;
+
+        public Integer getItemId() {
+            return itemId;
+        }
+
+        public void setItemId(Integer itemId) {
+            isChanged(this.itemId, itemId);
+            this.itemId = itemId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            isChanged(this.name, name);
+            this.name = name;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            isChanged(this.quantity, quantity);
+            this.quantity = quantity;
+        }
+    }
+}
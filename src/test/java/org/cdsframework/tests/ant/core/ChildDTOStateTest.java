@@ -0,0 +1,308 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.tests.ant.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.cdsframework.annotation.Id;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.base.ChildDTOList;
+import org.cdsframework.enumeration.DTOState;
+import org.cdsframework.util.DTOUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author HLN Consulting, LLC
+ */
+public class ChildDTOStateTest {
+
+    private static final DTOState[] STATES = {DTOState.UNSET, DTOState.UNSET, DTOState.UPDATED, DTOState.NEW, DTOState.DELETED};
+    private static Method getChildDTOState;
+    private static Field changedChildLinks;
+    private static Field untrackedChildLinks;
+
+    public ChildDTOStateTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        getChildDTOState = BaseDTO.class.getDeclaredMethod("getChildDTOState", BaseDTO.class);
+        getChildDTOState.setAccessible(true);
+        changedChildLinks = BaseDTO.class.getDeclaredField("changedChildLinks");
+        changedChildLinks.setAccessible(true);
+        untrackedChildLinks = BaseDTO.class.getDeclaredField("untrackedChildLinks");
+        untrackedChildLinks.setAccessible(true);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testChangedChildren() throws Exception {
+        NodeDTO parent = newNode(1);
+        NodeDTO child = newNode(2);
+        NodeDTO otherChild = newNode(3);
+        parent.getChildrenDTOs(ChildQuery.class).add(child);
+        parent.getChildrenDTOs(ChildQuery.class).add(otherChild);
+        assertEquals(DTOState.UNSET, parent.getOperationDTOState());
+        assertCounts(parent, 0, 0);
+
+        DTOUtils.setDTOState(child, DTOState.UPDATED);
+        assertEquals(DTOState.UPDATED, parent.getOperationDTOState());
+        assertCounts(parent, 1, 0);
+        DTOUtils.setDTOState(otherChild, DTOState.DELETED);
+        assertCounts(parent, 2, 0);
+        DTOUtils.unsetDTOState(child);
+        assertCounts(parent, 1, 0);
+        parent.getChildrenDTOs(ChildQuery.class).remove(otherChild);
+        assertEquals(DTOState.UNSET, parent.getOperationDTOState());
+        assertCounts(parent, 0, 0);
+    }
+
+    @Test
+    public void testChangedGrandchildren() throws Exception {
+        NodeDTO parent = newNode(1);
+        NodeDTO child = newNode(2);
+        NodeDTO grandchild = newNode(3);
+        child.getChildrenDTOs(ChildQuery.class).add(grandchild);
+        parent.getChildrenDTOs(ChildQuery.class).add(child);
+        assertEquals(DTOState.UNSET, parent.getOperationDTOState());
+
+        DTOUtils.setDTOState(grandchild, DTOState.NEW);
+        assertEquals(DTOState.UPDATED, child.getOperationDTOState());
+        assertEquals(DTOState.UPDATED, parent.getOperationDTOState());
+        assertCounts(parent, 1, 0);
+        child.getChildrenDTOs(ChildQuery.class).clear();
+        assertEquals(DTOState.UNSET, parent.getOperationDTOState());
+        assertCounts(parent, 0, 0);
+    }
+
+    @Test
+    public void testListAttachAndDetach() throws Exception {
+        NodeDTO parent = newNode(1);
+        NodeDTO child = newNode(2);
+        DTOUtils.setDTOState(child, DTOState.UPDATED);
+        ChildDTOList childDTOList = new ChildDTOList();
+        childDTOList.add(child);
+        parent.getChildDTOMap().put(ChildQuery.class, childDTOList);
+        assertEquals(DTOState.UPDATED, parent.getOperationDTOState());
+        assertCounts(parent, 1, 0);
+
+        parent.getChildDTOMap().remove(ChildQuery.class);
+        assertEquals(DTOState.UNSET, parent.getOperationDTOState());
+        assertCounts(parent, 0, 0);
+        // a detached list no longer reports to the parent
+        DTOUtils.unsetDTOState(child);
+        DTOUtils.setDTOState(child, DTOState.DELETED);
+        assertCounts(parent, 0, 0);
+
+        parent.getChildDTOMap().put(ChildQuery.class, childDTOList);
+        assertCounts(parent, 1, 0);
+        parent.getChildDTOMap().put(ChildQuery.class, new ChildDTOList());
+        assertCounts(parent, 0, 0);
+        parent.getChildDTOMap().put(ChildQuery.class, childDTOList);
+        parent.getChildDTOMap().clear();
+        assertCounts(parent, 0, 0);
+    }
+
+    @Test
+    public void testListAttachedToAnotherDTOIsUntracked() throws Exception {
+        NodeDTO parent = newNode(1);
+        NodeDTO otherParent = newNode(2);
+        NodeDTO child = newNode(3);
+        List<BaseDTO> childDTOs = parent.getChildrenDTOs(ChildQuery.class);
+        childDTOs.add(child);
+        otherParent.getChildDTOMap().put(ChildQuery.class, childDTOs);
+        assertCounts(otherParent, 0, 1);
+        assertEquals(DTOState.UNSET, otherParent.getOperationDTOState());
+        DTOUtils.setDTOState(child, DTOState.UPDATED);
+        assertEquals(DTOState.UPDATED, otherParent.getOperationDTOState());
+        otherParent.getChildDTOMap().remove(ChildQuery.class);
+        assertCounts(otherParent, 0, 0);
+    }
+
+    @Test
+    public void testPlainListsAreUntracked() throws Exception {
+        NodeDTO parent = newNode(1);
+        NodeDTO child = newNode(2);
+        List<BaseDTO> childDTOs = new ArrayList<BaseDTO>();
+        childDTOs.add(child);
+        parent.getChildDTOMap().put(ChildQuery.class, childDTOs);
+        assertCounts(parent, 0, 1);
+        assertEquals(DTOState.UNSET, parent.getOperationDTOState());
+        DTOUtils.setDTOState(child, DTOState.UPDATED);
+        assertEquals(DTOState.UPDATED, parent.getOperationDTOState());
+
+        Map<Class, List<BaseDTO>> childDTOMap = new HashMap<Class, List<BaseDTO>>();
+        childDTOMap.put(ChildQuery.class, childDTOs);
+        NodeDTO otherParent = newNode(3);
+        otherParent.setChildDTOMap(childDTOMap);
+        assertEquals(DTOState.UPDATED, otherParent.getOperationDTOState());
+        otherParent.setChildDTOMap(null);
+        assertEquals(DTOState.UNSET, otherParent.getOperationDTOState());
+    }
+
+    @Test
+    public void testSharedChild() throws Exception {
+        NodeDTO parent = newNode(1);
+        NodeDTO otherParent = newNode(2);
+        NodeDTO child = newNode(3);
+        parent.getChildrenDTOs(ChildQuery.class).add(child);
+        otherParent.getChildrenDTOs(ChildQuery.class).add(child);
+        DTOUtils.setDTOState(child, DTOState.UPDATED);
+        assertEquals(DTOState.UPDATED, parent.getOperationDTOState());
+        assertEquals(DTOState.UPDATED, otherParent.getOperationDTOState());
+        DTOUtils.unsetDTOState(child);
+        assertEquals(DTOState.UNSET, parent.getOperationDTOState());
+        assertEquals(DTOState.UNSET, otherParent.getOperationDTOState());
+    }
+
+    /*
+     * Compares the incremental state with the recursive walk - what org.cdsframework.base.verifyChildDTOState checks - over random
+     * edits of a DTO tree.
+     */
+    @Test
+    public void testIncrementalStateMatchesTheWalk() throws Exception {
+        Random random = new Random(20190611L);
+        List<NodeDTO> nodes = new ArrayList<NodeDTO>();
+        for (int i = 0; i < 40; i++) {
+            nodes.add(newNode(i));
+        }
+        for (int i = 1; i < nodes.size(); i++) {
+            NodeDTO parent = nodes.get(random.nextInt(i));
+            parent.getChildrenDTOs(random.nextBoolean() ? ChildQuery.class : OtherChildQuery.class).add(nodes.get(i));
+        }
+        for (int step = 0; step < 5000; step++) {
+            // children always come later in the list so the tree stays free of cycles - shared children are allowed
+            int nodeIndex = random.nextInt(nodes.size() - 1);
+            NodeDTO node = nodes.get(nodeIndex);
+            NodeDTO other = nodes.get(nodeIndex + 1 + random.nextInt(nodes.size() - nodeIndex - 1));
+            List<BaseDTO> childDTOs = node.getChildrenDTOs(random.nextBoolean() ? ChildQuery.class : OtherChildQuery.class);
+            switch (random.nextInt(8)) {
+                case 0:
+                case 1:
+                    DTOUtils.setDTOState(node, STATES[random.nextInt(STATES.length)]);
+                    break;
+                case 2:
+                    DTOUtils.unsetDTOState(node);
+                    break;
+                case 3:
+                    if (childDTOs.size() < 6) {
+                        childDTOs.add(other);
+                    }
+                    break;
+                case 4:
+                    if (!childDTOs.isEmpty()) {
+                        childDTOs.remove(random.nextInt(childDTOs.size()));
+                    }
+                    break;
+                case 5:
+                    if (!childDTOs.isEmpty()) {
+                        childDTOs.set(random.nextInt(childDTOs.size()), other);
+                    }
+                    break;
+                case 6:
+                    if (random.nextInt(4) == 0) {
+                        childDTOs.clear();
+                    }
+                    break;
+                default:
+                    if (random.nextInt(4) == 0) {
+                        node.getChildDTOMap().put(ChildQuery.class, new ArrayList<BaseDTO>(childDTOs));
+                    } else if (random.nextInt(4) == 0) {
+                        node.getChildDTOMap().remove(OtherChildQuery.class);
+                    }
+                    break;
+            }
+            for (NodeDTO checked : nodes) {
+                DTOState walked = (DTOState) getChildDTOState.invoke(checked, checked);
+                DTOState expected = checked.getDTOState() != DTOState.UNSET ? checked.getDTOState()
+                        : walked != DTOState.UNSET ? DTOState.UPDATED : DTOState.UNSET;
+                assertEquals("step " + step, expected, checked.getOperationDTOState());
+            }
+        }
+    }
+
+    private static void assertCounts(BaseDTO baseDTO, int changed, int untracked) throws Exception {
+        assertEquals(changed, changedChildLinks.getInt(baseDTO));
+        assertEquals(untracked, untrackedChildLinks.getInt(baseDTO));
+        assertTrue(changed >= 0 && untracked >= 0);
+    }
+
+    private static NodeDTO newNode(int nodeId) {
+        NodeDTO node = new NodeDTO();
+        node.setNodeId(nodeId);
+        DTOUtils.unsetDTOState(node);
+        return node;
+    }
+
+    public interface ChildQuery {
+    }
+
+    public interface OtherChildQuery {
+    }
+
+    /**
+     * A DTO whose children are NodeDTOs.
+     */
+    public static class NodeDTO extends BaseDTO {
+
+        private static final long serialVersionUID = 4819302776185093215L;
+        @Id
+        private Integer nodeId;
+
+        public Integer getNodeId() {
+            return nodeId;
+        }
+
+        public void setNodeId(Integer nodeId) {
+            isChanged(this.nodeId, nodeId);
+            this.nodeId = nodeId;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.tests.ant.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.ws.rs.core.Response;
+import org.cdsframework.annotation.Id;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.client.RSClient;
+import org.cdsframework.dto.SecuritySchemeDTO;
+import org.cdsframework.dto.SecuritySchemeRelMapDTO;
+import org.cdsframework.util.CompositeKey;
+import org.cdsframework.util.DTOUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author HLN Consulting, LLC
+ */
+public class CompositeKeyTest {
+
+    public CompositeKeyTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testCompositeKeyIsAMap() {
+        Map<String, Object> primaryKey = getPrimaryKey(7L, "seven");
+        assertTrue(primaryKey instanceof CompositeKey);
+        assertEquals(2, primaryKey.size());
+        assertEquals(7L, primaryKey.get("mapId"));
+        assertEquals("seven", primaryKey.get("code"));
+        assertTrue(primaryKey.containsKey("code"));
+        assertFalse(primaryKey.containsKey("other"));
+        assertNull(primaryKey.get("other"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCompositeKeyIsImmutable() {
+        getPrimaryKey(7L, "seven").put("code", "eight");
+    }
+
+    @Test
+    public void testEqualsAndHashCodeFollowHashMap() {
+        Map<String, Object> primaryKey = getPrimaryKey(7L, "seven");
+        Map<String, Object> hashMap = new HashMap<String, Object>();
+        hashMap.put("code", "seven");
+        hashMap.put("mapId", 7L);
+        assertEquals(hashMap, primaryKey);
+        assertEquals(primaryKey, hashMap);
+        assertEquals(hashMap.hashCode(), primaryKey.hashCode());
+        assertEquals(getPrimaryKey(7L, "seven"), primaryKey);
+        assertEquals(getPrimaryKey(7L, "seven").hashCode(), primaryKey.hashCode());
+
+        hashMap.put("code", "eight");
+        assertFalse(primaryKey.equals(hashMap));
+        assertFalse(hashMap.equals(primaryKey));
+        assertFalse(primaryKey.equals(getPrimaryKey(8L, "seven")));
+        assertFalse(primaryKey.equals(getPrimaryKey(7L, null)));
+        assertEquals(getPrimaryKey(7L, null), getPrimaryKey(7L, null));
+    }
+
+    @Test
+    public void testCompositeKeysAndHashMapsAsHashKeys() {
+        Set<Object> keys = new HashSet<Object>();
+        keys.add(getPrimaryKey(1L, "one"));
+        Map<String, Object> hashMap = new HashMap<String, Object>();
+        hashMap.put("mapId", 1L);
+        hashMap.put("code", "one");
+        assertTrue(keys.contains(hashMap));
+        assertFalse(keys.add(hashMap));
+        assertTrue(keys.add(getPrimaryKey(1L, "two")));
+        assertEquals(2, keys.size());
+    }
+
+    @Test
+    public void testKeyCapturesTheValues() {
+        KeyedDTO keyed = new KeyedDTO();
+        keyed.setMapId(1L);
+        keyed.setCode("one");
+        Object primaryKey = DTOUtils.getPrimaryKey(keyed);
+        keyed.setCode("two");
+        assertEquals("one", ((Map) primaryKey).get("code"));
+        assertFalse(primaryKey.equals(DTOUtils.getPrimaryKey(keyed)));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        Map<String, Object> primaryKey = getPrimaryKey(7L, "seven");
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+        objectOutputStream.writeObject(primaryKey);
+        objectOutputStream.close();
+        Object copy = new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray())).readObject();
+        assertEquals(primaryKey, copy);
+        assertEquals(primaryKey.hashCode(), copy.hashCode());
+    }
+
+    @Test
+    public void testPrimaryKeyPathFollowsTheFieldOrder() throws Exception {
+        List<Object> expected = Arrays.asList((Object) 7L, "seven");
+        assertEquals(expected, getPrimaryKeyList(KeyedDTO.class, getPrimaryKey(7L, "seven")));
+        Map<String, Object> hashMap = new LinkedHashMap<String, Object>();
+        hashMap.put("code", "seven");
+        hashMap.put("mapId", 7L);
+        assertEquals(expected, getPrimaryKeyList(KeyedDTO.class, hashMap));
+        assertEquals(expected, getPrimaryKeyList(KeyedDTO.class, new HashMap<String, Object>(hashMap)));
+        // without a DTO type the values are taken in map order
+        assertEquals(Arrays.asList((Object) "seven", 7L), getPrimaryKeyList(Response.class, hashMap));
+        assertEquals(Arrays.asList((Object) 7L), getPrimaryKeyList(KeyedDTO.class, 7L));
+    }
+
+    @Test
+    public void testPrimaryKeyPathExpandsReferenceDTOs() throws Exception {
+        SecuritySchemeDTO relatedSecuritySchemeDTO = new SecuritySchemeDTO();
+        relatedSecuritySchemeDTO.setSchemeId("related");
+        SecuritySchemeRelMapDTO securitySchemeRelMapDTO = new SecuritySchemeRelMapDTO();
+        securitySchemeRelMapDTO.setSchemeId("scheme");
+        securitySchemeRelMapDTO.setRelatedSecuritySchemeDTO(relatedSecuritySchemeDTO);
+        List<Object> primaryKeys = getPrimaryKeyList(SecuritySchemeRelMapDTO.class, securitySchemeRelMapDTO.getPrimaryKey());
+        assertEquals(Arrays.asList((Object) "scheme", "related"), primaryKeys);
+        assertEquals(DTOUtils.getPrimaryKeys(securitySchemeRelMapDTO), primaryKeys);
+    }
+
+    private static List<Object> getPrimaryKeyList(Class responseType, Object primaryKey) throws Exception {
+        Method getPrimaryKeyList = RSClient.class.getDeclaredMethod("getPrimaryKeyList", Class.class, Object.class);
+        getPrimaryKeyList.setAccessible(true);
+        return (List<Object>) getPrimaryKeyList.invoke(null, responseType, primaryKey);
+    }
+
+    private static Map<String, Object> getPrimaryKey(Long mapId, String code) {
+        KeyedDTO keyed = new KeyedDTO();
+        keyed.setMapId(mapId);
+        keyed.setCode(code);
+        return (Map<String, Object>) DTOUtils.getPrimaryKey(keyed);
+    }
+
+    /**
+     * A DTO with a two field primary key.
+     */
+    public static class KeyedDTO extends BaseDTO {
+
+        private static final long serialVersionUID = -6069325830476393618L;
+        @Id(order = 1)
+        private Long mapId;
+        @Id(order = 2)
+        private String code;
+
+        public Long getMapId() {
+            return mapId;
+        }
+
+        public void setMapId(Long mapId) {
+            this.mapId = mapId;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public void setCode(String code) {
+            this.code = code;
+        }
+    }
+}
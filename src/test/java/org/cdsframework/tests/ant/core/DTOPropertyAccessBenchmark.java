@@ -0,0 +1,180 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.tests.ant.core;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.cdsframework.dto.UserDTO;
+
+/**
+ * Compares the field access paths considered for DTOProperty - run it with the test classpath:
+ *
+ * java -cp target/test-classes:target/classes:... org.cdsframework.tests.ant.core.DTOPropertyAccessBenchmark
+ *
+ * JMH isn't part of this build, so the benchmark warms each path up, runs it in several rounds and prints the best round. Every
+ * path reads all properties of a UserDTO in a loop, like row mapping and primary key extraction do, so the accessor call site
+ * sees one accessor per property. The static final handle reads one field through a constant handle, the best case a generic
+ * accessor layer can't reach because its handles are data of the DTOProperty, not constants.
+ *
+ * The LambdaMetafactory accessors are built on the bean getters - it can't target fields. The getters aren't the same as a field
+ * read (the setters fire property changes), so DTOProperty could only use them for reads.
+ *
+ * @author HLN Consulting, LLC
+ */
+public class DTOPropertyAccessBenchmark {
+
+    private static final int ROUNDS = 10;
+    private static final int ITERATIONS = 2000000;
+    private static final MethodHandle CONSTANT_HANDLE;
+    private static volatile Object sink;
+
+    static {
+        try {
+            Field field = UserDTO.class.getDeclaredField("email");
+            field.setAccessible(true);
+            CONSTANT_HANDLE = MethodHandles.lookup().unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class));
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static void main(String[] args) throws Throwable {
+        UserDTO dto = new UserDTO();
+        dto.setEmail("someone@example.com");
+        dto.setPhone("5555555555");
+        dto.setUsername("someone");
+
+        List<Field> fields = new ArrayList<Field>();
+        List<MethodHandle> handles = new ArrayList<MethodHandle>();
+        List<Function<Object, Object>> lambdas = new ArrayList<Function<Object, Object>>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Field field : UserDTO.class.getDeclaredFields()) {
+            Method getter = getGetter(field);
+            if (Modifier.isStatic(field.getModifiers()) || getter == null) {
+                continue;
+            }
+            field.setAccessible(true);
+            fields.add(field);
+            handles.add(lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class)));
+            lambdas.add(getLambda(lookup, getter));
+        }
+        Field[] fieldArray = fields.toArray(new Field[fields.size()]);
+        MethodHandle[] handleArray = handles.toArray(new MethodHandle[handles.size()]);
+        @SuppressWarnings("unchecked")
+        Function<Object, Object>[] lambdaArray = lambdas.toArray(new Function[lambdas.size()]);
+        System.out.println("properties=" + fieldArray.length + " iterations=" + ITERATIONS + " rounds=" + ROUNDS);
+
+        long field = Long.MAX_VALUE, handle = Long.MAX_VALUE, lambda = Long.MAX_VALUE, constant = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            field = Math.min(field, readFields(dto, fieldArray));
+            handle = Math.min(handle, readHandles(dto, handleArray));
+            lambda = Math.min(lambda, readLambdas(dto, lambdaArray));
+            constant = Math.min(constant, readConstant(dto, fieldArray.length));
+        }
+        System.out.println("Field.get                    " + perRead(field, fieldArray.length) + " ns/read");
+        System.out.println("MethodHandle per property    " + perRead(handle, fieldArray.length) + " ns/read");
+        System.out.println("LambdaMetafactory getter     " + perRead(lambda, fieldArray.length) + " ns/read");
+        System.out.println("static final MethodHandle    " + perRead(constant, fieldArray.length) + " ns/read (one field)");
+    }
+
+    private static Method getGetter(Field field) {
+        String name = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        for (String prefix : new String[]{"get", "is"}) {
+            try {
+                Method method = field.getDeclaringClass().getMethod(prefix + name);
+                if (method.getReturnType() == field.getType()) {
+                    return method;
+                }
+            } catch (NoSuchMethodException e) {
+                // try the next prefix
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getLambda(MethodHandles.Lookup lookup, Method getter) throws Throwable {
+        MethodHandle target = lookup.unreflect(getter);
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class), target, target.type().wrap().changeReturnType(Object.class)
+                .changeParameterType(0, getter.getDeclaringClass()));
+        return (Function<Object, Object>) callSite.getTarget().invokeExact();
+    }
+
+    private static long readFields(Object dto, Field[] fields) throws IllegalAccessException {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (Field field : fields) {
+                sink = field.get(dto);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long readHandles(Object dto, MethodHandle[] handles) throws Throwable {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (MethodHandle handle : handles) {
+                sink = (Object) handle.invokeExact(dto);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long readLambdas(Object dto, Function<Object, Object>[] lambdas) {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (Function<Object, Object> lambda : lambdas) {
+                sink = lambda.apply(dto);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long readConstant(Object dto, int reads) throws Throwable {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            for (int j = 0; j < reads; j++) {
+                sink = (Object) CONSTANT_HANDLE.invokeExact(dto);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static String perRead(long nanos, int properties) {
+        return String.format("%.2f", (double) nanos / ((double) ITERATIONS * properties));
+    }
+}
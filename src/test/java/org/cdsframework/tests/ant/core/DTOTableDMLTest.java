@@ -0,0 +1,247 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.tests.ant.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.cdsframework.dto.AppDTO;
+import org.cdsframework.dto.SecuritySchemeRelMapDTO;
+import org.cdsframework.enumeration.DatabaseType;
+import org.cdsframework.enumeration.Operation;
+import org.cdsframework.util.DTOBindPlan;
+import org.cdsframework.util.DTOTable;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author HLN Consulting, LLC
+ */
+public class DTOTableDMLTest {
+
+    private static DTOTable appTable;
+    private static DTOTable relMapTable;
+
+    public DTOTableDMLTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        appTable = new DTOTable(AppDTO.class);
+        relMapTable = new DTOTable(SecuritySchemeRelMapDTO.class);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testMultiRowInsertDML() {
+        String insertDML = appTable.getInsertDML();
+        int rowParameters = count(insertDML, ":");
+        String oracleDML = appTable.getMultiRowInsertDML(DatabaseType.ORACLE, 3);
+        assertTrue(oracleDML, oracleDML.startsWith("INSERT ALL INTO mt_app ( "));
+        assertTrue(oracleDML, oracleDML.endsWith(" SELECT 1 FROM DUAL"));
+        assertEquals(3, count(oracleDML, " INTO mt_app "));
+        assertEquals(3 * rowParameters, count(oracleDML, ":"));
+        for (DatabaseType databaseType : new DatabaseType[]{DatabaseType.POSTGRESQL, DatabaseType.MYSQL, DatabaseType.SQLSERVER}) {
+            String dml = appTable.getMultiRowInsertDML(databaseType, 3);
+            assertTrue(dml, dml.startsWith("INSERT INTO mt_app ( "));
+            assertEquals(3, count(dml, "( :"));
+            assertEquals(3 * rowParameters, count(dml, ":"));
+        }
+    }
+
+    @Test
+    public void testMultiRowInsertBindPlan() {
+        DTOBindPlan bindPlan = appTable.getMultiRowInsertBindPlan(DatabaseType.POSTGRESQL, 4);
+        assertEquals(Operation.ADD, bindPlan.getOperation());
+        assertEquals(4, bindPlan.getRowCount());
+        assertEquals(count(bindPlan.getSql(), "?"), bindPlan.getParameterNames().size());
+        assertEquals(0, count(bindPlan.getSql(), ":"));
+        assertSame(bindPlan, appTable.getMultiRowInsertBindPlan(DatabaseType.POSTGRESQL, 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultiRowInsertNeedsARow() {
+        appTable.getMultiRowInsertDML(DatabaseType.MYSQL, 0);
+    }
+
+    @Test
+    public void testMultiRowInsertLimit() {
+        int columnCount = count(appTable.getInsertDML(), ":");
+        int maxRows = appTable.getMaxMultiRowInsertRows();
+        assertEquals(Math.min(DTOTable.MAX_MULTI_ROW_INSERT_ROWS, DTOTable.MAX_MULTI_ROW_INSERT_PARAMETERS / columnCount), maxRows);
+        assertTrue(maxRows * columnCount <= DTOTable.MAX_MULTI_ROW_INSERT_PARAMETERS);
+        assertEquals(maxRows, appTable.getMultiRowInsertBindPlan(DatabaseType.SQLSERVER, maxRows).getRowCount());
+        try {
+            appTable.getMultiRowInsertBindPlan(DatabaseType.SQLSERVER, maxRows + 1);
+            fail("rowCount " + (maxRows + 1) + " was accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            appTable.getMultiRowInsertDML(DatabaseType.ORACLE, maxRows + 1);
+            fail("rowCount " + (maxRows + 1) + " was accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMultiRowInsertBindPlansAreKeptForBuckets() {
+        assertSame(appTable.getMultiRowInsertBindPlan(DatabaseType.MYSQL, 8), appTable.getMultiRowInsertBindPlan(DatabaseType.MYSQL, 8));
+        int maxRows = appTable.getMaxMultiRowInsertRows();
+        assertSame(appTable.getMultiRowInsertBindPlan(DatabaseType.MYSQL, maxRows), appTable.getMultiRowInsertBindPlan(DatabaseType.MYSQL, maxRows));
+        DTOBindPlan bindPlan = appTable.getMultiRowInsertBindPlan(DatabaseType.MYSQL, 5);
+        assertEquals(5, bindPlan.getRowCount());
+        assertNotSame(bindPlan, appTable.getMultiRowInsertBindPlan(DatabaseType.MYSQL, 5));
+    }
+
+    @Test
+    public void testUpsertDML() {
+        String postgresDML = relMapTable.getUpsertDML(DatabaseType.POSTGRESQL);
+        assertTrue(postgresDML, postgresDML.contains(" ON CONFLICT ( scheme_id, rel_scheme_id ) DO UPDATE SET "));
+        assertTrue(postgresDML, postgresDML.contains("last_mod_id = EXCLUDED.last_mod_id"));
+        assertEquals(-1, postgresDML.indexOf("scheme_id = EXCLUDED.scheme_id"));
+
+        String mysqlDML = relMapTable.getUpsertDML(DatabaseType.MYSQL);
+        assertTrue(mysqlDML, mysqlDML.contains(" ON DUPLICATE KEY UPDATE "));
+        assertTrue(mysqlDML, mysqlDML.contains("last_mod_id = VALUES(last_mod_id)"));
+
+        String oracleDML = relMapTable.getUpsertDML(DatabaseType.ORACLE);
+        assertTrue(oracleDML, oracleDML.startsWith("MERGE INTO mt_security_scheme_rel_map t USING ( SELECT "));
+        assertTrue(oracleDML, oracleDML.contains(" FROM DUAL ) s ON ( t.scheme_id = s.scheme_id AND t.rel_scheme_id = s.rel_scheme_id )"));
+        assertTrue(oracleDML, oracleDML.contains(" WHEN MATCHED THEN UPDATE SET t.last_mod_id = s.last_mod_id"));
+        assertTrue(oracleDML, oracleDML.contains(" WHEN NOT MATCHED THEN INSERT ( "));
+
+        String sqlServerDML = relMapTable.getUpsertDML(DatabaseType.SQLSERVER);
+        assertTrue(sqlServerDML, sqlServerDML.startsWith("MERGE INTO mt_security_scheme_rel_map WITH (HOLDLOCK) AS t USING ( VALUES ( "));
+        assertTrue(sqlServerDML, sqlServerDML.endsWith(" );"));
+
+        DTOBindPlan bindPlan = relMapTable.getUpsertBindPlan(DatabaseType.ORACLE);
+        assertEquals(Operation.CUSTOM_SAVE, bindPlan.getOperation());
+        assertEquals(count(relMapTable.getInsertDML(), ":"), bindPlan.getParameterNames().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpsertIsNotSupportedForDerby() {
+        appTable.getUpsertDML(DatabaseType.DERBY);
+    }
+
+    @Test
+    public void testSelectByPrimaryKeysDML() {
+        String dml = appTable.getSelectByPrimaryKeysDML(3);
+        assertTrue(dml, dml.startsWith(appTable.getSelectDML() + " WHERE "));
+        assertTrue(dml, dml.endsWith("app_id IN ( :app_id, :app_id, :app_id )"));
+
+        String compositeDML = relMapTable.getSelectByPrimaryKeysDML(2);
+        assertTrue(compositeDML, compositeDML.endsWith(
+                " WHERE ( scheme_id = :scheme_id AND rel_scheme_id = :rel_scheme_id ) OR ( scheme_id = :scheme_id AND rel_scheme_id = :rel_scheme_id )"));
+    }
+
+    @Test
+    public void testSelectByPrimaryKeysLimit() {
+        assertEquals(DTOTable.MAX_SELECT_PRIMARY_KEYS, count(appTable.getSelectByPrimaryKeysDML(DTOTable.MAX_SELECT_PRIMARY_KEYS), ":app_id"));
+        for (int keyCount : new int[]{0, DTOTable.MAX_SELECT_PRIMARY_KEYS + 1}) {
+            try {
+                appTable.getSelectByPrimaryKeysDML(keyCount);
+                fail("keyCount " + keyCount + " was accepted");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            try {
+                appTable.getSelectByPrimaryKeysBindPlan(keyCount);
+                fail("keyCount " + keyCount + " was accepted");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testSelectByPrimaryKeysBindPlansAreBucketed() {
+        int[][] buckets = {{1, 1}, {2, 2}, {3, 4}, {4, 4}, {5, 8}, {100, 128}, {512, 512}, {513, 1000}, {1000, 1000}};
+        for (int[] bucket : buckets) {
+            DTOBindPlan bindPlan = appTable.getSelectByPrimaryKeysBindPlan(bucket[0]);
+            assertEquals("keyCount " + bucket[0], bucket[1], bindPlan.getRowCount());
+            assertEquals(Operation.FIND, bindPlan.getOperation());
+            assertEquals(bucket[1], bindPlan.getParameterNames().size());
+        }
+        assertSame(appTable.getSelectByPrimaryKeysBindPlan(5), appTable.getSelectByPrimaryKeysBindPlan(7));
+    }
+
+    @Test
+    public void testSelectByPrimaryKeysBindPlanRepeatsTheLastKey() throws Exception {
+        DTOBindPlan bindPlan = appTable.getSelectByPrimaryKeysBindPlan(3);
+        List<AppDTO> apps = new ArrayList<AppDTO>();
+        for (String appId : new String[]{"a", "b", "c"}) {
+            AppDTO app = new AppDTO();
+            app.setAppId(appId);
+            apps.add(app);
+        }
+        assertEquals(Arrays.<Object>asList("a", "b", "c", "c"), Arrays.asList(bindPlan.getParameterValues(apps, DatabaseType.ORACLE)));
+        try {
+            bindPlan.getParameterValues(Collections.<AppDTO>emptyList(), DatabaseType.ORACLE);
+            fail("no keys were accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            appTable.getMultiRowInsertBindPlan(DatabaseType.MYSQL, 4).getParameterValues(apps, DatabaseType.MYSQL);
+            fail("a partial multi-row insert was accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int index = text.indexOf(part); index >= 0; index = text.indexOf(part, index + part.length())) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,233 @@
+/**
+ * The MTS support core project contains client related utilities, data transfer objects and remote EJB interfaces for communication with the CDS Framework Middle Tier Service.
+ *
+ * Copyright (C) 2016 New York City Department of Health and Mental Hygiene, Bureau of Immunization
+ * Contributions by HLN Consulting, LLC
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the GNU
+ * Lesser General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version. You should have received a copy of the GNU Lesser
+ * General Public License along with this program. If not, see <http://www.gnu.org/licenses/> for more
+ * details.
+ *
+ * The above-named contributors (HLN Consulting, LLC) are also licensed by the New York City
+ * Department of Health and Mental Hygiene, Bureau of Immunization to have (without restriction,
+ * limitation, and warranty) complete irrevocable access and rights to this project.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; THE
+ * SOFTWARE IS PROVIDED "AS IS" WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING,
+ * BUT NOT LIMITED TO, WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE COPYRIGHT HOLDERS, IF ANY, OR DEVELOPERS BE LIABLE FOR
+ * ANY CLAIM, DAMAGES, OR OTHER LIABILITY OF ANY KIND, ARISING FROM, OUT OF, OR IN CONNECTION WITH
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information about this software, see https://www.hln.com/services/open-source/ or send
+ * correspondence to ice@hln.com.
+ */
+package org.cdsframework.tests.ant.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.cdsframework.annotation.Id;
+import org.cdsframework.base.BaseDTO;
+import org.cdsframework.util.DTOUtils;
+import org.cdsframework.util.support.CorePropertyChangeEvent;
+import org.junit.After;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ *
+ * @author HLN Consulting, LLC
+ */
+public class PropertyChangeJournalTest {
+
+    public PropertyChangeJournalTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    @Test
+    public void testChangesOfNewDTOAreNotRecorded() {
+        TrackedDTO tracked = new TrackedDTO();
+        tracked.setName("name");
+        assertNull(tracked.getPropertyChangeEvent("name"));
+        assertFalse(tracked.isPropertyChanged("name"));
+    }
+
+    @Test
+    public void testOriginalValueIsKept() {
+        TrackedDTO tracked = newTrackedDTO();
+        tracked.setName("second");
+        tracked.setName("third");
+        CorePropertyChangeEvent propertyChangeEvent = tracked.getPropertyChangeEvent("name");
+        assertEquals("name", propertyChangeEvent.getPropertyName());
+        assertEquals("first", propertyChangeEvent.getOldValue());
+        assertEquals("third", propertyChangeEvent.getNewValue());
+        assertEquals(1, tracked.getPropertyChangeEventMap().size());
+    }
+
+    @Test
+    public void testChangeBackRemovesTheProperty() {
+        TrackedDTO tracked = newTrackedDTO();
+        tracked.setName("second");
+        tracked.setCount(2);
+        tracked.setName("first");
+        assertNull(tracked.getPropertyChangeEvent("name"));
+        assertFalse(tracked.getPropertyChangeEventMap().containsKey("name"));
+        assertTrue(tracked.getPropertyChangeEventMap().containsKey("count"));
+        assertEquals(1, tracked.getPropertyChangeEventMap().size());
+    }
+
+    @Test
+    public void testReadsReturnTheStoredEvent() {
+        TrackedDTO tracked = newTrackedDTO();
+        tracked.setName("second");
+        CorePropertyChangeEvent propertyChangeEvent = tracked.getPropertyChangeEvent("name");
+        assertSame(propertyChangeEvent, tracked.getPropertyChangeEvent("name"));
+        assertSame(propertyChangeEvent, tracked.getPropertyChangeEventMap().entrySet().iterator().next().getValue());
+        propertyChangeEvent.setNewValue("edited");
+        assertEquals("edited", tracked.getPropertyChangeEvent("name").getNewValue());
+        tracked.setName("third");
+        assertNotSame(propertyChangeEvent, tracked.getPropertyChangeEvent("name"));
+        assertEquals("edited", propertyChangeEvent.getNewValue());
+        assertEquals("third", tracked.getPropertyChangeEvent("name").getNewValue());
+    }
+
+    @Test
+    public void testMapOperations() {
+        TrackedDTO tracked = newTrackedDTO();
+        tracked.setName("second");
+        tracked.setCount(2);
+        Map<String, CorePropertyChangeEvent> propertyChangeEventMap = tracked.getPropertyChangeEventMap();
+        Map<String, CorePropertyChangeEvent> expected = new HashMap<String, CorePropertyChangeEvent>(propertyChangeEventMap);
+        assertEquals(expected, propertyChangeEventMap);
+        assertEquals(expected.hashCode(), propertyChangeEventMap.hashCode());
+
+        CorePropertyChangeEvent put = new CorePropertyChangeEvent("other", "a", "b");
+        assertNull(propertyChangeEventMap.put("other", put));
+        assertSame(put, propertyChangeEventMap.get("other"));
+        assertEquals(3, propertyChangeEventMap.size());
+        assertSame(put, propertyChangeEventMap.remove("other"));
+        assertNull(propertyChangeEventMap.remove("other"));
+        assertNull(propertyChangeEventMap.get(Integer.valueOf(1)));
+
+        Iterator<Entry<String, CorePropertyChangeEvent>> iterator = propertyChangeEventMap.entrySet().iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(1, propertyChangeEventMap.size());
+        propertyChangeEventMap.clear();
+        assertTrue(propertyChangeEventMap.isEmpty());
+        assertFalse(tracked.isPropertyChanged("name"));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        TrackedDTO tracked = newTrackedDTO();
+        tracked.setName("second");
+        tracked.setCount(2);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+        objectOutputStream.writeObject(tracked);
+        objectOutputStream.close();
+        TrackedDTO copy = (TrackedDTO) new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray())).readObject();
+        assertEquals(2, copy.getPropertyChangeEventMap().size());
+        assertEquals("first", copy.getPropertyChangeEvent("name").getOldValue());
+        assertEquals("second", copy.getPropertyChangeEvent("name").getNewValue());
+        assertEquals(1, copy.getPropertyChangeEvent("count").getOldValue());
+        assertEquals(2, copy.getPropertyChangeEvent("count").getNewValue());
+    }
+
+    @Test
+    public void testUnsetDTOStateDoesNotAllocate() throws Exception {
+        TrackedDTO tracked = new TrackedDTO();
+        DTOUtils.unsetDTOState(tracked);
+        assertNull(getPropertyChangeEventMapField(tracked));
+        tracked.setName("second");
+        DTOUtils.unsetDTOState(tracked);
+        assertTrue(tracked.getPropertyChangeEventMap().isEmpty());
+    }
+
+    private static Object getPropertyChangeEventMapField(BaseDTO baseDTO) throws Exception {
+        Field field = BaseDTO.class.getDeclaredField("propertyChangeEventMap");
+        field.setAccessible(true);
+        return field.get(baseDTO);
+    }
+
+    private static TrackedDTO newTrackedDTO() {
+        TrackedDTO tracked = new TrackedDTO();
+        tracked.setTrackedId(1);
+        tracked.setName("first");
+        tracked.setCount(1);
+        DTOUtils.unsetDTOState(tracked);
+        return tracked;
+    }
+
+    /**
+     * A DTO whose setters report their changes by property name.
+     */
+    public static class TrackedDTO extends BaseDTO {
+
+        private static final long serialVersionUID = -2283591560271693370L;
+        @Id
+        private Integer trackedId;
+        private String name;
+        private Integer count;
+
+        public Integer getTrackedId() {
+            return trackedId;
+        }
+
+        public void setTrackedId(Integer trackedId) {
+            isChanged("trackedId", this.trackedId, trackedId);
+            this.trackedId = trackedId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            isChanged("name", this.name, name);
+            this.name = name;
+        }
+
+        public Integer getCount() {
+            return count;
+        }
+
+        public void setCount(Integer count) {
+            isChanged("count", this.count, count);
+            this.count = count;
+        }
+    }
+}